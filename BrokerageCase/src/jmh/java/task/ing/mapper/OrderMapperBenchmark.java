@@ -0,0 +1,49 @@
+package task.ing.mapper;
+
+import org.openjdk.jmh.annotations.*;
+import task.ing.model.dto.projection.OrderHistoryRow;
+import task.ing.model.dto.response.OrderResponseDto;
+import task.ing.model.entity.Order;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMapperBenchmark {
+
+    private Order order;
+    private OrderHistoryRow row;
+
+    @Setup
+    public void setUp() {
+        order = new Order();
+        order.setId(1L);
+        order.setAssetName("ASELS");
+        order.setPrice(Amount.valueOf("45.75"));
+        order.setSize(Amount.of(10));
+        order.setCreatedDate(LocalDate.of(2025, 3, 1));
+        order.setOrderSide(OrderSide.BUY);
+        order.setOrderStatus(OrderStatus.PENDING);
+
+        row = new OrderHistoryRow(1L, "ASELS", Amount.valueOf("45.75"), Amount.of(10), LocalDate.of(2025, 3, 1),
+                OrderSide.BUY, OrderStatus.PENDING);
+    }
+
+    @Benchmark
+    public OrderResponseDto toDtoFromEntity() {
+        return OrderMapper.toDto(order);
+    }
+
+    @Benchmark
+    public OrderResponseDto toDtoFromProjection() {
+        return OrderMapper.toDto(row);
+    }
+}
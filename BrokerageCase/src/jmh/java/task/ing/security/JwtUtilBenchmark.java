@@ -0,0 +1,58 @@
+package task.ing.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import task.ing.model.entity.Customer;
+import task.ing.model.enums.Role;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification. {@code verifyCached} is the path of every request after the first
+ * one with a token; {@code verifyUncached} empties the cache first, so it checks the signature.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private VerifiedTokenCache verifiedTokenCache;
+    private JwtUtil jwtUtil;
+    private Customer customer;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache(10_000);
+        jwtUtil = new JwtUtil(verifiedTokenCache, new SimpleMeterRegistry());
+
+        customer = new Customer();
+        customer.setId(1000L);
+        customer.setUsername("benchuser");
+        customer.setRole(Role.ROLE_USER);
+        customer.setTokenVersion(0);
+
+        token = jwtUtil.generateToken(customer);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(customer);
+    }
+
+    @Benchmark
+    public Optional<Claims> verifyUncached() {
+        verifiedTokenCache.clear();
+        return jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public Optional<Claims> verifyCached() {
+        return jwtUtil.verify(token);
+    }
+}
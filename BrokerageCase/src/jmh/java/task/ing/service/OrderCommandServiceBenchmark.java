@@ -0,0 +1,93 @@
+package task.ing.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import task.ing.BrokerageCaseApplication;
+import task.ing.model.dto.request.CustomerRequestDto;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.dto.response.OrderResponseDto;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the {@link task.ing.journal.CommandJournal} adds to a synchronous command: the same commands
+ * through {@link OrderCommandService}, once without the journal and once for each fsync policy the
+ * {@code journal} profile may use. A journaled command still runs its transaction, so the difference
+ * is the append, the sync it waits for and the {@code journal_applied} row.
+ * <p>
+ * Run with several threads, e.g. {@code -t 8}, to see commands share group commits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 4)
+@Measurement(iterations = 5, time = 4)
+@Fork(1)
+public class OrderCommandServiceBenchmark {
+
+    private static final String TRADER = "benchtrader";
+    private static final String ORDER_ASSET = "THYAO";
+
+    @Param({"off", "ALWAYS", "INTERVAL"})
+    private String journal;
+
+    private Path journalDirectory;
+    private ConfigurableApplicationContext context;
+    private OrderCommandService orderCommandService;
+
+    private OrderRequestDto buyPending;
+    private Amount deposit;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        journalDirectory = Files.createTempDirectory("journal-benchmark");
+        context = new SpringApplicationBuilder(BrokerageCaseApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:command-benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.add-properties=false",
+                        "--spring.autoconfigure.exclude="
+                                + "org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration",
+                        "--logging.level.root=WARN",
+                        // frequent ledger snapshots, so balances do not sum a tail that grows all run
+                        "--brokerage.ledger.snapshot-interval-ms=200",
+                        "--brokerage.ledger.snapshot-lag-ms=200",
+                        "--brokerage.journal.enabled=" + !journal.equals("off"),
+                        "--brokerage.journal.fsync=" + (journal.equals("off") ? "ALWAYS" : journal),
+                        "--brokerage.journal.directory=" + journalDirectory);
+        orderCommandService = context.getBean(OrderCommandService.class);
+
+        context.getBean(CustomerService.class)
+                .createCustomer(new CustomerRequestDto("Bench", "Trader", "trader@bench.com", TRADER, "secret1"));
+        orderCommandService.depositForCurrentUser(Amount.of(1_000_000_000_000L), TRADER);
+
+        // rests below the listed price, so it never matches
+        buyPending = new OrderRequestDto(ORDER_ASSET, Amount.of(1), Amount.of(1), OrderSide.BUY);
+        deposit = Amount.of(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+        FileSystemUtils.deleteRecursively(journalDirectory.toFile());
+    }
+
+    @Benchmark
+    public OrderResponseDto createBuyPending() {
+        return orderCommandService.createOrder(buyPending, TRADER);
+    }
+
+    @Benchmark
+    public OrderResponseDto deposit() {
+        return orderCommandService.depositForCurrentUser(deposit, TRADER);
+    }
+}
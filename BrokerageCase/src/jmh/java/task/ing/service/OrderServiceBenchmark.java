@@ -0,0 +1,189 @@
+package task.ing.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import task.ing.BrokerageCaseApplication;
+import task.ing.cache.AssetListCache;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.ledger.BalanceBook;
+import task.ing.mapper.OrderMapper;
+import task.ing.model.dto.request.CustomerRequestDto;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.dto.response.OrderResponseDto;
+import task.ing.model.entity.Order;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetListRepository;
+import task.ing.repository.CustomerRepository;
+import task.ing.repository.OrderRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderService} against the full application context on an in-memory H2 database. Orders
+ * go straight to the transactional service, without the sequencer, so the numbers are the cost of
+ * one command on one thread.
+ * <p>
+ * Every create benchmark uses prices that never cross each other: pending buys rest below and
+ * pending sells above the listed price, and matched orders fill against the asset list at exactly
+ * the listed price. Match and cancel run on assets of their own so they do not move that price.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    private static final String TRADER = "benchtrader";
+    private static final String COUNTERPARTY = "benchcounter";
+
+    private static final String ORDER_ASSET = "THYAO";
+    private static final String MATCH_ASSET = "SISE";
+    private static final String CANCEL_ASSET = "KRDMD";
+
+    private static final Amount ONE = Amount.of(1);
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+
+    private OrderRequestDto buyPending;
+    private OrderRequestDto buyMatched;
+    private OrderRequestDto sellPending;
+    private OrderRequestDto sellMatched;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(BrokerageCaseApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.add-properties=false",
+                        "--spring.autoconfigure.exclude="
+                                + "org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration",
+                        "--logging.level.root=WARN");
+        orderService = context.getBean(OrderService.class);
+        CustomerService customerService = context.getBean(CustomerService.class);
+
+        customerService.createCustomer(new CustomerRequestDto("Bench", "Trader", "trader@bench.com", TRADER, "secret1"));
+        customerService.createCustomer(new CustomerRequestDto("Bench", "Counter", "counter@bench.com", COUNTERPARTY, "secret1"));
+
+        for (String username : new String[]{TRADER, COUNTERPARTY}) {
+            orderService.depositForCurrentUser(Amount.of(1_000_000_000_000L), username);
+            for (String assetName : new String[]{ORDER_ASSET, MATCH_ASSET, CANCEL_ASSET}) {
+                orderService.createOrder(new OrderRequestDto(assetName, listedPrice(assetName), Amount.of(10_000_000),
+                        OrderSide.BUY), username);
+            }
+        }
+
+        Amount listed = listedPrice(ORDER_ASSET);
+        buyPending = new OrderRequestDto(ORDER_ASSET, Amount.of(100), ONE, OrderSide.BUY);
+        buyMatched = new OrderRequestDto(ORDER_ASSET, listed, ONE, OrderSide.BUY);
+        sellPending = new OrderRequestDto(ORDER_ASSET, Amount.of(200), ONE, OrderSide.SELL);
+        sellMatched = new OrderRequestDto(ORDER_ASSET, listed, ONE, OrderSide.SELL);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    private Amount listedPrice(String assetName) {
+        return context.getBean(AssetListCache.class).find(assetName).orElseThrow().currentPrice();
+    }
+
+    private Long customerId(String username) {
+        return context.getBean(CustomerIdentityCache.class).resolve(username).orElseThrow().id();
+    }
+
+    @Benchmark
+    public OrderResponseDto createBuyPending() {
+        return orderService.createOrder(buyPending, TRADER);
+    }
+
+    @Benchmark
+    public OrderResponseDto createBuyMatched() {
+        return orderService.createOrder(buyMatched, TRADER);
+    }
+
+    @Benchmark
+    public OrderResponseDto createSellPending() {
+        return orderService.createOrder(sellPending, TRADER);
+    }
+
+    @Benchmark
+    public OrderResponseDto createSellMatched() {
+        return orderService.createOrder(sellMatched, TRADER);
+    }
+
+    @Benchmark
+    public void approveMatchedOrders(PendingPair pair) {
+        orderService.approveMatchedOrders(pair.buyOrderId, pair.sellOrderId);
+    }
+
+    @Benchmark
+    public void cancelOrder(PendingOrder pending) {
+        orderService.cancelOrder(pending.orderId, TRADER);
+    }
+
+    /**
+     * Reserves the balance and saves a pending order straight to the database, leaving the matching
+     * engine out so the order is still pending when the benchmark gets to it.
+     */
+    private Long placeDirectly(String username, String assetName, Amount price, OrderSide side) {
+        BalanceBook balanceBook = context.getBean(BalanceBook.class);
+        OrderRepository orderRepository = context.getBean(OrderRepository.class);
+        CustomerRepository customerRepository = context.getBean(CustomerRepository.class);
+        AssetListRepository assetListRepository = context.getBean(AssetListRepository.class);
+
+        Long customerId = customerId(username);
+        Long assetListId = context.getBean(AssetListCache.class).find(assetName).orElseThrow().id();
+        OrderRequestDto dto = new OrderRequestDto(assetName, price, ONE, side);
+
+        return new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).execute(status -> {
+            if (side == OrderSide.BUY) {
+                balanceBook.reserve(customerId, OrderService.TRY, price.times(ONE));
+            } else {
+                balanceBook.reserve(customerId, assetName, ONE);
+            }
+            Order order = OrderMapper.toEntity(dto, assetListRepository.getReferenceById(assetListId),
+                    customerRepository.getReferenceById(customerId));
+            return orderRepository.save(order).getId();
+        });
+    }
+
+    /**
+     * A crossing buy and sell. Placing them through the service would let the matching engine fill
+     * them before an admin could.
+     */
+    @State(Scope.Thread)
+    public static class PendingPair {
+
+        private Long buyOrderId;
+        private Long sellOrderId;
+
+        @Setup(Level.Invocation)
+        public void placePair(OrderServiceBenchmark benchmark) {
+            Amount price = benchmark.listedPrice(MATCH_ASSET);
+            buyOrderId = benchmark.placeDirectly(TRADER, MATCH_ASSET, price, OrderSide.BUY);
+            sellOrderId = benchmark.placeDirectly(COUNTERPARTY, MATCH_ASSET, price, OrderSide.SELL);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PendingOrder {
+
+        private Long orderId;
+
+        @Setup(Level.Invocation)
+        public void placeOrder(OrderServiceBenchmark benchmark) {
+            orderId = benchmark.placeDirectly(TRADER, CANCEL_ASSET, Amount.of(10), OrderSide.BUY);
+        }
+    }
+}
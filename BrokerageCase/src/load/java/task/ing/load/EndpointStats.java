@@ -0,0 +1,76 @@
+package task.ing.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and failures of one endpoint. Any number of clients record into the same instance;
+ * {@link #reset()} drops everything recorded so far, e.g. at the end of the warmup.
+ */
+final class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final String name;
+    private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+    private final LongAdder failures = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void record(long startNanos, boolean success) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        recorder.recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+        if (!success) {
+            failures.increment();
+        }
+    }
+
+    void reset() {
+        recorder.reset();
+        failures.reset();
+    }
+
+    static void printHeader(PrintStream out) {
+        out.printf("%-14s %9s %10s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "ops/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    /**
+     * Prints one summary line for the measured interval and, when a directory is given, writes the
+     * full percentile distribution there as {@code <endpoint>.hgrm} for comparing runs.
+     */
+    Histogram report(PrintStream out, double seconds, Path histogramDirectory) throws IOException {
+        Histogram histogram = recorder.getIntervalHistogram();
+        out.printf("%-14s %9d %10.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                failures.sum(),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+
+        if (histogramDirectory != null) {
+            Files.createDirectories(histogramDirectory);
+            try (PrintStream file = new PrintStream(Files.newOutputStream(histogramDirectory.resolve(name + ".hgrm")))) {
+                histogram.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+        return histogram;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,370 @@
+package task.ing.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import task.ing.BrokerageCaseApplication;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load generator for the REST API. Every customer is one client on its own virtual
+ * thread that sends its next request as soon as the previous one is answered, choosing BUY, SELL,
+ * cancel or list by the configured weights. Prices are drawn around the listed price so part of
+ * the orders cross and get matched. Latencies are recorded per endpoint after the warmup.
+ * <p>
+ * Run with {@code mvn -Pload test -Dload.args="--customers=100 --duration=60"}; see
+ * {@link LoadSettings} for the options.
+ * <p>
+ * To compare platform with virtual threads on the blocking paths (order placement, the full order
+ * history and the BCrypt check of a login), run the same mix twice, the second time with
+ * {@code --profile=virtual}:
+ * {@code --customers=400 --buy=40 --history=30 --login=30 --sell=0 --cancel=0 --list=0}.
+ */
+public final class LoadGenerator {
+
+    private static final BigDecimal DEPOSIT = BigDecimal.valueOf(10_000_000);
+    private static final BigDecimal INITIAL_POSITION = BigDecimal.valueOf(100_000);
+    private static final String PASSWORD = "secret1";
+    // registration hashes the password inside its transaction, so an unbounded burst exhausts the pool
+    private static final int SETUP_CONCURRENCY = 16;
+
+    private final LoadSettings settings;
+    private final URI baseUri;
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final EndpointStats buyStats = new EndpointStats("buy");
+    private final EndpointStats sellStats = new EndpointStats("sell");
+    private final EndpointStats cancelStats = new EndpointStats("cancel");
+    private final EndpointStats listStats = new EndpointStats("list");
+    private final EndpointStats historyStats = new EndpointStats("history");
+    private final EndpointStats loginStats = new EndpointStats("login");
+    private final List<EndpointStats> allStats =
+            List.of(buyStats, sellStats, cancelStats, listStats, historyStats, loginStats);
+
+    private volatile boolean running = true;
+    private BigDecimal listedPrice;
+
+    private LoadGenerator(LoadSettings settings, URI baseUri) {
+        this.settings = settings;
+        this.baseUri = baseUri;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.parse(args);
+
+        ConfigurableApplicationContext application = null;
+        URI baseUri = settings.target();
+        if (baseUri == null) {
+            application = startApplication(settings.profile());
+            baseUri = URI.create("http://localhost:" + application.getEnvironment().getProperty("local.server.port"));
+        }
+
+        try {
+            new LoadGenerator(settings, baseUri).run();
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(String profile) {
+        // the devtools restarter would relaunch the application on another thread and end this one
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(BrokerageCaseApplication.class)
+                .logStartupInfo(false);
+        if (profile != null) {
+            builder.profiles(profile.split(","));
+        }
+        return builder.run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.devtools.add-properties=false",
+                        "--spring.autoconfigure.exclude="
+                                + "org.springframework.boot.devtools.autoconfigure.DevToolsDataSourceAutoConfiguration",
+                        "--logging.level.root=WARN");
+    }
+
+    private void run() throws Exception {
+        System.out.printf("target %s (profile %s), %d customers, asset %s, mix buy/sell/cancel/list/history/login "
+                        + "%d/%d/%d/%d/%d/%d, warmup %ds, duration %ds%n",
+                baseUri, settings.profile() == null ? "default" : settings.profile(), settings.customers(),
+                settings.assetName(), settings.buyWeight(), settings.sellWeight(), settings.cancelWeight(),
+                settings.listWeight(), settings.historyWeight(), settings.loginWeight(),
+                settings.warmup().toSeconds(), settings.duration().toSeconds());
+
+        List<Client> clients = setUpClients();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> loops = new ArrayList<>();
+            for (Client client : clients) {
+                loops.add(executor.submit(() -> drive(client)));
+            }
+
+            Thread.sleep(settings.warmup().toMillis());
+            allStats.forEach(EndpointStats::reset);
+            long measureStart = System.nanoTime();
+
+            Thread.sleep(settings.duration().toMillis());
+            double seconds = (System.nanoTime() - measureStart) / 1e9;
+            report(seconds);
+
+            running = false;
+            for (Future<?> loop : loops) {
+                loop.get();
+            }
+        }
+    }
+
+    private void report(double seconds) throws IOException {
+        Path histogramDirectory = settings.histogramDirectory() == null ? null : Path.of(settings.histogramDirectory());
+        long total = 0;
+
+        System.out.println();
+        EndpointStats.printHeader(System.out);
+        for (EndpointStats stats : allStats) {
+            total += stats.report(System.out, seconds, histogramDirectory).getTotalCount();
+        }
+        System.out.printf("%ntotal %.1f requests/s over %.1fs%n", total / seconds, seconds);
+    }
+
+    /**
+     * Registers and logs in every customer, then funds each with TRY and a position in the asset
+     * bought at the listed price, so both sides have something to trade.
+     */
+    private List<Client> setUpClients() throws Exception {
+        String runId = Long.toString(System.currentTimeMillis() % 1_000_000, 36);
+
+        List<Client> clients = inParallel(settings.customers(), index -> {
+            String username = "ld" + runId + "u" + index;
+            expect(201, send("POST", "/api/auth/register", null, Map.of(
+                    "name", "Load", "surname", "Client", "email", username + "@load.test",
+                    "username", username, "password", PASSWORD)));
+            HttpResponse<String> login = expect(200, send("POST", "/api/auth/login", null,
+                    Map.of("username", username, "password", PASSWORD)));
+            return new Client(username, objectMapper.readTree(login.body()).get("token").asText());
+        });
+
+        listedPrice = findListedPrice(clients.get(0).token);
+
+        inParallel(settings.customers(), index -> {
+            Client client = clients.get(index);
+            expect(200, send("POST", "/api/orders/deposit?amount=" + DEPOSIT.toPlainString(), client.token, null));
+            expect(200, send("POST", "/api/orders", client.token, order("BUY", listedPrice, INITIAL_POSITION)));
+            return null;
+        });
+        return clients;
+    }
+
+    private BigDecimal findListedPrice(String token) throws Exception {
+        JsonNode assets = objectMapper.readTree(expect(200, send("GET", "/api/assetlist/all", token, null)).body());
+        for (JsonNode asset : assets) {
+            if (settings.assetName().equals(asset.get("assetName").asText())) {
+                return asset.get("currentPrice").decimalValue();
+            }
+        }
+        throw new IllegalStateException("Asset " + settings.assetName() + " is not listed");
+    }
+
+    private void drive(Client client) {
+        while (running) {
+            int pick = ThreadLocalRandom.current().nextInt(settings.totalWeight());
+            if ((pick -= settings.buyWeight()) < 0) {
+                placeOrder(client, "BUY", buyStats, -0.02, 0.01);
+            } else if ((pick -= settings.sellWeight()) < 0) {
+                placeOrder(client, "SELL", sellStats, -0.01, 0.02);
+            } else if ((pick -= settings.cancelWeight()) < 0) {
+                if (client.pendingOrderIds.isEmpty()) {
+                    listOrders(client);
+                } else {
+                    cancelOrder(client);
+                }
+            } else if ((pick -= settings.listWeight()) < 0) {
+                listOrders(client);
+            } else if (pick - settings.historyWeight() < 0) {
+                listHistory(client);
+            } else {
+                logIn(client);
+            }
+        }
+    }
+
+    /**
+     * Buys are drawn mostly below and sells mostly above the listed price, with an overlap that
+     * makes some of them cross.
+     */
+    private void placeOrder(Client client, String side, EndpointStats stats, double lowest, double highest) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BigDecimal price = listedPrice.multiply(BigDecimal.valueOf(1 + random.nextDouble(lowest, highest)))
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal size = BigDecimal.valueOf(random.nextInt(1, 6));
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = send("POST", "/api/orders", client.token, order(side, price, size));
+            stats.record(start, response.statusCode() == 200);
+            if (response.statusCode() == 200) {
+                JsonNode order = objectMapper.readTree(response.body());
+                if ("PENDING".equals(order.get("orderStatus").asText())) {
+                    client.pendingOrderIds.addLast(order.get("id").asLong());
+                }
+            }
+        } catch (Exception e) {
+            stats.record(start, false);
+        }
+    }
+
+    /**
+     * A pending order may have been filled by another client in the meantime; the 400 that cancel
+     * answers then is an expected outcome and not counted as an error.
+     */
+    private void cancelOrder(Client client) {
+        long orderId = client.pendingOrderIds.pollLast();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = send("DELETE", "/api/orders/" + orderId, client.token, null);
+            cancelStats.record(start, response.statusCode() == 204 || response.statusCode() == 400);
+        } catch (Exception e) {
+            cancelStats.record(start, false);
+        }
+    }
+
+    private void listOrders(Client client) {
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = send("GET",
+                    "/api/orders/my-orders/page?limit=50&start=" + today.minusDays(1) + "&end=" + today.plusDays(1),
+                    client.token, null);
+            listStats.record(start, response.statusCode() == 200);
+        } catch (Exception e) {
+            listStats.record(start, false);
+        }
+    }
+
+    /**
+     * The unpaged history; it grows with every order the client places during the run.
+     */
+    private void listHistory(Client client) {
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = send("GET",
+                    "/api/orders/my-orders?start=" + today.minusDays(1) + "&end=" + today.plusDays(1),
+                    client.token, null);
+            historyStats.record(start, response.statusCode() == 200);
+        } catch (Exception e) {
+            historyStats.record(start, false);
+        }
+    }
+
+    private void logIn(Client client) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = send("POST", "/api/auth/login", null,
+                    Map.of("username", client.username, "password", PASSWORD));
+            loginStats.record(start, response.statusCode() == 200);
+        } catch (Exception e) {
+            loginStats.record(start, false);
+        }
+    }
+
+    private Map<String, Object> order(String side, BigDecimal price, BigDecimal size) {
+        return Map.of("assetName", settings.assetName(), "price", price, "size", size, "orderSide", side);
+    }
+
+    private HttpResponse<String> send(String method, String path, String token, Object body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(path));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> expect(int status, HttpResponse<String> response) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(response.request().method() + " " + response.request().uri()
+                    + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private static <T> List<T> inParallel(int count, IndexedTask<T> task) throws Exception {
+        Semaphore running = new Semaphore(SETUP_CONCURRENCY);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int index = 0; index < count; index++) {
+                int current = index;
+                futures.add(executor.submit((Callable<T>) () -> {
+                    running.acquire();
+                    try {
+                        return task.run(current);
+                    } finally {
+                        running.release();
+                    }
+                }));
+            }
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Setting up the customers failed", e.getCause());
+                }
+            }
+            return results;
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexedTask<T> {
+        T run(int index) throws Exception;
+    }
+
+    private static final class Client {
+
+        private final String username;
+        private final String token;
+
+        // only touched by the client's own thread
+        private final Deque<Long> pendingOrderIds = new ArrayDeque<>();
+
+        private Client(String username, String token) {
+            this.username = username;
+            this.token = token;
+        }
+    }
+}
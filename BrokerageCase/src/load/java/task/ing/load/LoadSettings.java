@@ -0,0 +1,68 @@
+package task.ing.load;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Options of a load run, given as {@code --name=value} arguments. Without {@code --target} the
+ * application is started in the same JVM on a random port, with the Spring profiles given by
+ * {@code --profile}.
+ */
+record LoadSettings(
+        URI target,
+        String profile,
+        int customers,
+        Duration warmup,
+        Duration duration,
+        String assetName,
+        int buyWeight,
+        int sellWeight,
+        int cancelWeight,
+        int listWeight,
+        int historyWeight,
+        int loginWeight,
+        String histogramDirectory
+) {
+
+    private static final Set<String> OPTIONS = Set.of(
+            "target", "profile", "customers", "warmup", "duration", "asset",
+            "buy", "sell", "cancel", "list", "history", "login", "hgrm-dir");
+
+    static LoadSettings parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0 || !OPTIONS.contains(arg.substring(2, separator))) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected --name=value with name one of " + OPTIONS);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadSettings settings = new LoadSettings(
+                options.containsKey("target") ? URI.create(options.get("target")) : null,
+                options.get("profile"),
+                Integer.parseInt(options.getOrDefault("customers", "50")),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10"))),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30"))),
+                options.getOrDefault("asset", "ASELS"),
+                Integer.parseInt(options.getOrDefault("buy", "40")),
+                Integer.parseInt(options.getOrDefault("sell", "30")),
+                Integer.parseInt(options.getOrDefault("cancel", "10")),
+                Integer.parseInt(options.getOrDefault("list", "20")),
+                Integer.parseInt(options.getOrDefault("history", "0")),
+                Integer.parseInt(options.getOrDefault("login", "0")),
+                options.get("hgrm-dir"));
+
+        if (settings.customers < 1 || settings.totalWeight() < 1) {
+            throw new IllegalArgumentException("Need at least one customer and one operation with a positive weight");
+        }
+        return settings;
+    }
+
+    int totalWeight() {
+        return buyWeight + sellWeight + cancelWeight + listWeight + historyWeight + loginWeight;
+    }
+}
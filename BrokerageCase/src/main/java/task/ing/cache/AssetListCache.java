@@ -0,0 +1,105 @@
+package task.ing.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import task.ing.mapper.AssetListMapper;
+import task.ing.model.dto.response.AssetListResponseDto;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetListRepository;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory copy of the asset list. Readers get an immutable snapshot from a single volatile read and
+ * never take a lock; writers build a new snapshot and swap it in once their transaction has committed.
+ * Writers are serialized among themselves so a reload cannot overwrite a newer price with an older one.
+ */
+@Component
+@RequiredArgsConstructor
+public class AssetListCache {
+
+    private final AssetListRepository assetListRepository;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    public Optional<AssetListEntry> find(String assetName) {
+        return Optional.ofNullable(current().byName().get(assetName));
+    }
+
+    public List<AssetListResponseDto> activeAssets() {
+        return current().active();
+    }
+
+    /**
+     * Rebuilds the snapshot from the database after the current transaction commits. Used for admin
+     * changes to the asset list, which are rare enough that reading the whole table back is cheap.
+     */
+    public void reloadAfterCommit() {
+        afterCommit(this::reload);
+    }
+
+    /**
+     * Swaps in the new price of a single asset after the current transaction commits, without going
+     * back to the database.
+     */
+    public void updatePriceAfterCommit(String assetName, Amount price) {
+        afterCommit(() -> updatePrice(assetName, price));
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        return current != null ? current : reload();
+    }
+
+    private synchronized Snapshot reload() {
+        Snapshot reloaded = Snapshot.of(assetListRepository.findAll().stream().map(AssetListEntry::of).toList());
+        snapshot.set(reloaded);
+        return reloaded;
+    }
+
+    private synchronized void updatePrice(String assetName, Amount price) {
+        Snapshot current = snapshot.get();
+        if (current == null || !current.byName().containsKey(assetName)) {
+            reload();
+            return;
+        }
+        Map<String, AssetListEntry> byName = new HashMap<>(current.byName());
+        byName.computeIfPresent(assetName, (name, entry) -> entry.withCurrentPrice(price));
+        snapshot.set(Snapshot.of(byName.values()));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Snapshot(Map<String, AssetListEntry> byName, List<AssetListResponseDto> active) {
+
+        static Snapshot of(Iterable<AssetListEntry> entries) {
+            Map<String, AssetListEntry> byName = new HashMap<>();
+            entries.forEach(entry -> byName.put(entry.assetName(), entry));
+
+            List<AssetListResponseDto> active = byName.values().stream()
+                    .filter(entry -> !entry.isDeleted())
+                    .sorted(Comparator.comparing(AssetListEntry::id))
+                    .map(AssetListMapper::toDto)
+                    .toList();
+            return new Snapshot(Map.copyOf(byName), active);
+        }
+    }
+}
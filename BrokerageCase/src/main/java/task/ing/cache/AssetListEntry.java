@@ -0,0 +1,21 @@
+package task.ing.cache;
+
+import task.ing.model.entity.AssetList;
+import task.ing.model.value.Amount;
+
+public record AssetListEntry(Long id, String assetName, String assetFullName, Amount currentPrice, boolean isDeleted) {
+
+    static AssetListEntry of(AssetList assetList) {
+        return new AssetListEntry(
+                assetList.getId(),
+                assetList.getAssetName(),
+                assetList.getAssetFullName(),
+                assetList.getCurrentPrice(),
+                assetList.isDeleted()
+        );
+    }
+
+    AssetListEntry withCurrentPrice(Amount price) {
+        return new AssetListEntry(id, assetName, assetFullName, price, isDeleted);
+    }
+}
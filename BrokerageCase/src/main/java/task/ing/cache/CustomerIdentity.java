@@ -0,0 +1,10 @@
+package task.ing.cache;
+
+import task.ing.model.enums.Role;
+
+public record CustomerIdentity(Long id, Role role, boolean isDeleted) {
+
+    public boolean isAdmin() {
+        return role == Role.ROLE_ADMIN;
+    }
+}
@@ -0,0 +1,92 @@
+package task.ing.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import task.ing.repository.CustomerRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves the username of the authenticated caller to the few customer fields the services need,
+ * without loading the Customer entity. Entries are kept in least recently used order and the
+ * eldest one is dropped once the cache is full; unknown usernames are never cached. A row loaded
+ * while an invalidation happened is returned but not cached, since it may predate the change.
+ */
+@Component
+public class CustomerIdentityCache {
+
+    private final CustomerRepository customerRepository;
+    private final Map<String, CustomerIdentity> identities;
+
+    // bumped by every invalidation, guarded by the identities lock
+    private long generation;
+
+    @Autowired
+    public CustomerIdentityCache(CustomerRepository customerRepository,
+                                 @Value("${brokerage.customer-cache.max-entries:10000}") int maxEntries) {
+        this.customerRepository = customerRepository;
+        this.identities = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CustomerIdentity> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Optional<CustomerIdentity> resolve(String username) {
+        long loadedAt;
+        synchronized (identities) {
+            CustomerIdentity identity = identities.get(username);
+            if (identity != null) {
+                return Optional.of(identity);
+            }
+            loadedAt = generation;
+        }
+
+        Optional<CustomerIdentity> loaded = customerRepository.findIdentityByUsername(username);
+        loaded.ifPresent(identity -> {
+            synchronized (identities) {
+                if (generation == loadedAt) {
+                    identities.putIfAbsent(username, identity);
+                }
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Drops the entry once the surrounding transaction completes, so a concurrent request cannot
+     * cache the row again while the change is still uncommitted. A request that read the row before
+     * the commit and caches it after this ran is caught by the generation check in {@link #resolve}.
+     */
+    public void invalidate(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                remove(username);
+            }
+        });
+    }
+
+    public int size() {
+        synchronized (identities) {
+            return identities.size();
+        }
+    }
+
+    private void remove(String username) {
+        synchronized (identities) {
+            generation++;
+            identities.remove(username);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package task.ing.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import task.ing.exceptions.ServiceBusyException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A fair semaphore with a bounded wait. A caller that gets no permit within the timeout is turned
+ * away with a {@link ServiceBusyException} instead of queueing without limit, which matters once
+ * requests run on virtual threads and no thread pool bounds how many are in flight.
+ */
+public class Bulkhead implements MeterBinder {
+
+    public static final String AVAILABLE = "brokerage.bulkhead.available";
+    public static final String WAITING = "brokerage.bulkhead.waiting";
+
+    private final String name;
+    private final Semaphore semaphore;
+    private final long timeoutNanos;
+
+    public Bulkhead(String name, int permits, Duration timeout) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("A bulkhead needs at least one permit");
+        }
+        this.name = name;
+        this.semaphore = new Semaphore(permits, true);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    public void acquire() {
+        try {
+            if (!semaphore.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new ServiceBusyException("The service is busy (" + name + "), please try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for " + name);
+        }
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public <T> T call(Supplier<T> action) {
+        acquire();
+        try {
+            return action.get();
+        } finally {
+            release();
+        }
+    }
+
+    public int availablePermits() {
+        return semaphore.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(AVAILABLE, semaphore, Semaphore::availablePermits)
+                .description("Permits of the bulkhead that are free")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder(WAITING, semaphore, Semaphore::getQueueLength)
+                .description("Callers waiting for a permit of the bulkhead")
+                .tag("name", name)
+                .register(registry);
+    }
+}
@@ -1,6 +1,7 @@
 package task.ing.config;
 
 import org.springframework.data.domain.AuditorAware;
+import org.springframework.security.core.AuthenticatedPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -22,6 +23,10 @@ public class AuditorAwareImpl implements AuditorAware<String> {
             return Optional.of(userDetails.getUsername());
         }
 
+        if (principal instanceof AuthenticatedPrincipal authenticatedPrincipal) {
+            return Optional.of(authenticatedPrincipal.getName());
+        }
+
         return Optional.of(principal.toString());
     }
 
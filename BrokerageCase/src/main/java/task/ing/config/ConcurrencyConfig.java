@@ -0,0 +1,50 @@
+package task.ing.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import task.ing.concurrency.Bulkhead;
+import task.ing.concurrency.BulkheadInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Bulkheads for running on virtual threads, each set up only when its permits are configured.
+ * The request bulkhead bounds the API requests in flight, so a burst waits in front of the
+ * application instead of timing out inside the connection pool halfway through a transaction.
+ * The password hashing bulkhead is applied by {@link PasswordConfig}.
+ */
+@Configuration
+public class ConcurrencyConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<Bulkhead> requestBulkhead;
+
+    public ConcurrencyConfig(@Qualifier("requestBulkhead") ObjectProvider<Bulkhead> requestBulkhead) {
+        this.requestBulkhead = requestBulkhead;
+    }
+
+    @Bean
+    @ConditionalOnProperty("brokerage.concurrency.request-permits")
+    public Bulkhead requestBulkhead(@Value("${brokerage.concurrency.request-permits}") int permits,
+                                    @Value("${brokerage.concurrency.acquire-timeout-ms:2000}") long timeoutMillis) {
+        return new Bulkhead("requests", permits, Duration.ofMillis(timeoutMillis));
+    }
+
+    @Bean
+    @ConditionalOnProperty("brokerage.concurrency.password-hash-permits")
+    public Bulkhead passwordHashBulkhead(@Value("${brokerage.concurrency.password-hash-permits}") int permits,
+                                         @Value("${brokerage.concurrency.acquire-timeout-ms:2000}") long timeoutMillis) {
+        return new Bulkhead("password-hashing", permits, Duration.ofMillis(timeoutMillis));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        requestBulkhead.ifAvailable(bulkhead ->
+                registry.addInterceptor(new BulkheadInterceptor(bulkhead)).addPathPatterns("/api/**"));
+    }
+}
@@ -0,0 +1,45 @@
+package task.ing.config;
+
+import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import task.ing.jdbc.StatementCounter;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps the data source in a proxy that feeds every statement to the {@link StatementCounter} and
+ * logs statements slower than {@code brokerage.sql.slow-query-ms} together with their bound
+ * parameters on the {@code task.ing.sql.slow} logger.
+ */
+@Configuration
+public class DataSourceProxyConfig {
+
+    @Bean
+    static BeanPostProcessor dataSourceProxyPostProcessor(ObjectProvider<StatementCounter> statementCounter,
+                                                          Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+
+                StatementCounter counter = statementCounter.getObject();
+                long slowQueryMillis = environment.getProperty("brokerage.sql.slow-query-ms", Long.class, 200L);
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(counter)
+                        .methodListener(counter)
+                        .logSlowQueryBySlf4j(slowQueryMillis, TimeUnit.MILLISECONDS, SLF4JLogLevel.WARN, "task.ing.sql.slow")
+                        .build();
+            }
+        };
+    }
+}
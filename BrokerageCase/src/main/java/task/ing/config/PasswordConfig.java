@@ -1,15 +1,21 @@
 package task.ing.config;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import task.ing.concurrency.Bulkhead;
+import task.ing.security.BoundedPasswordEncoder;
 
 @Configuration
 public class PasswordConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Qualifier("passwordHashBulkhead") ObjectProvider<Bulkhead> passwordHashBulkhead) {
+        PasswordEncoder encoder = new BCryptPasswordEncoder();
+        Bulkhead bulkhead = passwordHashBulkhead.getIfAvailable();
+        return bulkhead == null ? encoder : new BoundedPasswordEncoder(encoder, bulkhead);
     }
 }
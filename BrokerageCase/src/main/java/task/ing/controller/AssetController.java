@@ -5,15 +5,20 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import task.ing.model.dto.request.AssetCreateRequestDto;
 import task.ing.model.dto.request.AssetUpdateRequestDto;
 import task.ing.model.dto.response.AssetResponseDto;
-import task.ing.model.dto.response.CustomerAssetsResponseDto;
+import task.ing.model.dto.response.CustomerAssetsPageResponseDto;
+import task.ing.model.enums.ExportFormat;
 import task.ing.service.AssetService;
+import task.ing.service.ExportService;
 
 import java.util.List;
 
@@ -24,6 +29,7 @@ import java.util.List;
 public class AssetController {
 
     private final AssetService assetService;
+    private final ExportService exportService;
 
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -38,13 +44,39 @@ public class AssetController {
     }
 
     @PreAuthorize("hasRole('ADMIN')")
-    @GetMapping("/admin/all")
+    @GetMapping(value = "/admin/all", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
             summary = "ADMIN",
             description = "Admin can see all the customers and their assets")
-    public ResponseEntity<List<CustomerAssetsResponseDto>> getAllAssets() {
-        List<CustomerAssetsResponseDto> allAssets = assetService.adminGetAllAssetsGroupedByCustomer();
-        return ResponseEntity.ok(allAssets);
+    public ResponseEntity<StreamingResponseBody> getAllAssets() {
+        StreamingResponseBody body = assetService::adminStreamAssetsGroupedByCustomer;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/page")
+    @Operation(
+            summary = "ADMIN",
+            description = "Admin can page through the customers and their assets. Pass the returned nextAfter to get the next page")
+    public ResponseEntity<CustomerAssetsPageResponseDto> getAssetsPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        CustomerAssetsPageResponseDto page = assetService.adminGetAssetsPage(after, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/positions/export")
+    @Operation(
+            summary = "ADMIN",
+            description = "Admin can download every non-deleted asset position as NDJSON or CSV")
+    public ResponseEntity<StreamingResponseBody> exportPositions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+
+        StreamingResponseBody body = out -> exportService.exportPositions(exportFormat, out);
+        return ExportResponses.attachment("positions", exportFormat, acceptEncoding, body);
     }
 
 
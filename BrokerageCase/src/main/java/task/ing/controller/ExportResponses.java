@@ -0,0 +1,84 @@
+package task.ing.controller;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import task.ing.model.enums.ExportFormat;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds the download response for a bulk export. The body is gzipped on the way to the servlet
+ * output stream whenever the client accepts it.
+ */
+final class ExportResponses {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private ExportResponses() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> attachment(String name, ExportFormat format, String acceptEncoding,
+                                                            StreamingResponseBody body) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.mediaType()));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(name + "." + format.fileExtension())
+                .build());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (!gzip) {
+            return ResponseEntity.ok().headers(headers).body(body);
+        }
+
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        StreamingResponseBody gzipped = out -> {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+            body.writeTo(gzipOut);
+            gzipOut.finish();
+        };
+        return ResponseEntity.ok().headers(headers).body(gzipped);
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip: named as gzip or x-gzip, or covered by {@code *}
+     * when not named, with a weight above 0. A weight that does not parse counts as 0.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipWeight = null;
+        Double anyWeight = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipWeight = Math.max(weight(parts), gzipWeight == null ? 0 : gzipWeight);
+            } else if (name.equals("*")) {
+                anyWeight = weight(parts);
+            }
+        }
+        Double effective = gzipWeight != null ? gzipWeight : anyWeight;
+        return effective != null && effective > 0;
+    }
+
+    private static double weight(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -6,16 +6,31 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.dto.response.BatchOrderResponseDto;
+import task.ing.model.dto.response.OrderPageResponseDto;
 import task.ing.model.dto.response.OrderResponseDto;
+import task.ing.model.dto.response.OrderSubmissionResponseDto;
+import task.ing.model.enums.ExportFormat;
+import task.ing.model.value.Amount;
+import task.ing.service.ExportService;
+import task.ing.service.OrderCommandService;
+import task.ing.service.OrderHistoryService;
+import task.ing.service.OrderIntakeService;
 import task.ing.service.OrderService;
 
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -24,6 +39,10 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderCommandService orderCommandService;
+    private final OrderHistoryService orderHistoryService;
+    private final ExportService exportService;
+    private final OrderIntakeService orderIntakeService;
 
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @PostMapping
@@ -36,7 +55,65 @@ public class OrderController {
 
         String currentUsername = authentication.getName();
 
-        OrderResponseDto responseDto = orderService.createOrder(requestDto, currentUsername);
+        OrderResponseDto responseDto = orderCommandService.createOrder(requestDto, currentUsername);
+        return ResponseEntity.ok(responseDto);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @PostMapping("/async")
+    @Operation(
+            summary = "USER",
+            description = "Customers can queue an order and get a ticket right away. The outcome is read from the status URL")
+    public ResponseEntity<OrderSubmissionResponseDto> submitOrder(
+            @Valid @RequestBody OrderRequestDto requestDto,
+            Authentication authentication) {
+
+        String currentUsername = authentication.getName();
+
+        OrderSubmissionResponseDto responseDto = orderIntakeService.submit(requestDto, currentUsername);
+        return ResponseEntity.accepted().location(URI.create(responseDto.statusUrl())).body(responseDto);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping("/submissions/{ticket}")
+    @Operation(
+            summary = "USER",
+            description = "Customers can poll the status of an order they queued")
+    public ResponseEntity<OrderSubmissionResponseDto> getSubmission(
+            @PathVariable UUID ticket,
+            Authentication authentication) {
+
+        String currentUsername = authentication.getName();
+
+        return ResponseEntity.ok(orderIntakeService.getSubmission(ticket, currentUsername));
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping(value = "/submissions/{ticket}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "USER",
+            description = "Customers can wait for the outcome of an order they queued as a single server-sent event")
+    public SseEmitter subscribeToSubmission(
+            @PathVariable UUID ticket,
+            Authentication authentication) {
+
+        String currentUsername = authentication.getName();
+
+        return orderIntakeService.subscribe(ticket, currentUsername);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @PostMapping("/batch")
+    @Operation(
+            summary = "USER",
+            description = "Customers can place several orders in one request. Every order is accepted or rejected on its own")
+    public ResponseEntity<BatchOrderResponseDto> createOrders(
+            @RequestBody List<OrderRequestDto> requestDtos,
+            Authentication authentication) {
+
+        String currentUsername = authentication.getName();
+
+        BatchOrderResponseDto responseDto = orderCommandService.createOrders(requestDtos, currentUsername);
         return ResponseEntity.ok(responseDto);
     }
 
@@ -56,6 +133,91 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping("/my-orders/page")
+    @Operation(
+            summary = "USER",
+            description = "Customers can page through their orders by date. Pass the returned nextCursor to get the next page")
+    public ResponseEntity<OrderPageResponseDto> listOrdersPage(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String cursor,
+            Authentication authentication) {
+
+        Long customerId = orderHistoryService.currentCustomerId(authentication.getName());
+
+        OrderPageResponseDto page = orderHistoryService.findPage(customerId, start, end, limit, cursor);
+        return ResponseEntity.ok(page);
+    }
+
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @GetMapping(value = "/my-orders/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "USER",
+            description = "Customers can download all their orders in a date range as a streamed JSON array")
+    public ResponseEntity<StreamingResponseBody> streamOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            Authentication authentication) {
+
+        Long customerId = orderHistoryService.currentCustomerId(authentication.getName());
+
+        StreamingResponseBody body = out -> orderHistoryService.streamOrders(customerId, start, end, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/orders/page")
+    @Operation(
+            summary = "ADMIN",
+            description = "Admin can page through customer orders by date. Pass the returned nextCursor to get the next page")
+    public ResponseEntity<OrderPageResponseDto> listOrdersPageForCustomer(
+            @RequestParam @Positive(message = "Customer ID must be positive") Long customerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String cursor) {
+
+        Long activeCustomerId = orderHistoryService.activeCustomerId(customerId);
+
+        OrderPageResponseDto page = orderHistoryService.findPage(activeCustomerId, start, end, limit, cursor);
+        return ResponseEntity.ok(page);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(value = "/admin/orders/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "ADMIN",
+            description = "Admin can download all customer orders in a date range as a streamed JSON array")
+    public ResponseEntity<StreamingResponseBody> streamOrdersForCustomer(
+            @RequestParam @Positive(message = "Customer ID must be positive") Long customerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+
+        Long activeCustomerId = orderHistoryService.activeCustomerId(customerId);
+
+        StreamingResponseBody body = out -> orderHistoryService.streamOrders(activeCustomerId, start, end, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/orders/export")
+    @Operation(
+            summary = "ADMIN",
+            description = "Admin can download the orders of all customers in a date range as NDJSON or CSV")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        ExportFormat exportFormat = ExportFormat.from(format);
+
+        StreamingResponseBody body = out -> exportService.exportOrders(start, end, exportFormat, out);
+        return ExportResponses.attachment("orders-" + start + "-" + end, exportFormat, acceptEncoding, body);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/admin/orders")
     @Operation(
@@ -83,7 +245,7 @@ public class OrderController {
 
         String currentUsername = authentication.getName();
 
-        orderService.cancelOrder(orderId, currentUsername);
+        orderCommandService.cancelOrder(orderId, currentUsername);
         return ResponseEntity.noContent().build();
     }
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -92,11 +254,11 @@ public class OrderController {
             summary = "USER",
             description = "Customers can deposit TRY before creating a new order")
     public ResponseEntity<OrderResponseDto> depositTRYForCurrentUser(
-            @RequestParam double amount,
+            @RequestParam Amount amount,
             Authentication authentication) {
 
         String currentUsername = authentication.getName();
-        OrderResponseDto responseDto = orderService.depositForCurrentUser(amount, currentUsername);
+        OrderResponseDto responseDto = orderCommandService.depositForCurrentUser(amount, currentUsername);
         return ResponseEntity.ok(responseDto);
     }
 
@@ -106,11 +268,11 @@ public class OrderController {
             summary = "USER",
             description = "Customers can withdraw TRY from their account.")
     public ResponseEntity<OrderResponseDto> withdrawTRYForCurrentUser(
-            @RequestParam double amount,
+            @RequestParam Amount amount,
             Authentication authentication) {
 
         String currentUsername = authentication.getName();
-        OrderResponseDto responseDto = orderService.withdrawForCurrentUser(amount, currentUsername);
+        OrderResponseDto responseDto = orderCommandService.withdrawForCurrentUser(amount, currentUsername);
         return ResponseEntity.ok(responseDto);
     }
 
@@ -123,7 +285,7 @@ public class OrderController {
     public ResponseEntity<String> approveMatchOrders(
             @RequestParam Long buyOrderId,
             @RequestParam Long sellOrderId) {
-        orderService.approveMatchedOrders(buyOrderId, sellOrderId);
+        orderCommandService.approveMatchedOrders(buyOrderId, sellOrderId);
         return ResponseEntity.ok("Orders matched and asset list current price updated successfully");
     }
 
@@ -0,0 +1,137 @@
+package task.ing.engine;
+
+import org.springframework.security.core.context.SecurityContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated command slots. Producers claim a
+ * sequence with one atomic increment and publish it per slot; the single consumer reads slots in
+ * sequence order without taking any lock.
+ */
+final class CommandRingBuffer {
+
+    private static final long SPIN_TRIES = 100;
+
+    private static final long PARK_NANOS = 50_000;
+
+    private final Slot[] slots;
+
+    private final int mask;
+
+    private final AtomicLongArray published;
+
+    private final AtomicLong claimed = new AtomicLong(-1);
+
+    private final AtomicLong consumed = new AtomicLong(-1);
+
+    private volatile Thread consumerThread;
+
+    private volatile boolean consumerParked;
+
+    CommandRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two");
+        }
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            published.set(i, -1);
+        }
+    }
+
+    void publish(CommandType type, Supplier<?> action, CompletableFuture<Object> future, SecurityContext securityContext) {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        while (wrapPoint > consumed.get()) {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+
+        int index = (int) (sequence & mask);
+        Slot slot = slots[index];
+        slot.type = type;
+        slot.action = action;
+        slot.future = future;
+        slot.securityContext = securityContext;
+        published.set(index, sequence);
+
+        if (consumerParked) {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
+    /**
+     * Consumer loop; returns once {@code running} reports false and the ring is drained.
+     */
+    void consume(Handler handler, BooleanSupplier running) {
+        consumerThread = Thread.currentThread();
+        long next = consumed.get() + 1;
+        long idle = 0;
+
+        while (true) {
+            int index = (int) (next & mask);
+            if (published.get(index) != next) {
+                if (!running.getAsBoolean() && claimed.get() < next) {
+                    return;
+                }
+                if (++idle < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    consumerParked = true;
+                    if (published.get(index) != next) {
+                        LockSupport.parkNanos(PARK_NANOS);
+                    }
+                    consumerParked = false;
+                }
+                continue;
+            }
+
+            idle = 0;
+            Slot slot = slots[index];
+            CommandType type = slot.type;
+            Supplier<?> action = slot.action;
+            CompletableFuture<Object> future = slot.future;
+            SecurityContext securityContext = slot.securityContext;
+            slot.clear();
+            consumed.set(next++);
+
+            handler.handle(type, action, future, securityContext);
+        }
+    }
+
+    long pending() {
+        return claimed.get() - consumed.get();
+    }
+
+    void wakeUp() {
+        Thread thread = consumerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    interface Handler {
+        void handle(CommandType type, Supplier<?> action, CompletableFuture<Object> future, SecurityContext securityContext);
+    }
+
+    private static final class Slot {
+        CommandType type;
+        Supplier<?> action;
+        CompletableFuture<Object> future;
+        SecurityContext securityContext;
+
+        void clear() {
+            type = null;
+            action = null;
+            future = null;
+            securityContext = null;
+        }
+    }
+}
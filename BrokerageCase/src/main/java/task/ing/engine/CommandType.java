@@ -0,0 +1,10 @@
+package task.ing.engine;
+
+public enum CommandType {
+    ORDER,
+    CANCEL,
+    DEPOSIT,
+    WITHDRAW,
+    MATCH,
+    RESERVE
+}
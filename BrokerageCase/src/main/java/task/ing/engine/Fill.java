@@ -0,0 +1,15 @@
+package task.ing.engine;
+
+import task.ing.model.value.Amount;
+
+public record Fill(
+
+        Long restingOrderId,
+
+        Amount price,
+
+        Amount size,
+
+        Amount restingRemainingSize
+) {
+}
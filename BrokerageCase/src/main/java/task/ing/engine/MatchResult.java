@@ -0,0 +1,17 @@
+package task.ing.engine;
+
+import task.ing.model.value.Amount;
+
+import java.util.List;
+
+public record MatchResult(
+
+        List<Fill> fills,
+
+        Amount remainingSize
+) {
+
+    public boolean isFullyFilled() {
+        return !remainingSize.isPositive();
+    }
+}
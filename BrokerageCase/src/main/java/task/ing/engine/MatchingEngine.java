@@ -0,0 +1,103 @@
+package task.ing.engine;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import task.ing.model.entity.Order;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
+import task.ing.repository.OrderRepository;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds one in-memory {@link OrderBook} per asset. A book is loaded from the pending orders of its
+ * asset the first time it is used and is only kept in memory afterwards; the database stays the
+ * persistence layer for the orders and the balances they move.
+ */
+@Component
+@RequiredArgsConstructor
+public class MatchingEngine {
+
+    private final OrderRepository orderRepository;
+
+    private final ConcurrentMap<String, OrderBook> books = new ConcurrentHashMap<>();
+
+    /**
+     * The book is loaded outside the map and then put if no other caller got there first, so the query
+     * holds no lock of the map that other assets' books may be waiting on.
+     */
+    public OrderBook getBook(String assetName) {
+        OrderBook book = books.get(assetName);
+        if (book != null) {
+            return book;
+        }
+        OrderBook loaded = loadBook(assetName);
+        OrderBook raced = books.putIfAbsent(assetName, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    public MatchResult match(String assetName, OrderSide side, Amount price, Amount size) {
+        return getBook(assetName).match(side, price, size);
+    }
+
+    public void rest(Order order) {
+        getBook(order.getAssetName()).add(order.getId(), order.getOrderSide(), order.getPrice(), order.getSize());
+    }
+
+    public void sync(Order order) {
+        OrderBook book = getBook(order.getAssetName());
+        if (order.getOrderStatus() == OrderStatus.PENDING) {
+            book.updateRemainingSize(order.getId(), order.getSize());
+        } else {
+            book.remove(order.getId());
+        }
+    }
+
+    public Optional<String> findAssetName(Long orderId) {
+        return books.values().stream()
+                .filter(book -> book.contains(orderId))
+                .map(OrderBook::getAssetName)
+                .findFirst();
+    }
+
+    /**
+     * Puts a book built elsewhere, such as from a state snapshot, in place of the one of its asset.
+     */
+    public void install(OrderBook book) {
+        books.put(book.getAssetName(), book);
+    }
+
+    public void invalidate(String assetName) {
+        books.remove(assetName);
+    }
+
+    /**
+     * Books are mutated before the surrounding transaction commits. If it rolls back, the book is
+     * dropped and rebuilt from the committed pending orders on next access.
+     */
+    public void invalidateOnRollback(String assetName) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    invalidate(assetName);
+                }
+            }
+        });
+    }
+
+    private OrderBook loadBook(String assetName) {
+        OrderBook book = new OrderBook(assetName);
+        orderRepository.findByAssetNameAndOrderStatusOrderByIdAsc(assetName, OrderStatus.PENDING)
+                .forEach(order -> book.add(order.getId(), order.getOrderSide(), order.getPrice(), order.getSize()));
+        return book;
+    }
+}
@@ -0,0 +1,125 @@
+package task.ing.engine;
+
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+
+import java.util.*;
+
+/**
+ * Limit order book of a single asset. Price levels are kept sorted best-first and every level
+ * is a FIFO queue, so incoming orders are crossed in price-time priority.
+ */
+public class OrderBook {
+
+    private final String assetName;
+
+    private final NavigableMap<Amount, Deque<RestingOrder>> bids = new TreeMap<>(Comparator.reverseOrder());
+
+    private final NavigableMap<Amount, Deque<RestingOrder>> asks = new TreeMap<>();
+
+    private final Map<Long, RestingOrder> ordersById = new HashMap<>();
+
+    public OrderBook(String assetName) {
+        this.assetName = assetName;
+    }
+
+    public String getAssetName() {
+        return assetName;
+    }
+
+    public synchronized MatchResult match(OrderSide side, Amount limitPrice, Amount size) {
+        NavigableMap<Amount, Deque<RestingOrder>> opposite = side == OrderSide.BUY ? asks : bids;
+        List<Fill> fills = new ArrayList<>();
+        long remaining = size.units();
+
+        while (remaining > 0 && !opposite.isEmpty()) {
+            Map.Entry<Amount, Deque<RestingOrder>> level = opposite.firstEntry();
+            if (!crosses(side, limitPrice, level.getKey())) {
+                break;
+            }
+
+            Deque<RestingOrder> queue = level.getValue();
+            while (remaining > 0 && !queue.isEmpty()) {
+                RestingOrder resting = queue.peekFirst();
+                long fillUnits = Math.min(remaining, resting.getRemainingUnits());
+
+                resting.reduce(fillUnits);
+                remaining -= fillUnits;
+                fills.add(new Fill(resting.getOrderId(), level.getKey(), Amount.ofUnits(fillUnits), resting.getRemainingSize()));
+
+                if (resting.getRemainingUnits() <= 0) {
+                    queue.pollFirst();
+                    ordersById.remove(resting.getOrderId());
+                }
+            }
+
+            if (queue.isEmpty()) {
+                opposite.pollFirstEntry();
+            }
+        }
+
+        return new MatchResult(fills, Amount.ofUnits(remaining));
+    }
+
+    public synchronized void add(Long orderId, OrderSide side, Amount price, Amount size) {
+        if (ordersById.containsKey(orderId)) {
+            return;
+        }
+        RestingOrder resting = new RestingOrder(orderId, side, price, size.units());
+        levels(side).computeIfAbsent(price, p -> new ArrayDeque<>()).addLast(resting);
+        ordersById.put(orderId, resting);
+    }
+
+    public synchronized boolean remove(Long orderId) {
+        RestingOrder resting = ordersById.remove(orderId);
+        if (resting == null) {
+            return false;
+        }
+
+        NavigableMap<Amount, Deque<RestingOrder>> levels = levels(resting.getOrderSide());
+        Deque<RestingOrder> queue = levels.get(resting.getPrice());
+        queue.remove(resting);
+        if (queue.isEmpty()) {
+            levels.remove(resting.getPrice());
+        }
+        return true;
+    }
+
+    public synchronized void updateRemainingSize(Long orderId, Amount remainingSize) {
+        if (!remainingSize.isPositive()) {
+            remove(orderId);
+            return;
+        }
+
+        RestingOrder resting = ordersById.get(orderId);
+        if (resting != null) {
+            resting.setRemainingUnits(remainingSize.units());
+        }
+    }
+
+    public synchronized boolean contains(Long orderId) {
+        return ordersById.containsKey(orderId);
+    }
+
+    public synchronized int size() {
+        return ordersById.size();
+    }
+
+    public synchronized Optional<Amount> bestBid() {
+        return bids.isEmpty() ? Optional.empty() : Optional.of(bids.firstKey());
+    }
+
+    public synchronized Optional<Amount> bestAsk() {
+        return asks.isEmpty() ? Optional.empty() : Optional.of(asks.firstKey());
+    }
+
+    private NavigableMap<Amount, Deque<RestingOrder>> levels(OrderSide side) {
+        return side == OrderSide.BUY ? bids : asks;
+    }
+
+    private static boolean crosses(OrderSide side, Amount limitPrice, Amount levelPrice) {
+        return side == OrderSide.BUY
+                ? levelPrice.compareTo(limitPrice) <= 0
+                : levelPrice.compareTo(limitPrice) >= 0;
+    }
+}
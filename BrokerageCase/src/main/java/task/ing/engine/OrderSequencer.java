@@ -0,0 +1,173 @@
+package task.ing.engine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import task.ing.exceptions.ServiceBusyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer stage in front of the order path. Assets are hashed onto a fixed number of shards
+ * and every shard has exactly one consumer thread, so all commands touching the same asset (and its
+ * order book) run one after another instead of contending on row locks. The TRY balance every buy
+ * takes from is reserved on the TRY shard, see {@code TryReservations}. Callers wait on a future,
+ * and give up with a {@link ServiceBusyException} if their command has not started within the timeout.
+ */
+@Slf4j
+@Component
+public class OrderSequencer {
+
+    private static final ThreadLocal<Shard> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final Shard[] shards;
+
+    private final long timeoutMillis;
+
+    private volatile boolean running;
+
+    public OrderSequencer(@Value("${brokerage.sequencer.shards:4}") int shardCount,
+                          @Value("${brokerage.sequencer.buffer-size:1024}") int bufferSize,
+                          @Value("${brokerage.sequencer.timeout-ms:5000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, new CommandRingBuffer(bufferSize));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Shard shard : shards) {
+            shard.ringBuffer.wakeUp();
+        }
+        for (Shard shard : shards) {
+            shard.thread.join();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(CommandType type, String assetName, Supplier<T> action) {
+        if (!running) {
+            throw new IllegalStateException("Order sequencer is not running");
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        shardFor(assetName).ringBuffer.publish(type, action, future, SecurityContextHolder.getContext());
+        return (CompletableFuture<T>) future;
+    }
+
+    /**
+     * Submits the command and blocks the calling thread until its shard has executed it. Exceptions
+     * thrown by the command are rethrown unchanged so the usual exception handlers still apply. A
+     * command that has not started within the timeout is dropped and fails with a
+     * {@link ServiceBusyException}; one that has started is waited for, since it may already commit.
+     */
+    public <T> T execute(CommandType type, String assetName, Supplier<T> action) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        CompletableFuture<T> future = submit(type, assetName, () -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            return action.get();
+        });
+        try {
+            try {
+                return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (claimed.compareAndSet(false, true)) {
+                    throw new ServiceBusyException("The order sequencer is busy, please try again");
+                }
+                return future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for the order sequencer");
+        }
+    }
+
+    /**
+     * Whether the calling thread is a shard thread, which must not block on anything but the command
+     * it runs: every other command of its shard waits behind it.
+     */
+    public static boolean isShardThread() {
+        return CURRENT_SHARD.get() != null;
+    }
+
+    /**
+     * Whether the calling thread is the one that runs the commands of the asset, so a command it
+     * runs for that asset has to run in place rather than wait behind itself.
+     */
+    public boolean isOnShardOf(String assetName) {
+        return CURRENT_SHARD.get() == shardFor(assetName);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public long pendingCommands(int shard) {
+        return shards[shard].ringBuffer.pending();
+    }
+
+    public int shardIndex(String assetName) {
+        return Math.floorMod(assetName.hashCode(), shards.length);
+    }
+
+    private Shard shardFor(String assetName) {
+        return shards[shardIndex(assetName)];
+    }
+
+    private void handle(CommandType type, Supplier<?> action, CompletableFuture<Object> future, SecurityContext securityContext) {
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            future.complete(action.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private final class Shard {
+
+        private final CommandRingBuffer ringBuffer;
+
+        private final Thread thread;
+
+        private Shard(int index, CommandRingBuffer ringBuffer) {
+            this.ringBuffer = ringBuffer;
+            this.thread = new Thread(this::run, "order-sequencer-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            CURRENT_SHARD.set(this);
+            ringBuffer.consume(OrderSequencer.this::handle, () -> running);
+            log.debug("{} stopped", thread.getName());
+        }
+    }
+}
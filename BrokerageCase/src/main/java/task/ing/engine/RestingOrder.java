@@ -0,0 +1,31 @@
+package task.ing.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+
+@Getter
+@AllArgsConstructor
+class RestingOrder {
+
+    private final Long orderId;
+
+    private final OrderSide orderSide;
+
+    private final Amount price;
+
+    private long remainingUnits;
+
+    Amount getRemainingSize() {
+        return Amount.ofUnits(remainingUnits);
+    }
+
+    void reduce(long units) {
+        remainingUnits -= units;
+    }
+
+    void setRemainingUnits(long remainingUnits) {
+        this.remainingUnits = remainingUnits;
+    }
+}
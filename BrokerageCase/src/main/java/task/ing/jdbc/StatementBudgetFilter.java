@@ -0,0 +1,60 @@
+package task.ing.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many statements each request executed on its own thread, tagged with the matched
+ * route, and warns when a request goes over the statement budget. Ordered first so the lookups
+ * of the authentication filter are counted as well.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_STATEMENTS = "brokerage.sql.statements.request";
+
+    private final StatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        statementCounter.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = statementCounter.endRequest();
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = route == null ? "UNKNOWN" : route.toString();
+
+            DistributionSummary.builder(REQUEST_STATEMENTS)
+                    .description("Statements executed on the request thread")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statements);
+
+            if (statements > statementCounter.budget()) {
+                log.warn("{} {} executed {} statements, budget is {}",
+                        request.getMethod(), uri, statements, statementCounter.budget());
+            }
+        }
+    }
+}
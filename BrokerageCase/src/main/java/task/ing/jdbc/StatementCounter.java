@@ -0,0 +1,108 @@
+package task.ing.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the statements sent to the database, where a JDBC batch counts once. Three counts are kept:
+ * <ul>
+ *     <li>per request, for statements executed on the thread that {@link #beginRequest()} was called on;</li>
+ *     <li>per connection lease, which is one transaction under JPA and also covers the commands the
+ *     order sequencer executes on its own threads;</li>
+ *     <li>a running total over all threads, for tests that compare it before and after a call.</li>
+ * </ul>
+ * Leases that go over the budget are logged with the thread that held them.
+ */
+@Slf4j
+@Component
+public class StatementCounter implements QueryExecutionListener, MethodExecutionListener {
+
+    public static final String TRANSACTION_STATEMENTS = "brokerage.sql.statements.transaction";
+
+    private final ThreadLocal<int[]> requestCount = new ThreadLocal<>();
+    private final Map<String, int[]> leaseCounts = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+    private final DistributionSummary transactionStatements;
+    private final int budget;
+
+    public StatementCounter(MeterRegistry meterRegistry,
+                            @Value("${brokerage.sql.statement-budget:25}") int budget) {
+        this.budget = budget;
+        this.transactionStatements = DistributionSummary.builder(TRANSACTION_STATEMENTS)
+                .description("Statements executed while a connection was held")
+                .register(meterRegistry);
+    }
+
+    public int budget() {
+        return budget;
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public void beginRequest() {
+        requestCount.set(new int[1]);
+    }
+
+    /**
+     * Returns the statements counted on this thread since {@link #beginRequest()} and stops counting.
+     */
+    public int endRequest() {
+        int[] count = requestCount.get();
+        requestCount.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        total.increment();
+
+        int[] request = requestCount.get();
+        if (request != null) {
+            request[0]++;
+        }
+        // a connection is used by one thread at a time, so the plain increment is safe
+        leaseCounts.computeIfAbsent(execInfo.getConnectionId(), id -> new int[1])[0]++;
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (!(executionContext.getTarget() instanceof Connection)
+                || !"close".equals(executionContext.getMethod().getName())) {
+            return;
+        }
+
+        int[] count = leaseCounts.remove(executionContext.getConnectionInfo().getConnectionId());
+        if (count == null) {
+            return;
+        }
+        transactionStatements.record(count[0]);
+        if (count[0] > budget) {
+            log.warn("{} statements on one connection on thread {}, budget is {}",
+                    count[0], Thread.currentThread().getName(), budget);
+        }
+    }
+}
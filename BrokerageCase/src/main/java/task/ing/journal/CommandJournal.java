@@ -0,0 +1,435 @@
+package task.ing.journal;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import task.ing.exceptions.ServiceBusyException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead journal of the commands that move balances and order books. A command is appended, and
+ * the caller waits for it, before the command runs, so one whose transaction never committed can be
+ * run again after a crash. A single writer thread appends whatever queued up since its last pass as
+ * one group and forces it to disk according to the {@link FsyncPolicy}, so concurrent callers share a
+ * sync. Records go into memory-mapped segments of a fixed size, and a full segment is replaced by
+ * a new one.
+ * <p>
+ * A command stays undecided until {@link #done} records that it ran. The highest sequence with
+ * nothing undecided at or below it is written to a checkpoint file on a schedule, and segments
+ * holding only commands up to the checkpoint are deleted, unless a state snapshot still needs them,
+ * see {@link #retainAfter}. On startup the undecided commands after the checkpoint are read back and
+ * handed out by {@link #recovered()}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "brokerage.journal.enabled", havingValue = "true")
+public class CommandJournal {
+
+    public static final String GROUP_SIZE = "brokerage.journal.group.size";
+    public static final String FSYNC = "brokerage.journal.fsync";
+    public static final String UNDECIDED = "brokerage.journal.undecided";
+
+    private static final String CHECKPOINT = "checkpoint";
+    private static final long POLL_MILLIS = 100;
+    private static final int MAX_GROUP = 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final long pollMillis;
+    private final Timer fsyncTimer;
+    private final DistributionSummary groupSize;
+
+    private final BlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+    private final ConcurrentSkipListSet<Long> undecided = new ConcurrentSkipListSet<>();
+    // index of every segment before the active one -> highest sequence appended when it was closed
+    private final Map<Long, Long> sealedSegments = new ConcurrentSkipListMap<>();
+    private final Thread writer;
+
+    private volatile boolean running;
+    private volatile long lastSequence;
+    private volatile long checkpointSequence;
+    private volatile long retainedAfter = Long.MAX_VALUE;
+    private List<JournalEntry> recovered = List.of();
+
+    // owned by the writer thread once it runs
+    private JournalSegment active;
+    private final RecordBuffer buffer = new RecordBuffer();
+    private boolean dirty;
+    private long lastForceNanos;
+
+    public CommandJournal(@Value("${brokerage.journal.directory:journal}") String directory,
+                          @Value("${brokerage.journal.segment-size:67108864}") int segmentSize,
+                          @Value("${brokerage.journal.fsync:ALWAYS}") FsyncPolicy fsyncPolicy,
+                          @Value("${brokerage.journal.fsync-interval-ms:10}") long fsyncIntervalMillis,
+                          MeterRegistry meterRegistry) {
+        if (segmentSize < 64 * 1024) {
+            throw new IllegalArgumentException("Journal segments must be at least 64 KiB");
+        }
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.pollMillis = fsyncPolicy == FsyncPolicy.INTERVAL ? Math.max(1, fsyncIntervalMillis) : POLL_MILLIS;
+        this.fsyncTimer = Timer.builder(FSYNC)
+                .description("Time spent forcing journal writes to disk")
+                .register(meterRegistry);
+        this.groupSize = DistributionSummary.builder(GROUP_SIZE)
+                .description("Commands appended to the journal per group commit")
+                .register(meterRegistry);
+        Gauge.builder(UNDECIDED, undecided, ConcurrentSkipListSet::size)
+                .description("Journaled commands that have not run yet")
+                .register(meterRegistry);
+        this.writer = new Thread(this::write, "command-journal");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Reads the segments left by the previous run, collects the commands after the checkpoint that
+     * never got a done record and starts writing into a new segment.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        checkpointSequence = readCheckpoint();
+
+        TreeMap<Long, JournalCommand> pending = new TreeMap<>();
+        long last = 0;
+        long lastIndex = 0;
+        for (Path path : listSegments()) {
+            try (JournalSegment segment = JournalSegment.open(path)) {
+                for (JournalEntry entry : segment.readEntries()) {
+                    if (entry.command() == null) {
+                        pending.remove(entry.sequence());
+                    } else {
+                        last = Math.max(last, entry.sequence());
+                        if (entry.sequence() > checkpointSequence) {
+                            pending.put(entry.sequence(), entry.command());
+                        }
+                    }
+                }
+                sealedSegments.put(segment.index(), last);
+                lastIndex = segment.index();
+            }
+        }
+
+        recovered = pending.entrySet().stream()
+                .map(entry -> new JournalEntry(entry.getKey(), entry.getValue()))
+                .toList();
+        undecided.addAll(pending.keySet());
+        lastSequence = Math.max(last, checkpointSequence);
+        active = JournalSegment.create(directory, lastIndex + 1, segmentSize);
+        lastForceNanos = System.nanoTime();
+
+        if (!recovered.isEmpty()) {
+            log.info("Journal has {} undecided commands after sequence {}", recovered.size(), checkpointSequence);
+        }
+        running = true;
+        writer.start();
+    }
+
+    /**
+     * Lets the writer finish what is queued, then writes a last checkpoint.
+     */
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        writer.join();
+        checkpoint();
+    }
+
+    /**
+     * Undecided commands found on startup, in sequence order. Each one has to be run again, or found
+     * to have run, and then passed to {@link #done}.
+     */
+    public List<JournalEntry> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Appends the command and waits until it is written, and forced if the policy says so. Returns
+     * the command's sequence.
+     */
+    public long append(JournalCommand command) {
+        return appendAll(List.of(command)).get(0);
+    }
+
+    /**
+     * Appends the commands in one go, so they share a group commit, and waits for all of them.
+     */
+    public List<Long> appendAll(List<? extends JournalCommand> commands) {
+        if (!running) {
+            throw new ServiceBusyException("The command journal is closed");
+        }
+        List<CompletableFuture<Long>> appended = new ArrayList<>(commands.size());
+        for (JournalCommand command : commands) {
+            CompletableFuture<Long> future = new CompletableFuture<>();
+            appended.add(future);
+            writes.add(new Write(command, 0, future));
+        }
+
+        try {
+            return appended.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            // the caller runs none of them, so the ones that made it into another group are done too
+            appended.forEach(future -> future.thenAccept(this::done));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Records that the command ran, whatever its outcome, so it is not run again after a restart.
+     * Does not wait for the record to be written.
+     */
+    public void done(long sequence) {
+        undecided.remove(sequence);
+        writes.add(new Write(null, sequence, null));
+    }
+
+    public long checkpointSequence() {
+        return checkpointSequence;
+    }
+
+    /**
+     * Keeps every command after the sequence on disk, for a state snapshot taken at it to catch up
+     * from on the next start. Replaces the sequence given before.
+     */
+    public void retainAfter(long sequence) {
+        retainedAfter = sequence;
+    }
+
+    /**
+     * Reads back every command after the sequence, done or not, in sequence order. Returns nothing
+     * when the journal no longer holds all of them, or never did. Meant for startup: it reads the
+     * segments on disk, including the one being written.
+     */
+    public Optional<List<JournalEntry>> commandsAfter(long sequence) throws IOException {
+        List<JournalEntry> commands = new ArrayList<>();
+        long first = Long.MAX_VALUE;
+        for (Path path : listSegments()) {
+            try (JournalSegment segment = JournalSegment.open(path)) {
+                for (JournalEntry entry : segment.readEntries()) {
+                    if (entry.command() != null) {
+                        first = Math.min(first, entry.sequence());
+                        if (entry.sequence() > sequence) {
+                            commands.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+        boolean complete = lastSequence == sequence || lastSequence > sequence && first <= sequence + 1;
+        commands.sort(Comparator.comparingLong(JournalEntry::sequence));
+        return complete ? Optional.of(commands) : Optional.empty();
+    }
+
+    /**
+     * Moves the checkpoint up to the highest sequence with nothing undecided at or below it, then
+     * deletes the segments that hold nothing after it or after the retained sequence.
+     */
+    @Scheduled(fixedDelayString = "${brokerage.journal.checkpoint-interval-ms:5000}")
+    public void checkpoint() throws IOException {
+        long last = lastSequence;
+        Long firstUndecided = undecided.ceiling(Long.MIN_VALUE);
+        long watermark = firstUndecided == null ? last : Math.min(last, firstUndecided - 1);
+
+        if (watermark > checkpointSequence) {
+            Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+            Files.write(temporary, ByteBuffer.allocate(Long.BYTES).putLong(watermark).array(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+            Files.move(temporary, directory.resolve(CHECKPOINT),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpointSequence = watermark;
+        }
+
+        long deletable = Math.min(checkpointSequence, retainedAfter);
+        var segments = sealedSegments.entrySet().iterator();
+        while (segments.hasNext()) {
+            var segment = segments.next();
+            if (segment.getValue() > deletable) {
+                break;
+            }
+            Files.deleteIfExists(JournalSegment.pathOf(directory, segment.getKey()));
+            segments.remove();
+        }
+    }
+
+    private void write() {
+        List<Write> group = new ArrayList<>();
+        while (running || !writes.isEmpty()) {
+            try {
+                Write first = writes.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    group.add(first);
+                    writes.drainTo(group, MAX_GROUP - 1);
+                    writeGroup(group);
+                }
+                if (fsyncPolicy == FsyncPolicy.INTERVAL && dirty
+                        && System.nanoTime() - lastForceNanos >= fsyncIntervalNanos) {
+                    force();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Forcing the journal segment failed", e);
+            } finally {
+                group.clear();
+            }
+        }
+
+        try {
+            active.force();
+            active.close();
+        } catch (IOException e) {
+            log.error("Closing the journal segment failed", e);
+        }
+        ServiceBusyException closed = new ServiceBusyException("The command journal is closed");
+        writes.forEach(write -> {
+            if (write.appended != null) {
+                write.appended.completeExceptionally(closed);
+            }
+        });
+    }
+
+    private void writeGroup(List<Write> group) {
+        long[] sequences = new long[group.size()];
+        int commands = 0;
+        try {
+            for (int i = 0; i < group.size(); i++) {
+                Write write = group.get(i);
+                long sequence = write.command == null ? write.sequence : lastSequence + 1;
+                buffer.reset();
+                JournalCodec.encode(new JournalEntry(sequence, write.command), buffer.data);
+
+                if (JournalSegment.recordSize(buffer.size()) > segmentSize) {
+                    reject(write, new IllegalArgumentException(
+                            "A journal record of " + buffer.size() + " bytes does not fit into a segment"));
+                    continue;
+                }
+                if (!active.append(buffer.bytes(), buffer.size())) {
+                    rotate();
+                    active.append(buffer.bytes(), buffer.size());
+                }
+                if (write.command != null) {
+                    undecided.add(sequence);
+                    lastSequence = sequence;
+                    sequences[i] = sequence;
+                    commands++;
+                }
+            }
+
+            dirty = true;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                force();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Writing a group of {} journal records failed", group.size(), e);
+            RuntimeException failure = e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+            for (int i = 0; i < group.size(); i++) {
+                // the caller never runs a command whose append failed, so it must not be replayed either
+                if (sequences[i] != 0) {
+                    done(sequences[i]);
+                }
+                reject(group.get(i), failure);
+            }
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            Write write = group.get(i);
+            if (write.appended != null && !write.appended.isDone()) {
+                write.appended.complete(sequences[i]);
+            }
+        }
+        if (commands > 0) {
+            groupSize.record(commands);
+        }
+    }
+
+    // done records have no future; losing one only means the command is checked against the applied table on replay
+    private void reject(Write write, RuntimeException failure) {
+        if (write.appended == null) {
+            log.warn("Dropping the done record of journal command {}", write.sequence, failure);
+        } else if (!write.appended.isDone()) {
+            write.appended.completeExceptionally(failure);
+        }
+    }
+
+    private void force() {
+        fsyncTimer.record(active::force);
+        dirty = false;
+        lastForceNanos = System.nanoTime();
+    }
+
+    private void rotate() throws IOException {
+        active.force();
+        active.close();
+        sealedSegments.put(active.index(), lastSequence);
+        active = JournalSegment.create(directory, active.index() + 1, segmentSize);
+        dirty = false;
+        lastForceNanos = System.nanoTime();
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT);
+        return Files.exists(path) ? ByteBuffer.wrap(Files.readAllBytes(path)).getLong() : 0;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> JournalSegment.indexOf(path).isPresent())
+                    .sorted(Comparator.comparingLong(path -> JournalSegment.indexOf(path).getAsLong()))
+                    .toList();
+        }
+    }
+
+    // a command to append with its future, or a done record for the given sequence
+    private record Write(JournalCommand command, long sequence, CompletableFuture<Long> appended) {
+    }
+
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+
+        private final DataOutputStream data = new DataOutputStream(this);
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package task.ing.journal;
+
+/**
+ * When the journal forces what it wrote to disk. A command is acknowledged once its group has been
+ * written, so this decides what a crash of the machine, as opposed to the process, may lose.
+ */
+public enum FsyncPolicy {
+
+    /**
+     * Every group is forced before its commands are acknowledged; nothing acknowledged is lost.
+     */
+    ALWAYS,
+
+    /**
+     * The writer forces at most once per interval; up to one interval of commands may be lost.
+     */
+    INTERVAL,
+
+    /**
+     * Writes are left to the operating system, forced only when a segment is rotated or closed.
+     */
+    NEVER
+}
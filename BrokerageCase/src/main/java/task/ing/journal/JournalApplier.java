@@ -0,0 +1,48 @@
+package task.ing.journal;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import task.ing.retry.RetryOnConflict;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs journaled commands so that a replay never applies one twice. The sequences of a command are
+ * recorded in the same transaction that applies it, and a command whose sequence is recorded has
+ * committed even if its done record never made it into the journal.
+ */
+@Component
+@RequiredArgsConstructor
+public class JournalApplier {
+
+    private static final String INSERT_SQL = "insert into journal_applied (sequence) values (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs the command in a transaction that also records its sequences. The whole transaction is
+     * retried on a lock conflict, as the command would have been on its own.
+     */
+    @RetryOnConflict
+    @Transactional
+    public <T> T apply(List<Long> sequences, Supplier<T> command) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, sequences, sequences.size(), (statement, sequence) -> statement.setLong(1, sequence));
+        return command.get();
+    }
+
+    public boolean isApplied(long sequence) {
+        Integer count = jdbcTemplate.queryForObject(
+                "select count(*) from journal_applied where sequence = ?", Integer.class, sequence);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Drops the records up to a journal checkpoint; commands up to it are never replayed.
+     */
+    public int forgetUpTo(long sequence) {
+        return jdbcTemplate.update("delete from journal_applied where sequence <= ?", sequence);
+    }
+}
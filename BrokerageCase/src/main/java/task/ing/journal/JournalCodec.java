@@ -0,0 +1,102 @@
+package task.ing.journal;
+
+import task.ing.journal.JournalCommand.CancelOrder;
+import task.ing.journal.JournalCommand.Deposit;
+import task.ing.journal.JournalCommand.MatchOrders;
+import task.ing.journal.JournalCommand.PlaceOrders;
+import task.ing.journal.JournalCommand.Withdraw;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary form of a journal record: the sequence, a one byte kind and the fields of the command, with
+ * amounts as their long units and strings as length-prefixed UTF-8. A record without a command marks
+ * the command with its sequence as done.
+ */
+final class JournalCodec {
+
+    private static final byte DONE = 0;
+    private static final byte PLACE_ORDERS = 1;
+    private static final byte CANCEL_ORDER = 2;
+    private static final byte DEPOSIT = 3;
+    private static final byte WITHDRAW = 4;
+    private static final byte MATCH_ORDERS = 5;
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+
+    private JournalCodec() {
+    }
+
+    static void encode(JournalEntry entry, DataOutput out) throws IOException {
+        out.writeLong(entry.sequence());
+        switch (entry.command()) {
+            case null -> out.writeByte(DONE);
+            case PlaceOrders place -> {
+                out.writeByte(PLACE_ORDERS);
+                out.writeUTF(place.username());
+                out.writeUTF(place.assetName());
+                out.writeInt(place.orders().size());
+                for (OrderRequestDto order : place.orders()) {
+                    out.writeByte(order.orderSide().ordinal());
+                    out.writeLong(order.price().units());
+                    out.writeLong(order.size().units());
+                }
+            }
+            case CancelOrder cancel -> {
+                out.writeByte(CANCEL_ORDER);
+                out.writeUTF(cancel.username());
+                out.writeLong(cancel.orderId());
+            }
+            case Deposit deposit -> {
+                out.writeByte(DEPOSIT);
+                out.writeUTF(deposit.username());
+                out.writeLong(deposit.amount().units());
+            }
+            case Withdraw withdraw -> {
+                out.writeByte(WITHDRAW);
+                out.writeUTF(withdraw.username());
+                out.writeLong(withdraw.amount().units());
+            }
+            case MatchOrders match -> {
+                out.writeByte(MATCH_ORDERS);
+                out.writeUTF(match.username());
+                out.writeLong(match.buyOrderId());
+                out.writeLong(match.sellOrderId());
+            }
+        }
+    }
+
+    static JournalEntry decode(DataInput in) throws IOException {
+        long sequence = in.readLong();
+        byte kind = in.readByte();
+        JournalCommand command = switch (kind) {
+            case DONE -> null;
+            case PLACE_ORDERS -> {
+                String username = in.readUTF();
+                String assetName = in.readUTF();
+                int count = in.readInt();
+                List<OrderRequestDto> orders = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    OrderSide side = SIDES[in.readByte()];
+                    Amount price = Amount.ofUnits(in.readLong());
+                    Amount size = Amount.ofUnits(in.readLong());
+                    orders.add(new OrderRequestDto(assetName, price, size, side));
+                }
+                yield new PlaceOrders(username, assetName, orders);
+            }
+            case CANCEL_ORDER -> new CancelOrder(in.readUTF(), in.readLong());
+            case DEPOSIT -> new Deposit(in.readUTF(), Amount.ofUnits(in.readLong()));
+            case WITHDRAW -> new Withdraw(in.readUTF(), Amount.ofUnits(in.readLong()));
+            case MATCH_ORDERS -> new MatchOrders(in.readUTF(), in.readLong(), in.readLong());
+            default -> throw new IOException("Unknown journal record kind " + kind);
+        };
+        return new JournalEntry(sequence, command);
+    }
+}
@@ -0,0 +1,65 @@
+package task.ing.journal;
+
+import task.ing.engine.CommandType;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.value.Amount;
+
+import java.util.List;
+
+/**
+ * A command as it is written to the journal: everything needed to run it again, including the user
+ * it ran for so a replay is authorized and audited the same way.
+ */
+public sealed interface JournalCommand {
+
+    CommandType type();
+
+    String username();
+
+    /**
+     * Orders of one customer on one asset, placed as a single command.
+     */
+    record PlaceOrders(String username, String assetName, List<OrderRequestDto> orders) implements JournalCommand {
+
+        public PlaceOrders {
+            orders = List.copyOf(orders);
+        }
+
+        @Override
+        public CommandType type() {
+            return CommandType.ORDER;
+        }
+    }
+
+    record CancelOrder(String username, long orderId) implements JournalCommand {
+
+        @Override
+        public CommandType type() {
+            return CommandType.CANCEL;
+        }
+    }
+
+    record Deposit(String username, Amount amount) implements JournalCommand {
+
+        @Override
+        public CommandType type() {
+            return CommandType.DEPOSIT;
+        }
+    }
+
+    record Withdraw(String username, Amount amount) implements JournalCommand {
+
+        @Override
+        public CommandType type() {
+            return CommandType.WITHDRAW;
+        }
+    }
+
+    record MatchOrders(String username, long buyOrderId, long sellOrderId) implements JournalCommand {
+
+        @Override
+        public CommandType type() {
+            return CommandType.MATCH;
+        }
+    }
+}
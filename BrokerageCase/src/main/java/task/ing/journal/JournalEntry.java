@@ -0,0 +1,7 @@
+package task.ing.journal;
+
+/**
+ * A journaled command together with the sequence number the journal gave it.
+ */
+public record JournalEntry(long sequence, JournalCommand command) {
+}
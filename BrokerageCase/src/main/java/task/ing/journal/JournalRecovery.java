@@ -0,0 +1,65 @@
+package task.ing.journal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import task.ing.service.OrderCommandService;
+
+import java.util.List;
+
+/**
+ * Runs the commands the journal found undecided on startup, in journal order and before the web
+ * server takes requests. Each runs with an authentication of the user it was journaled for, so it
+ * is audited as theirs, and is marked done whether it succeeds or not: a command that fails again
+ * failed for its caller too.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "brokerage.journal.enabled", havingValue = "true")
+public class JournalRecovery implements SmartInitializingSingleton {
+
+    private final CommandJournal commandJournal;
+    private final OrderCommandService orderCommandService;
+    private final JournalApplier journalApplier;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<JournalEntry> entries = commandJournal.recovered();
+        int failed = 0;
+        for (JournalEntry entry : entries) {
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                    entry.command().username(), null, List.of()));
+            SecurityContextHolder.setContext(context);
+            try {
+                orderCommandService.replay(entry);
+            } catch (RuntimeException e) {
+                failed++;
+                log.warn("Replaying journaled {} command {} failed: {}",
+                        entry.command().type(), entry.sequence(), e.getMessage());
+            } finally {
+                SecurityContextHolder.clearContext();
+                commandJournal.done(entry.sequence());
+            }
+        }
+
+        if (!entries.isEmpty()) {
+            log.info("Replayed {} journaled commands, {} of them failed", entries.size(), failed);
+        }
+    }
+
+    /**
+     * Drops the applied records the checkpoint made redundant.
+     */
+    @Scheduled(fixedDelayString = "${brokerage.journal.checkpoint-interval-ms:5000}")
+    public void forgetApplied() {
+        journalApplier.forgetUpTo(commandJournal.checkpointSequence());
+    }
+}
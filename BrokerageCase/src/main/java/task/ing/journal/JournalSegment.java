@@ -0,0 +1,131 @@
+package task.ing.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped journal file of a fixed size. Records are laid out back to back as
+ * {@code [int length][int crc32c][body]} with the length written last, and reading stops at the first
+ * zero length or checksum mismatch: that is where a crash cut the segment short.
+ */
+final class JournalSegment implements Closeable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+
+    private final Path path;
+    private final long index;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+
+    private JournalSegment(Path path, long index, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.index = index;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path directory, long index, int size) throws IOException {
+        Path path = pathOf(directory, index);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new JournalSegment(path, index, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    static JournalSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        long index = indexOf(path).orElseThrow(() -> new IOException("Not a journal segment: " + path));
+        return new JournalSegment(path, index, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+
+    static Path pathOf(Path directory, long index) {
+        return directory.resolve(PREFIX + String.format("%020d", index) + SUFFIX);
+    }
+
+    static OptionalLong indexOf(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    // the bytes a record with a body of the given length takes up in a segment
+    static int recordSize(int length) {
+        return RECORD_HEADER + length;
+    }
+
+    long index() {
+        return index;
+    }
+
+    /**
+     * Writes one record behind the previous one. Returns false, writing nothing, when the rest of the
+     * segment is too small for it.
+     */
+    boolean append(byte[] body, int length) {
+        int position = buffer.position();
+        if (buffer.remaining() < RECORD_HEADER + length) {
+            return false;
+        }
+        crc.reset();
+        crc.update(body, 0, length);
+        buffer.put(position + RECORD_HEADER, body, 0, length);
+        buffer.putInt(position + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(position, length);
+        buffer.position(position + RECORD_HEADER + length);
+        return true;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    List<JournalEntry> readEntries() throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        int position = 0;
+        while (buffer.limit() - position >= RECORD_HEADER) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.limit() - position - RECORD_HEADER) {
+                break;
+            }
+            byte[] body = new byte[length];
+            buffer.get(position + RECORD_HEADER, body);
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            entries.add(JournalCodec.decode(new DataInputStream(new ByteArrayInputStream(body))));
+            position += RECORD_HEADER + length;
+        }
+        return entries;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,149 @@
+package task.ing.ledger;
+
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import task.ing.model.dto.projection.LockedPosition;
+import task.ing.model.entity.LedgerEntry;
+import task.ing.model.enums.LedgerEntryType;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetRepository;
+import task.ing.repository.LedgerEntryRepository;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static task.ing.service.OrderService.TRY;
+
+/**
+ * Balances kept as an append-only ledger. Every movement is one {@link LedgerEntry}, persisted with
+ * the rest of its transaction so the entries go out as batched inserts when it flushes. A balance is
+ * the snapshot on its asset row plus the entries after the snapshot's position, and a scheduled job
+ * folds older entries into the snapshots so those tails stay short.
+ * <p>
+ * Only movements that take from the usable balance check it. TRY, which buys on every asset take
+ * from, is checked by {@link TryReservations} on its own shard; any other asset is only ever reserved
+ * by commands on that asset's shard, under a lock on its row that is taken before the ledger tail
+ * is read and that nothing else contends for. Credits, releases and the settlement of reserved
+ * amounts are plain inserts and never wait for each other.
+ * <p>
+ * A transaction reserving several positions goes through {@link #reserveAll}, which takes them in
+ * one order: TRY first, so no row lock is held while waiting for the TRY shard, then the rest by
+ * asset name.
+ */
+@Slf4j
+@Component
+public class BalanceBook {
+
+    private static final Comparator<String> LOCK_ORDER =
+            Comparator.comparing((String assetName) -> !TRY.equals(assetName)).thenComparing(Comparator.naturalOrder());
+
+    private final AssetRepository assetRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final TryReservations tryReservations;
+    private final long snapshotLagMillis;
+
+    public BalanceBook(AssetRepository assetRepository,
+                       LedgerEntryRepository ledgerEntryRepository,
+                       TryReservations tryReservations,
+                       @Value("${brokerage.ledger.snapshot-lag-ms:60000}") long snapshotLagMillis) {
+        this.assetRepository = assetRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.tryReservations = tryReservations;
+        this.snapshotLagMillis = snapshotLagMillis;
+    }
+
+    public Optional<Amount> usableSize(Long customerId, String assetName) {
+        return assetRepository.findUsableSize(customerId, assetName);
+    }
+
+    /**
+     * Moves an amount out of the usable balance. Returns false, and records nothing, when the customer
+     * has no such asset or not enough of it.
+     */
+    public boolean reserve(Long customerId, String assetName, Amount amount) {
+        if (TRY.equals(assetName)) {
+            return tryReservations.reserve(customerId, amount,
+                    () -> append(customerId, assetName, LedgerEntryType.RESERVE, amount));
+        }
+        Optional<LockedPosition> position = assetRepository.lockPosition(customerId, assetName);
+        if (position.isEmpty()) {
+            return false;
+        }
+        long usable = position.get().getUsableSize()
+                + assetRepository.sumUsableTail(customerId, assetName, position.get().getLedgerPosition());
+        if (amount.isGreaterThan(Amount.ofUnits(usable))) {
+            return false;
+        }
+        append(customerId, assetName, LedgerEntryType.RESERVE, amount);
+        return true;
+    }
+
+    /**
+     * Reserves several positions of one customer in lock order. Returns the first asset that could not
+     * be reserved; the ones before it stay reserved in the caller's transaction, which has to roll back.
+     */
+    public Optional<String> reserveAll(Long customerId, Map<String, Amount> amounts) {
+        List<String> assetNames = amounts.keySet().stream().sorted(LOCK_ORDER).toList();
+        for (String assetName : assetNames) {
+            if (!reserve(customerId, assetName, amounts.get(assetName))) {
+                return Optional.of(assetName);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void release(Long customerId, String assetName, Amount amount) {
+        append(customerId, assetName, LedgerEntryType.RELEASE, amount);
+    }
+
+    /**
+     * Takes a reserved amount out of the position and gives back {@code release} more of what was
+     * reserved for it, e.g. a price improvement.
+     */
+    public void settleReserved(Long customerId, String assetName, Amount amount, Amount release) {
+        append(customerId, assetName, LedgerEntryType.DEBIT, amount);
+        if (release.isPositive()) {
+            append(customerId, assetName, LedgerEntryType.RELEASE, release);
+        }
+    }
+
+    public void credit(Long customerId, String assetName, Amount amount) {
+        append(customerId, assetName, LedgerEntryType.CREDIT, amount);
+    }
+
+    /**
+     * Takes an amount out of the position right away, recorded as a reservation that is settled at once.
+     */
+    public boolean debit(Long customerId, String assetName, Amount amount) {
+        if (!reserve(customerId, assetName, amount)) {
+            return false;
+        }
+        append(customerId, assetName, LedgerEntryType.DEBIT, amount);
+        return true;
+    }
+
+    /**
+     * Folds every entry older than the lag into the snapshots. Entry ids are handed out in order by
+     * this process, so any entry below the horizon belongs to a transaction that started at least
+     * the lag ago and has committed by now, as long as no transaction runs longer than the lag.
+     */
+    @Scheduled(initialDelayString = "${brokerage.ledger.snapshot-interval-ms:60000}",
+            fixedDelayString = "${brokerage.ledger.snapshot-interval-ms:60000}")
+    @Transactional
+    public void snapshot() {
+        ledgerEntryRepository.findLastIdBefore(Instant.now().minusMillis(snapshotLagMillis)).ifPresent(horizon -> {
+            int positions = assetRepository.snapshotUpTo(horizon);
+            log.debug("Snapshotted {} positions up to ledger entry {}", positions, horizon);
+        });
+    }
+
+    private void append(Long customerId, String assetName, LedgerEntryType type, Amount amount) {
+        ledgerEntryRepository.save(new LedgerEntry(null, customerId, assetName, type, amount, Instant.now()));
+    }
+}
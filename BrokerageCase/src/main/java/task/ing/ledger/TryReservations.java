@@ -0,0 +1,98 @@
+package task.ing.ledger;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import task.ing.engine.CommandType;
+import task.ing.engine.OrderSequencer;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetRepository;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static task.ing.service.OrderService.TRY;
+
+/**
+ * Decides TRY reservations on the sequencer shard of TRY. Buy orders run on the shards of their
+ * assets, yet all of them take from the customer's TRY balance; deciding them here, one after
+ * another, replaces the lock on the TRY row that made buys on different shards wait for each
+ * other's transactions.
+ * <p>
+ * A reservation is checked against the committed usable balance less what the transactions still
+ * in flight have reserved. Their amounts are dropped once they complete, when the committed balance
+ * already holds the reservation or never will, so a balance can briefly look smaller than it is but
+ * never larger.
+ */
+@Component
+public class TryReservations {
+
+    private final OrderSequencer orderSequencer;
+    private final AssetRepository assetRepository;
+    private final TransactionTemplate committedRead;
+
+    // units reserved per customer by transactions in flight; only grows on the TRY shard
+    private final ConcurrentMap<Long, Long> inFlight = new ConcurrentHashMap<>();
+
+    public TryReservations(OrderSequencer orderSequencer,
+                           AssetRepository assetRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.orderSequencer = orderSequencer;
+        this.assetRepository = assetRepository;
+        this.committedRead = new TransactionTemplate(transactionManager);
+        this.committedRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.committedRead.setReadOnly(true);
+    }
+
+    /**
+     * Reserves the amount and runs {@code record}, which writes the reservation in the caller's
+     * transaction. Returns false, running nothing, when the customer has no TRY or not enough of it.
+     */
+    public boolean reserve(Long customerId, Amount amount, Runnable record) {
+        boolean reserved = orderSequencer.isOnShardOf(TRY)
+                ? decide(customerId, amount)
+                : orderSequencer.execute(CommandType.RESERVE, TRY, () -> decide(customerId, amount));
+        if (!reserved) {
+            return false;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                record.run();
+            } finally {
+                release(customerId, amount);
+            }
+            return true;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(customerId, amount);
+            }
+        });
+        record.run();
+        return true;
+    }
+
+    public long inFlightUnits(Long customerId) {
+        return inFlight.getOrDefault(customerId, 0L);
+    }
+
+    private boolean decide(Long customerId, Amount amount) {
+        // a transaction of its own, so the caller's uncommitted entries are not counted twice
+        Optional<Amount> usable = committedRead.execute(status -> assetRepository.findUsableSize(customerId, TRY));
+        if (usable.isEmpty() || amount.units() > usable.get().units() - inFlightUnits(customerId)) {
+            return false;
+        }
+        inFlight.merge(customerId, amount.units(), Math::addExact);
+        return true;
+    }
+
+    private void release(Long customerId, Amount amount) {
+        inFlight.computeIfPresent(customerId, (id, units) -> units == amount.units() ? null : units - amount.units());
+    }
+}
@@ -1,5 +1,6 @@
 package task.ing.mapper;
 
+import task.ing.cache.AssetListEntry;
 import task.ing.model.dto.request.AssetListRequestDto;
 import task.ing.model.dto.response.AssetListResponseDto;
 import task.ing.model.entity.AssetList;
@@ -22,4 +23,13 @@ public interface AssetListMapper {
                 assetList.getCurrentPrice()
         );
     }
+
+    static AssetListResponseDto toDto(AssetListEntry entry) {
+        return new AssetListResponseDto(
+                entry.id(),
+                entry.assetName(),
+                entry.assetFullName(),
+                entry.currentPrice()
+        );
+    }
 }
@@ -1,17 +1,16 @@
 package task.ing.mapper;
 
+import task.ing.model.dto.projection.CustomerAssetRow;
 import task.ing.model.dto.response.AssetResponseDto;
-import task.ing.model.entity.Asset;
 
 public interface AssetMapper {
 
-    static AssetResponseDto toDto(Asset asset) {
+    static AssetResponseDto toDto(CustomerAssetRow row) {
         return new AssetResponseDto(
-                asset.getAssetName(),
-                asset.getSize(),
-                asset.getUsableSize(),
-                asset.getAssetList().getCurrentPrice()
-
+                row.assetName(),
+                row.size(),
+                row.usableSize(),
+                row.currentPrice()
         );
     }
 }
@@ -1,5 +1,6 @@
 package task.ing.mapper;
 
+import task.ing.model.dto.projection.OrderHistoryRow;
 import task.ing.model.dto.request.OrderRequestDto;
 import task.ing.model.dto.response.OrderResponseDto;
 import task.ing.model.entity.AssetList;
@@ -23,6 +24,7 @@ public interface OrderMapper {
 
     static OrderResponseDto toDto(Order order) {
         return new OrderResponseDto(
+                order.getId(),
 //                order.getCustomer().getId(),
                 order.getAssetName(),
                 order.getPrice(),
@@ -33,4 +35,16 @@ public interface OrderMapper {
         );
     }
 
+    static OrderResponseDto toDto(OrderHistoryRow row) {
+        return new OrderResponseDto(
+                row.id(),
+                row.assetName(),
+                row.price(),
+                row.size(),
+                row.createdDate(),
+                row.orderSide(),
+                row.orderStatus()
+        );
+    }
+
 }
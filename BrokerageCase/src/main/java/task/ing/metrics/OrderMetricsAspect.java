@@ -0,0 +1,56 @@
+package task.ing.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import task.ing.model.dto.request.OrderRequestDto;
+
+/**
+ * Times every {@code OrderService} command with a percentile histogram, tagged by operation, order
+ * side and outcome. It wraps the retry aspect, so a timing covers all attempts and the commit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OrderMetricsAspect {
+
+    public static final String OPERATION_TIMER = "brokerage.orders.operation";
+
+    private final MeterRegistry meterRegistry;
+
+    public OrderMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(task.ing.service.OrderService) && @annotation(task.ing.retry.RetryOnConflict)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(OPERATION_TIMER)
+                    .description("Duration of order commands including retries and commit")
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("side", side(joinPoint.getArgs()))
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String side(Object[] args) {
+        if (args.length > 0 && args[0] instanceof OrderRequestDto dto && dto.orderSide() != null) {
+            return dto.orderSide().name();
+        }
+        return "none";
+    }
+}
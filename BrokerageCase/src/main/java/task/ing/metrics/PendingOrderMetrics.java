@@ -0,0 +1,69 @@
+package task.ing.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pending orders per asset and side, and the TRY reserved by pending buys per asset. Both come from
+ * one grouped query over the order status index, refreshed on a fixed delay rather than on every
+ * scrape.
+ */
+@Component
+public class PendingOrderMetrics {
+
+    public static final String PENDING_ORDERS = "brokerage.orders.pending";
+    public static final String RESERVED_TRY = "brokerage.orders.reserved.try";
+
+    // price and size are both in millionths, so their product carries twice the scale
+    private static final String PENDING_SQL = """
+            select asset_name, order_side, count(*), sum(cast(price as decimal(38, 0)) * size)
+            from orders
+            where order_status = 'PENDING'
+            group by asset_name, order_side
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MultiGauge pendingOrders;
+    private final MultiGauge reservedTry;
+
+    public PendingOrderMetrics(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pendingOrders = MultiGauge.builder(PENDING_ORDERS)
+                .description("Pending orders per asset and side")
+                .register(meterRegistry);
+        this.reservedTry = MultiGauge.builder(RESERVED_TRY)
+                .description("TRY reserved by pending buy orders per asset")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${brokerage.metrics.pending-refresh-ms:15000}")
+    public void refresh() {
+        List<MultiGauge.Row<?>> pending = new ArrayList<>();
+        List<MultiGauge.Row<?>> reserved = new ArrayList<>();
+
+        jdbcTemplate.query(PENDING_SQL, rs -> {
+            String assetName = rs.getString(1);
+            String side = rs.getString(2);
+            pending.add(MultiGauge.Row.of(Tags.of("asset", assetName, "side", side), rs.getLong(3)));
+
+            BigDecimal notional = rs.getBigDecimal(4);
+            if (OrderSide.BUY.name().equals(side) && notional != null) {
+                reserved.add(MultiGauge.Row.of(Tags.of("asset", assetName),
+                        notional.movePointLeft(2 * Amount.SCALE).doubleValue()));
+            }
+        });
+
+        pendingOrders.register(pending, true);
+        reservedTry.register(reserved, true);
+    }
+}
@@ -0,0 +1,25 @@
+package task.ing.model.dto.projection;
+
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
+
+/**
+ * What an order book needs of an order; size is the part that is still open.
+ */
+public record BookOrderRow(
+
+        Long id,
+
+        String assetName,
+
+        OrderSide orderSide,
+
+        Amount price,
+
+        Amount size,
+
+        OrderStatus orderStatus
+
+) {
+}
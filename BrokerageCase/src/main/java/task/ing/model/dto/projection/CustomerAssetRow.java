@@ -0,0 +1,23 @@
+package task.ing.model.dto.projection;
+
+import task.ing.model.value.Amount;
+
+/**
+ * One asset of one customer, or a customer without assets, in which case the asset columns are null.
+ */
+public record CustomerAssetRow(
+
+        Long customerId,
+
+        String customerName,
+
+        String assetName,
+
+        Amount size,
+
+        Amount usableSize,
+
+        Amount currentPrice
+
+) {
+}
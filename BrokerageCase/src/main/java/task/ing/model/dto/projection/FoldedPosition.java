@@ -0,0 +1,22 @@
+package task.ing.model.dto.projection;
+
+/**
+ * An asset row with the ledger entries up to a horizon added to its snapshot, in units. Folded tells
+ * whether there were any, i.e. whether the row itself is behind these numbers.
+ */
+public interface FoldedPosition {
+
+    long getId();
+
+    long getCustomerId();
+
+    String getAssetName();
+
+    long getSize();
+
+    long getUsableSize();
+
+    long getLedgerPosition();
+
+    boolean isFolded();
+}
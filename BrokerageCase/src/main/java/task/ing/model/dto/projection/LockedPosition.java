@@ -0,0 +1,12 @@
+package task.ing.model.dto.projection;
+
+/**
+ * Snapshot columns of an asset row read under its row lock, in units. The balance is the snapshot
+ * plus the ledger entries after the position.
+ */
+public interface LockedPosition {
+
+    long getUsableSize();
+
+    long getLedgerPosition();
+}
@@ -0,0 +1,26 @@
+package task.ing.model.dto.projection;
+
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
+
+import java.time.LocalDate;
+
+public record OrderHistoryRow(
+
+        Long id,
+
+        String assetName,
+
+        Amount price,
+
+        Amount size,
+
+        LocalDate createdDate,
+
+        OrderSide orderSide,
+
+        OrderStatus orderStatus
+
+) {
+}
@@ -1,7 +1,8 @@
 package task.ing.model.dto.request;
 
-import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
+import task.ing.model.value.Amount;
+import task.ing.model.value.MinAmount;
 
 public record AssetCreateRequestDto(
 
@@ -11,7 +12,7 @@ public record AssetCreateRequestDto(
         @NotNull(message = "AssetList ID is required")
         Long assetListId,
 
-        @DecimalMin(value = "0.0", inclusive = true, message = "Size must be greater than 0")
-        double size
+        @MinAmount(value = "0.0", inclusive = true, message = "Size must be greater than 0")
+        Amount size
 ) {
 }
@@ -1,11 +1,10 @@
 package task.ing.model.dto.request;
 
-import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
-
-import java.math.BigDecimal;
+import task.ing.model.value.Amount;
+import task.ing.model.value.MinAmount;
 
 public record AssetListRequestDto(
 
@@ -17,7 +16,7 @@ public record AssetListRequestDto(
         String assetFullName,
 
         @NotNull(message = "Current price cannot be blank")
-        @DecimalMin(value = "0.01", message = "Current price must be greater than 0")
-        BigDecimal currentPrice
+        @MinAmount(value = "0.01", message = "Current price must be greater than 0")
+        Amount currentPrice
 ) {
 }
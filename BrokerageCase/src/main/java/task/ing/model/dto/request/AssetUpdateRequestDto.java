@@ -1,13 +1,14 @@
 package task.ing.model.dto.request;
 
-import jakarta.validation.constraints.Min;
+import task.ing.model.value.Amount;
+import task.ing.model.value.MinAmount;
 
 public record AssetUpdateRequestDto(
 
-        @Min(value = 0, message = "Size must be at least 0")
-        double size,
+        @MinAmount(value = "0", message = "Size must be at least 0")
+        Amount size,
 
-        @Min(value = 0, message = "Usable size must be at least 0")
-        double usableSize
+        @MinAmount(value = "0", message = "Usable size must be at least 0")
+        Amount usableSize
 ) {
 }
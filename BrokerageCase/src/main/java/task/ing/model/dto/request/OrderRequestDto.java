@@ -1,12 +1,11 @@
 package task.ing.model.dto.request;
 
-import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import task.ing.model.enums.OrderSide;
-
-import java.math.BigDecimal;
+import task.ing.model.value.Amount;
+import task.ing.model.value.MinAmount;
 
 public record OrderRequestDto(
 
@@ -18,12 +17,12 @@ public record OrderRequestDto(
         String assetName,
 
         @NotNull(message = "Price cannot be blank")
-        @DecimalMin(value = "0.01", message = "Price must be greater than 0")
-        BigDecimal price,
+        @MinAmount(value = "0.01", message = "Price must be greater than 0")
+        Amount price,
 
         @NotNull(message = "Size cannot be blank")
-        @DecimalMin(value = "0.001", message = "Size must be greater than 0")
-        double size,
+        @MinAmount(value = "0.001", message = "Size must be greater than 0")
+        Amount size,
 
         @NotNull(message = "Order side (BUY, SELL) cannot be blank")
         OrderSide orderSide
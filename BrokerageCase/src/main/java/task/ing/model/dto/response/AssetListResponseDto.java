@@ -1,6 +1,6 @@
 package task.ing.model.dto.response;
 
-import java.math.BigDecimal;
+import task.ing.model.value.Amount;
 
 public record AssetListResponseDto(
         Long id,
@@ -9,6 +9,6 @@ public record AssetListResponseDto(
 
         String assetFullName,
 
-        BigDecimal currentPrice
+        Amount currentPrice
 ) {
 }
@@ -1,16 +1,16 @@
 package task.ing.model.dto.response;
 
-import java.math.BigDecimal;
+import task.ing.model.value.Amount;
 
 public record AssetResponseDto(
 
         String assetName,
 
-        double size,
+        Amount size,
 
-        double usableSize,
+        Amount usableSize,
 
-        BigDecimal currentPrice
+        Amount currentPrice
 
 
 ) {
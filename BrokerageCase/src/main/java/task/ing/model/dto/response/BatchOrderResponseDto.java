@@ -0,0 +1,14 @@
+package task.ing.model.dto.response;
+
+import java.util.List;
+
+public record BatchOrderResponseDto(
+
+        int acceptedCount,
+
+        int rejectedCount,
+
+        List<BatchOrderResultDto> results
+
+) {
+}
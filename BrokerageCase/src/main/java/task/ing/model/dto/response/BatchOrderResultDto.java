@@ -0,0 +1,22 @@
+package task.ing.model.dto.response;
+
+public record BatchOrderResultDto(
+
+        int index,
+
+        boolean accepted,
+
+        OrderResponseDto order,
+
+        String error
+
+) {
+
+    public static BatchOrderResultDto accepted(int index, OrderResponseDto order) {
+        return new BatchOrderResultDto(index, true, order, null);
+    }
+
+    public static BatchOrderResultDto rejected(int index, String error) {
+        return new BatchOrderResultDto(index, false, null, error);
+    }
+}
@@ -0,0 +1,12 @@
+package task.ing.model.dto.response;
+
+import java.util.List;
+
+public record CustomerAssetsPageResponseDto(
+
+        List<CustomerAssetsResponseDto> customers,
+
+        Long nextAfter
+
+) {
+}
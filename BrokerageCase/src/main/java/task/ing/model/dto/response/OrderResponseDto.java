@@ -2,19 +2,21 @@ package task.ing.model.dto.response;
 
 import task.ing.model.enums.OrderSide;
 import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 public record OrderResponseDto(
 
+        Long id,
+
 //        Long customerId,
 
         String assetName,
 
-        BigDecimal price,
+        Amount price,
 
-        double size,
+        Amount size,
 
         LocalDate createdDate,
 
@@ -0,0 +1,20 @@
+package task.ing.model.dto.response;
+
+import task.ing.model.enums.SubmissionStatus;
+
+import java.util.UUID;
+
+public record OrderSubmissionResponseDto(
+
+        UUID ticket,
+
+        SubmissionStatus status,
+
+        String statusUrl,
+
+        OrderResponseDto order,
+
+        String error
+
+) {
+}
@@ -7,11 +7,13 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import task.ing.model.value.Amount;
 
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "asset")
+@Table(name = "asset",
+        uniqueConstraints = @UniqueConstraint(name = "uk_asset_customer_asset", columnNames = {"customer_id", "asset_name"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,14 +21,19 @@ import java.time.LocalDate;
 public class Asset {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asset_seq")
+    @SequenceGenerator(name = "asset_seq", sequenceName = "asset_seq", allocationSize = 50)
     private Long id;
 
     private String assetName;
 
-    private double size;
+    private Amount size;
 
-    private double usableSize;
+    private Amount usableSize;
+
+    // id of the last ledger entry contained in size and usable size
+    @Column(nullable = false)
+    private long ledgerPosition;
 
     @ManyToOne
     @JoinColumn(name = "asset_list_id")
@@ -45,4 +52,7 @@ public class Asset {
 
     @LastModifiedDate
     private LocalDate lastModifiedDate;
+
+    @Version
+    private Long version;
 }
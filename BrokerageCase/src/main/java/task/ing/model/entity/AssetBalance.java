@@ -0,0 +1,37 @@
+package task.ing.model.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+import task.ing.model.value.Amount;
+
+/**
+ * Current balance of an {@link Asset}: its snapshot plus every ledger entry after the snapshot's
+ * position. Read-only; queries on it flush pending ledger entries first.
+ */
+@Entity
+@Immutable
+@Subselect("select a.id, a.customer_id, a.asset_name, "
+        + "a.size + coalesce((select sum(" + LedgerEntry.SIZE_EFFECT + ") " + LedgerEntry.TAIL + "), 0) as size, "
+        + "a.usable_size + coalesce((select sum(" + LedgerEntry.USABLE_SIZE_EFFECT + ") " + LedgerEntry.TAIL + "), 0) as usable_size "
+        + "from asset a")
+@Synchronize({"asset", "ledger_entry"})
+@Getter
+@NoArgsConstructor
+public class AssetBalance {
+
+    @Id
+    private Long id;
+
+    private Long customerId;
+
+    private String assetName;
+
+    private Amount size;
+
+    private Amount usableSize;
+}
@@ -5,12 +5,12 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import task.ing.model.value.Amount;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
-@Table(name = "asset_list")
+@Table(name = "asset_list", uniqueConstraints = @UniqueConstraint(name = "uk_asset_list_asset_name", columnNames = "asset_name"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,15 +18,15 @@ import java.util.List;
 public class AssetList {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asset_list_seq")
+    @SequenceGenerator(name = "asset_list_seq", sequenceName = "asset_list_seq", allocationSize = 50, initialValue = 1000)
     private Long id;
 
-    @Column(unique = true)
     private String assetName;
 
     private String assetFullName;
 
-    private BigDecimal currentPrice;
+    private Amount currentPrice;
 
     @Column(nullable = false)
     private boolean isDeleted = false;
@@ -34,4 +34,7 @@ public class AssetList {
     @OneToMany(mappedBy = "assetList")
     private List<Asset> assets;
 
+    @Version
+    private Long version;
+
 }
@@ -14,7 +14,9 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Entity
-@Table(name = "customer")
+@Table(name = "customer",
+        uniqueConstraints = @UniqueConstraint(name = "uk_customer_username", columnNames = "username"),
+        indexes = @Index(name = "idx_customer_email", columnList = "email"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,7 +24,8 @@ import java.util.List;
 public class Customer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @SequenceGenerator(name = "customer_seq", sequenceName = "customer_seq", allocationSize = 50, initialValue = 1000)
     private Long id;
 
     private String name;
@@ -31,7 +34,7 @@ public class Customer {
 
     private String email;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String username;
 
     private String password;
@@ -49,6 +52,9 @@ public class Customer {
     @Column(nullable = false)
     private boolean isDeleted = false;
 
+    @Column(nullable = false)
+    private int tokenVersion = 0;
+
     @CreatedDate
     @Column(updatable = false)
     private LocalDate createdDate;
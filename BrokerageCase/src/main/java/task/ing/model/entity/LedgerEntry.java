@@ -0,0 +1,52 @@
+package task.ing.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import task.ing.model.enums.LedgerEntryType;
+import task.ing.model.value.Amount;
+
+import java.time.Instant;
+
+/**
+ * One balance movement of one position. Entries are only ever inserted; the amount is always positive
+ * and its effect on size and usable size follows from the type.
+ */
+@Entity
+@Table(name = "ledger_entry", indexes = @Index(name = "idx_ledger_customer_asset", columnList = "customer_id, asset_name, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+
+    // SQL for the effect of an entry "e" on size and usable size, and for the entries of an asset row
+    // "a" that its snapshot does not contain yet
+    public static final String SIZE_EFFECT =
+            "case e.entry_type when 'CREDIT' then e.amount when 'DEBIT' then -e.amount else 0 end";
+    public static final String USABLE_SIZE_EFFECT =
+            "case e.entry_type when 'CREDIT' then e.amount when 'RELEASE' then e.amount when 'RESERVE' then -e.amount else 0 end";
+    public static final String TAIL =
+            "from ledger_entry e where e.customer_id = a.customer_id and e.asset_name = a.asset_name and e.id > a.ledger_position";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entry_seq")
+    @SequenceGenerator(name = "ledger_entry_seq", sequenceName = "ledger_entry_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long customerId;
+
+    @Column(nullable = false)
+    private String assetName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LedgerEntryType entryType;
+
+    @Column(nullable = false)
+    private Amount amount;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -11,12 +11,16 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import task.ing.model.enums.OrderSide;
 import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "order")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_created", columnList = "customer_id, created_date, id"),
+        @Index(name = "idx_orders_status_asset", columnList = "order_status, asset_name, id"),
+        @Index(name = "idx_orders_created", columnList = "created_date, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -24,14 +28,15 @@ import java.time.LocalDate;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     private String assetName;
 
-    private double size;
+    private Amount size;
 
-    private BigDecimal price;
+    private Amount price;
 
     @Enumerated(EnumType.STRING)
     private OrderSide orderSide;
@@ -61,4 +66,7 @@ public class Order {
     @LastModifiedBy
     private String lastModifiedBy;
 
+    @Version
+    private Long version;
+
 }
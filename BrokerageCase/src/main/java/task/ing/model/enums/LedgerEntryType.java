@@ -0,0 +1,13 @@
+package task.ing.model.enums;
+
+/**
+ * What a ledger entry does to a position: {@code RESERVE} and {@code RELEASE} move an amount out of
+ * and back into the usable balance, {@code DEBIT} takes a reserved amount out of the position and
+ * {@code CREDIT} adds an amount that is usable right away.
+ */
+public enum LedgerEntryType {
+    CREDIT,
+    DEBIT,
+    RELEASE,
+    RESERVE
+}
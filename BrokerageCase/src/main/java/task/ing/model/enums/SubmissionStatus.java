@@ -0,0 +1,7 @@
+package task.ing.model.enums;
+
+public enum SubmissionStatus {
+    QUEUED,
+    ACCEPTED,
+    REJECTED
+}
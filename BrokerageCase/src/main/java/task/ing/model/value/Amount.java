@@ -0,0 +1,141 @@
+package task.ing.model.value;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point decimal stored as a {@code long} count of millionths. Prices, sizes and balances all
+ * use this one scale, so settlement arithmetic is exact integer math and never rounds or allocates
+ * an intermediate {@link BigDecimal}. Every operation fails with {@link ArithmeticException} instead
+ * of silently overflowing.
+ */
+public final class Amount implements Comparable<Amount> {
+
+    public static final int SCALE = 6;
+
+    public static final long UNITS_PER_WHOLE = 1_000_000L;
+
+    public static final Amount ZERO = new Amount(0);
+
+    private final long units;
+
+    private Amount(long units) {
+        this.units = units;
+    }
+
+    public static Amount ofUnits(long units) {
+        return units == 0 ? ZERO : new Amount(units);
+    }
+
+    public static Amount of(long whole) {
+        return ofUnits(Math.multiplyExact(whole, UNITS_PER_WHOLE));
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Amount of(BigDecimal value) {
+        if (value.scale() > SCALE && value.stripTrailingZeros().scale() > SCALE) {
+            throw new IllegalArgumentException("Amounts support at most " + SCALE + " decimal places");
+        }
+        try {
+            return ofUnits(value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount is out of range: " + value.toPlainString());
+        }
+    }
+
+    /**
+     * Parses a plain decimal string; also lets Spring bind request parameters to this type.
+     */
+    public static Amount valueOf(String value) {
+        try {
+            return of(new BigDecimal(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + value);
+        }
+    }
+
+    public long units() {
+        return units;
+    }
+
+    public Amount plus(Amount other) {
+        return ofUnits(Math.addExact(units, other.units));
+    }
+
+    public Amount minus(Amount other) {
+        return ofUnits(Math.subtractExact(units, other.units));
+    }
+
+    /**
+     * Product of two amounts, e.g. price times size, truncated to {@link #SCALE} decimals.
+     */
+    public Amount times(Amount other) {
+        return ofUnits(multiplyUnits(units, other.units));
+    }
+
+    public Amount min(Amount other) {
+        return units <= other.units ? this : other;
+    }
+
+    public boolean isPositive() {
+        return units > 0;
+    }
+
+    public boolean isZero() {
+        return units == 0;
+    }
+
+    public boolean isGreaterThan(Amount other) {
+        return units > other.units;
+    }
+
+    public boolean isLessThan(Amount other) {
+        return units < other.units;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        BigDecimal value = BigDecimal.valueOf(units, SCALE).stripTrailingZeros();
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+
+    /**
+     * Fixed-point product of two unit counts: {@code a * b / UNITS_PER_WHOLE}, truncated toward zero.
+     * The full 128-bit product is taken, so any result that itself fits in a long is exact; only a
+     * product that does not fit in 64 bits takes the slower {@link BigInteger} division.
+     */
+    public static long multiplyUnits(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        if (high == low >> 63) {
+            return low / UNITS_PER_WHOLE;
+        }
+        return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+                .divide(BigInteger.valueOf(UNITS_PER_WHOLE))
+                .longValueExact();
+    }
+
+    @Override
+    public int compareTo(Amount other) {
+        return Long.compare(units, other.units);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Amount other && units == other.units;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(units);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,21 @@
+package task.ing.model.value;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an {@link Amount} as its raw unit count in a BIGINT column.
+ */
+@Converter(autoApply = true)
+public class AmountConverter implements AttributeConverter<Amount, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Amount amount) {
+        return amount == null ? null : amount.units();
+    }
+
+    @Override
+    public Amount convertToEntityAttribute(Long units) {
+        return units == null ? null : Amount.ofUnits(units);
+    }
+}
@@ -0,0 +1,28 @@
+package task.ing.model.value;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@link jakarta.validation.constraints.DecimalMin} for {@link Amount} fields; null values are valid.
+ */
+@Target({ElementType.FIELD, ElementType.PARAMETER, ElementType.RECORD_COMPONENT})
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = MinAmountValidator.class)
+public @interface MinAmount {
+
+    String value();
+
+    boolean inclusive() default true;
+
+    String message() default "Amount is below the minimum";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,26 @@
+package task.ing.model.value;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class MinAmountValidator implements ConstraintValidator<MinAmount, Amount> {
+
+    private Amount minimum;
+
+    private boolean inclusive;
+
+    @Override
+    public void initialize(MinAmount constraint) {
+        this.minimum = Amount.valueOf(constraint.value());
+        this.inclusive = constraint.inclusive();
+    }
+
+    @Override
+    public boolean isValid(Amount value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true;
+        }
+        int comparison = value.compareTo(minimum);
+        return inclusive ? comparison >= 0 : comparison > 0;
+    }
+}
@@ -1,11 +1,23 @@
 package task.ing.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import task.ing.model.dto.projection.FoldedPosition;
+import task.ing.model.dto.projection.LockedPosition;
 import task.ing.model.entity.Asset;
+import task.ing.model.entity.LedgerEntry;
+import task.ing.model.value.Amount;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AssetRepository extends JpaRepository<Asset, Long> {
@@ -14,8 +26,63 @@ public interface AssetRepository extends JpaRepository<Asset, Long> {
 
     Optional<Asset> findByCustomerIdAndAssetName(Long customerId, String assetName);
 
+    boolean existsByCustomerIdAndAssetName(Long customerId, String assetName);
+
+    @EntityGraph(attributePaths = {"assetList", "customer"})
     List<Asset> findByCustomerIdAndIsDeletedFalse(Long customerId);
 
     List<Asset> findByIsDeletedFalse();
 
+    @Query("select b.usableSize from AssetBalance b where b.customerId = :customerId and b.assetName = :assetName")
+    Optional<Amount> findUsableSize(@Param("customerId") Long customerId, @Param("assetName") String assetName);
+
+    /**
+     * Locks an asset row and returns its snapshot, so checks of a balance that are followed by a
+     * withdrawal from it run one after another. The tail has to be summed by a later statement: one
+     * in the same statement would be read before the lock is granted and miss the entries of the
+     * transaction that held it.
+     */
+    @Query(nativeQuery = true, value = "select a.usable_size as usableSize, a.ledger_position as ledgerPosition "
+            + "from asset a where a.customer_id = :customerId and a.asset_name = :assetName for update")
+    Optional<LockedPosition> lockPosition(@Param("customerId") Long customerId, @Param("assetName") String assetName);
+
+    @Query(nativeQuery = true, value = "select coalesce(sum(" + LedgerEntry.USABLE_SIZE_EFFECT + "), 0) from ledger_entry e "
+            + "where e.customer_id = :customerId and e.asset_name = :assetName and e.id > :position")
+    long sumUsableTail(@Param("customerId") Long customerId, @Param("assetName") String assetName,
+                       @Param("position") long position);
+
+    /**
+     * Adds every ledger entry up to {@code horizon} that an asset row does not contain yet to its size
+     * and usable size, and moves its position to the horizon. Rows without such entries are left alone.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "update asset a set "
+            + "size = a.size + coalesce((select sum(" + LedgerEntry.SIZE_EFFECT + ") " + LedgerEntry.TAIL + " and e.id <= :horizon), 0), "
+            + "usable_size = a.usable_size + coalesce((select sum(" + LedgerEntry.USABLE_SIZE_EFFECT + ") " + LedgerEntry.TAIL + " and e.id <= :horizon), 0), "
+            + "ledger_position = :horizon, version = a.version + 1 "
+            + "where exists (select 1 " + LedgerEntry.TAIL + " and e.id <= :horizon)")
+    int snapshotUpTo(@Param("horizon") long horizon);
+
+    /**
+     * Every asset row as {@link #snapshotUpTo} would leave it, without writing anything.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(nativeQuery = true, value = "select a.id as id, a.customer_id as customerId, a.asset_name as assetName, "
+            + "a.size + coalesce((select sum(" + LedgerEntry.SIZE_EFFECT + ") " + LedgerEntry.TAIL + " and e.id <= :horizon), 0) as size, "
+            + "a.usable_size + coalesce((select sum(" + LedgerEntry.USABLE_SIZE_EFFECT + ") " + LedgerEntry.TAIL + " and e.id <= :horizon), 0) as usableSize, "
+            + "case when exists (select 1 " + LedgerEntry.TAIL + " and e.id <= :horizon) then :horizon else a.ledger_position end as ledgerPosition, "
+            + "exists (select 1 " + LedgerEntry.TAIL + " and e.id <= :horizon) as folded "
+            + "from asset a order by a.id")
+    Stream<FoldedPosition> streamFoldedPositions(@Param("horizon") long horizon);
+
+    /**
+     * Takes over a position folded elsewhere, unless the row has already been folded as far.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "update asset set size = :size, usable_size = :usableSize, "
+            + "ledger_position = :ledgerPosition, version = version + 1 "
+            + "where id = :id and ledger_position < :ledgerPosition")
+    int restorePosition(@Param("id") long id, @Param("size") long size, @Param("usableSize") long usableSize,
+                        @Param("ledgerPosition") long ledgerPosition);
+
 }
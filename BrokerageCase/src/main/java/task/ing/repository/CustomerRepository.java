@@ -1,11 +1,21 @@
 package task.ing.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import task.ing.cache.CustomerIdentity;
+import task.ing.model.dto.projection.CustomerAssetRow;
 import task.ing.model.entity.Customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
@@ -14,9 +24,48 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     boolean existsByEmail(String email);
 
+    boolean existsByIdAndIsDeletedFalse(Long id);
+
     List<Customer> findAllByIsDeletedFalse();
 
     Optional<Customer> findByIdAndIsDeletedFalse(Long id);
 
     Optional<Customer> findByUsername(String username);
+
+    @Query("select new task.ing.cache.CustomerIdentity(c.id, c.role, c.isDeleted) from Customer c where c.username = :username")
+    Optional<CustomerIdentity> findIdentityByUsername(@Param("username") String username);
+
+    @Query("select c.id from Customer c where c.isDeleted = false and c.id > :afterId order by c.id")
+    List<Long> findActiveIdsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            select new task.ing.model.dto.projection.CustomerAssetRow(
+                c.id, c.name, a.assetName, b.size, b.usableSize, l.currentPrice)
+            from Customer c
+            left join c.assets a on a.isDeleted = false
+            left join AssetBalance b on b.id = a.id
+            left join a.assetList l
+            where c.id in :ids
+            order by c.id, a.assetName
+            """)
+    List<CustomerAssetRow> findAssetRowsByCustomerIds(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new task.ing.model.dto.projection.CustomerAssetRow(
+                c.id, c.name, a.assetName, b.size, b.usableSize, l.currentPrice)
+            from Customer c
+            left join c.assets a on a.isDeleted = false
+            left join AssetBalance b on b.id = a.id
+            left join a.assetList l
+            where c.isDeleted = false
+            order by c.id, a.assetName
+            """)
+    Stream<CustomerAssetRow> streamActiveAssetRows();
+
+    @Query("select c.tokenVersion from Customer c where c.id = :id and c.isDeleted = false")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
 }
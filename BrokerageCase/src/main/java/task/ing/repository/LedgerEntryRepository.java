@@ -0,0 +1,17 @@
+package task.ing.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import task.ing.model.entity.LedgerEntry;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    @Query("select max(e.id) from LedgerEntry e where e.createdAt < :cutoff")
+    Optional<Long> findLastIdBefore(@Param("cutoff") Instant cutoff);
+}
@@ -1,22 +1,92 @@
 package task.ing.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import task.ing.model.entity.Customer;
+import task.ing.model.dto.projection.BookOrderRow;
+import task.ing.model.dto.projection.OrderHistoryRow;
 import task.ing.model.entity.Order;
 import task.ing.model.enums.OrderStatus;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    @EntityGraph(attributePaths = {"assetList", "customer"})
     List<Order> findByCustomerIdAndCreatedDateBetween(Long customerId, LocalDate startDate, LocalDate endDate);
 
     List<Order> findByCustomerId(Long customerId);
 
+    /**
+     * One page of a customer's order history in (created date, id) order, starting right after the
+     * given key. Seeking past the key instead of using an offset keeps every page equally cheap.
+     */
+    @Query("""
+            select new task.ing.model.dto.projection.OrderHistoryRow(
+                o.id, o.assetName, o.price, o.size, o.createdDate, o.orderSide, o.orderStatus)
+            from Order o
+            where o.customer.id = :customerId
+              and o.createdDate between :startDate and :endDate
+              and (o.createdDate > :afterDate or (o.createdDate = :afterDate and o.id > :afterId))
+            order by o.createdDate, o.id
+            """)
+    List<OrderHistoryRow> findHistoryPage(@Param("customerId") Long customerId,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate,
+                                          @Param("afterDate") LocalDate afterDate,
+                                          @Param("afterId") Long afterId,
+                                          Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new task.ing.model.dto.projection.OrderHistoryRow(
+                o.id, o.assetName, o.price, o.size, o.createdDate, o.orderSide, o.orderStatus)
+            from Order o
+            where o.customer.id = :customerId and o.createdDate between :startDate and :endDate
+            order by o.createdDate, o.id
+            """)
+    Stream<OrderHistoryRow> streamHistory(@Param("customerId") Long customerId,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate);
+
     List<Order> findByOrderStatus(OrderStatus status);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new task.ing.model.dto.projection.BookOrderRow(
+                o.id, o.assetName, o.orderSide, o.price, o.size, o.orderStatus)
+            from Order o
+            where o.orderStatus = :status
+            order by o.assetName, o.id
+            """)
+    Stream<BookOrderRow> streamBookRows(@Param("status") OrderStatus status);
+
+    List<Order> findByAssetNameAndOrderStatusOrderByIdAsc(String assetName, OrderStatus status);
+
+    @Query("select o.assetName from Order o where o.id = :id")
+    Optional<String> findAssetNameById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id in :ids order by o.id")
+    List<Order> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,130 @@
+package task.ing.retry;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import task.ing.engine.OrderSequencer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Re-runs {@link RetryOnConflict} methods after an optimistic locking failure, or after losing a
+ * deadlock or lock wait on a pessimistically locked row. It is ordered ahead of
+ * the transaction interceptor so every attempt gets a fresh transaction and persistence context, and
+ * it backs off with full jitter so the conflicting writers do not collide again in lock step. On an
+ * {@link OrderSequencer} shard thread it retries without backing off, since a sleep there would stall
+ * every command queued behind it on the shard. Only the metrics aspect, which times the whole call,
+ * runs outside it.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class OptimisticRetryAspect implements MeterBinder {
+
+    private final int maxAttempts;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final Map<String, LongAdder> retries = new ConcurrentHashMap<>();
+
+    private final LongAdder exhausted = new LongAdder();
+
+    public OptimisticRetryAspect(@Value("${brokerage.retry.max-attempts:3}") int maxAttempts,
+                                 @Value("${brokerage.retry.initial-backoff-ms:5}") long initialBackoffMillis,
+                                 @Value("${brokerage.retry.max-backoff-ms:100}") long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Retry max attempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Around("@annotation(task.ing.retry.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Inside an outer transaction a retry would reuse the stale persistence context; the outermost
+        // caller owns the transaction and is the one that has to start over.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String operation = joinPoint.getSignature().toShortString();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("{} still conflicting after {} attempts", operation, attempt);
+                    throw e;
+                }
+                retries.computeIfAbsent(operation, key -> new LongAdder()).increment();
+                log.debug("{} lost a lock conflict on attempt {}, retrying", operation, attempt);
+                if (!OrderSequencer.isShardThread()) {
+                    backOff(attempt);
+                }
+            }
+        }
+    }
+
+    public long retryCount(String operation) {
+        LongAdder counter = retries.get(operation);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public long totalRetries() {
+        return retries.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long exhaustedCount() {
+        return exhausted.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("brokerage.retry.attempts", this, OptimisticRetryAspect::totalRetries)
+                .description("Re-executions after a lock conflict")
+                .register(registry);
+        FunctionCounter.builder("brokerage.retry.exhausted", this, OptimisticRetryAspect::exhaustedCount)
+                .description("Calls that still conflicted after the last attempt")
+                .register(registry);
+    }
+
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException || cause instanceof OptimisticLockException
+                    || cause instanceof PessimisticLockingFailureException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backOff(int attempt) throws InterruptedException {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package task.ing.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a transactional entry point that is re-executed by {@link OptimisticRetryAspect} when it
+ * loses a locking race. The method must be safe to run again from the start.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
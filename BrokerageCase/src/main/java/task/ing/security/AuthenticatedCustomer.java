@@ -0,0 +1,22 @@
+package task.ing.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Principal built straight from verified token claims, so callers get the customer id without
+ * looking the customer up again.
+ */
+public record AuthenticatedCustomer(
+
+        Long customerId,
+
+        String username,
+
+        String role
+) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,11 +1,13 @@
 package task.ing.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -13,13 +15,26 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final boolean statelessAuthentication;
+
+    public JwtAuthFilter(JwtUtil jwtUtil,
+                         CustomUserDetailsService userDetailsService,
+                         TokenVersionRegistry tokenVersionRegistry,
+                         @Value("${brokerage.security.stateless-auth:false}") boolean statelessAuthentication) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.statelessAuthentication = statelessAuthentication;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -34,20 +49,15 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         final String token = authHeader.substring(7);
-        final String username = jwtUtil.extractUsername(token);
-
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        final Optional<Claims> claims = jwtUtil.verify(token);
 
-            if (jwtUtil.isTokenValid(token)) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
+        if (claims.isPresent() && claims.get().getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authToken = statelessAuthentication && isStateless(claims.get())
+                    ? authenticateFromClaims(claims.get())
+                    : authenticateFromDatabase(claims.get());
 
+            if (authToken != null) {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
@@ -55,4 +65,42 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private UsernamePasswordAuthenticationToken authenticateFromDatabase(Claims claims) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+    }
+
+    /**
+     * Trusts the signed claims instead of reloading the customer; the only lookup left is the
+     * in-memory token version, which is what revokes tokens of changed or deleted customers.
+     */
+    private UsernamePasswordAuthenticationToken authenticateFromClaims(Claims claims) {
+        Long customerId = claims.get(JwtUtil.CUSTOMER_ID_CLAIM, Long.class);
+        Integer tokenVersion = claims.get(JwtUtil.TOKEN_VERSION_CLAIM, Integer.class);
+        String role = claims.get(JwtUtil.ROLE_CLAIM, String.class);
+
+        if (!tokenVersionRegistry.isCurrent(customerId, tokenVersion)) {
+            return null;
+        }
+
+        AuthenticatedCustomer principal = new AuthenticatedCustomer(customerId, claims.getSubject(), role);
+        return new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                List.of(new SimpleGrantedAuthority(role))
+        );
+    }
+
+    // Tokens issued before the customer id and version claims existed still go through the database.
+    private static boolean isStateless(Claims claims) {
+        return claims.get(JwtUtil.CUSTOMER_ID_CLAIM) != null
+                && claims.get(JwtUtil.TOKEN_VERSION_CLAIM) != null
+                && claims.get(JwtUtil.ROLE_CLAIM) != null;
+    }
 }
@@ -1,62 +1,89 @@
 package task.ing.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
+import task.ing.model.entity.Customer;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
-    private final String SECRET_KEY = "supersecretkeysupersecretkeysupersecretkey";
-    private final long EXPIRATION_TIME = 86400000;
+    private static final String SECRET_KEY = "supersecretkeysupersecretkeysupersecretkey";
+    private static final long EXPIRATION_TIME = 86400000;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
-    }
+    public static final String ROLE_CLAIM = "role";
+    public static final String CUSTOMER_ID_CLAIM = "cid";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
 
+    private static final Key SIGNING_KEY = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(SIGNING_KEY).build();
 
-    public String generateToken(String username, String role) {
-        return Jwts.builder()
-                .setSubject(username)
-                .claim("role", role)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
-    }
+    public static final String VERIFY_TIMER = "brokerage.jwt.verify";
 
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer rejectedTimer;
 
+    public JwtUtil(VerifiedTokenCache verifiedTokenCache, MeterRegistry meterRegistry) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.cachedTimer = verifyTimer(meterRegistry, "cached");
+        this.verifiedTimer = verifyTimer(meterRegistry, "verified");
+        this.rejectedTimer = verifyTimer(meterRegistry, "rejected");
+    }
 
-    public String extractRole(String token) {
-        return (String) Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role");
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder(VERIFY_TIMER)
+                .description("Token validation, by whether the claims came from the cache, a signature check or were rejected")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
+    public String generateToken(Customer customer) {
+        return Jwts.builder()
+                .setSubject(customer.getUsername())
+                .claim(ROLE_CLAIM, customer.getRole().name())
+                .claim(CUSTOMER_ID_CLAIM, customer.getId())
+                .claim(TOKEN_VERSION_CLAIM, customer.getTokenVersion())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                .signWith(SIGNING_KEY, SignatureAlgorithm.HS256)
+                .compact();
+    }
 
-    public boolean isTokenValid(String token) {
+    /**
+     * Returns the claims of a validly signed, unexpired token, or empty otherwise. The signature is
+     * checked once per token; after that the claims come from {@link VerifiedTokenCache} until the
+     * token expires.
+     */
+    public Optional<Claims> verify(String token) {
+        long start = System.nanoTime();
+        Claims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(cached);
+        }
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
+            Claims claims = PARSER.parseClaimsJws(token).getBody();
+            verifiedTokenCache.put(token, claims);
+            verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.empty();
         }
     }
 }
@@ -0,0 +1,99 @@
+package task.ing.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import task.ing.model.entity.Customer;
+import task.ing.repository.CustomerRepository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Current token version per customer. Every token carries the version it was issued with, and
+ * bumping a customer's version revokes all of its outstanding tokens. Versions are read from the
+ * database once per customer and then served from memory until they change. At most the configured
+ * number of customers is kept, in least recently used order, so a customer whose version was dropped
+ * is simply read again.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final int NO_VERSION = -1;
+
+    private final CustomerRepository customerRepository;
+
+    private final Map<Long, Integer> versions;
+
+    // bumped by every revocation, guarded by the versions lock
+    private long generation;
+
+    @Autowired
+    public TokenVersionRegistry(CustomerRepository customerRepository,
+                                @Value("${brokerage.token-versions.max-entries:10000}") int maxEntries) {
+        this.customerRepository = customerRepository;
+        this.versions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public boolean isCurrent(Long customerId, int tokenVersion) {
+        Integer current;
+        long loadedAt;
+        synchronized (versions) {
+            current = versions.get(customerId);
+            loadedAt = generation;
+        }
+
+        if (current == null) {
+            int loaded = customerRepository.findTokenVersionById(customerId).orElse(NO_VERSION);
+            synchronized (versions) {
+                // a version read while a revocation committed may be the old one
+                if (generation == loadedAt) {
+                    versions.putIfAbsent(customerId, loaded);
+                }
+            }
+            current = loaded;
+        }
+        return current != NO_VERSION && current == tokenVersion;
+    }
+
+    public int size() {
+        synchronized (versions) {
+            return versions.size();
+        }
+    }
+
+    /**
+     * Bumps the version on the (managed) customer so the caller's save persists it. The cached
+     * version is dropped only after the transaction completes; dropping it earlier would let a
+     * concurrent request cache the old, still committed version again.
+     */
+    public void revoke(Customer customer) {
+        customer.setTokenVersion(customer.getTokenVersion() + 1);
+        Long customerId = customer.getId();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            forget(customerId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                forget(customerId);
+            }
+        });
+    }
+
+    private void forget(Long customerId) {
+        synchronized (versions) {
+            generation++;
+            versions.remove(customerId);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package task.ing.service;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import task.ing.cache.AssetListCache;
 import task.ing.exceptions.AssetMismatchException;
 import task.ing.exceptions.AssetNotFoundException;
 import task.ing.mapper.AssetListMapper;
@@ -19,15 +21,13 @@ import java.util.stream.Collectors;
 public class AssetListService {
 
     private final AssetListRepository assetListRepository;
+    private final AssetListCache assetListCache;
 
     public List<AssetListResponseDto> getAssetList() {
-        return assetListRepository.findAll()
-                .stream()
-                .filter(asset -> !asset.isDeleted())
-                .map(AssetListMapper::toDto)
-                .toList();
+        return assetListCache.activeAssets();
     }
 
+    @Transactional
     public AssetListResponseDto addAsset(AssetListRequestDto dto) {
         assetListRepository.findByAssetName(dto.assetName())
                 .ifPresent(asset -> {
@@ -36,9 +36,11 @@ public class AssetListService {
 
         AssetList asset = AssetListMapper.toEntity(dto);
         AssetList savedAsset = assetListRepository.save(asset);
+        assetListCache.reloadAfterCommit();
         return AssetListMapper.toDto(savedAsset);
     }
 
+    @Transactional
     public AssetListResponseDto updateAsset(Long id, AssetListRequestDto requestDto) {
         AssetList asset = assetListRepository.findById(id)
                 .orElseThrow(() -> new AssetNotFoundException("Asset not found"));
@@ -48,23 +50,28 @@ public class AssetListService {
         asset.setCurrentPrice(requestDto.currentPrice());
 
         AssetList updated = assetListRepository.save(asset);
+        assetListCache.reloadAfterCommit();
         return AssetListMapper.toDto(updated);
     }
 
 
+    @Transactional
     public void softDeleteAsset(Long id) {
         AssetList asset = assetListRepository.findById(id)
                 .orElseThrow(() -> new AssetNotFoundException("Asset not found"));
 
         asset.setDeleted(true);
         assetListRepository.save(asset);
+        assetListCache.reloadAfterCommit();
     }
 
+    @Transactional
     public void restoreAsset(Long id) {
         AssetList asset = assetListRepository.findById(id)
                 .orElseThrow(() -> new AssetNotFoundException("Asset not found"));
 
         asset.setDeleted(false);
         assetListRepository.save(asset);
+        assetListCache.reloadAfterCommit();
     }
 }
@@ -1,47 +1,124 @@
 package task.ing.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import task.ing.cache.CustomerIdentity;
+import task.ing.cache.CustomerIdentityCache;
 import task.ing.mapper.AssetMapper;
 import task.ing.mapper.CustomerAssetMapper;
+import task.ing.model.dto.projection.CustomerAssetRow;
 import task.ing.model.dto.response.AssetResponseDto;
+import task.ing.model.dto.response.CustomerAssetsPageResponseDto;
 import task.ing.model.dto.response.CustomerAssetsResponseDto;
-import task.ing.model.entity.Asset;
-import task.ing.model.entity.Customer;
-import task.ing.model.enums.Role;
 import task.ing.repository.AssetListRepository;
-import task.ing.repository.AssetRepository;
 import task.ing.repository.CustomerRepository;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class AssetService {
 
-    private final AssetRepository assetRepository;
     private final AssetListRepository assetListRepository;
     private final CustomerRepository customerRepository;
+    private final CustomerIdentityCache customerIdentityCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${brokerage.assets.admin.max-page-size:1000}")
+    private int maxPageSize;
 
     @Transactional
     public List<AssetResponseDto> getAssetsForCurrentUser(String currentUsername) {
-        Customer currentUser = customerRepository.findByUsername(currentUsername)
+        CustomerIdentity currentUser = customerIdentityCache.resolve(currentUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("Current user not found"));
 
-        List<Asset> assets = assetRepository.findByCustomerIdAndIsDeletedFalse(currentUser.getId());
-        return assets.stream()
+        return customerRepository.findAssetRowsByCustomerIds(List.of(currentUser.id())).stream()
+                .filter(row -> row.assetName() != null)
                 .map(AssetMapper::toDto)
                 .toList();
     }
 
 
-    public List<CustomerAssetsResponseDto> adminGetAllAssetsGroupedByCustomer() {
-        List<Customer> customers = customerRepository.findAllByIsDeletedFalse();
-        return customers.stream()
-                .map(CustomerAssetMapper::toDto)
-                .toList();
+    /**
+     * One page of customers with their assets, read with one query for the page of ids and one
+     * projection query for their asset rows.
+     */
+    public CustomerAssetsPageResponseDto adminGetAssetsPage(Long after, int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxPageSize);
+        }
+
+        List<Long> customerIds = customerRepository.findActiveIdsAfter(after == null ? 0L : after, Limit.of(limit));
+        if (customerIds.isEmpty()) {
+            return new CustomerAssetsPageResponseDto(List.of(), null);
+        }
+
+        List<CustomerAssetsResponseDto> customers = new ArrayList<>();
+        groupByCustomer(customerRepository.findAssetRowsByCustomerIds(customerIds).iterator(), customers::add);
+
+        Long nextAfter = customerIds.size() == limit ? customerIds.get(customerIds.size() - 1) : null;
+        return new CustomerAssetsPageResponseDto(customers, nextAfter);
+    }
+
+    /**
+     * Writes every active customer with its assets as a JSON array, grouping the rows of a single
+     * ordered projection query while it is being read. Nothing but the customer at hand is kept in
+     * memory and no entity is loaded.
+     */
+    @Transactional
+    public void adminStreamAssetsGroupedByCustomer(OutputStream out) throws IOException {
+        try (Stream<CustomerAssetRow> rows = customerRepository.streamActiveAssetRows();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+
+            groupByCustomer(rows.iterator(), customer -> {
+                try {
+                    generator.writeObject(customer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Rows arrive ordered by customer id, so a customer is complete as soon as the id changes.
+    private static void groupByCustomer(Iterator<CustomerAssetRow> rows, Consumer<CustomerAssetsResponseDto> sink) {
+        CustomerAssetRow current = null;
+        List<AssetResponseDto> assets = new ArrayList<>();
+
+        while (rows.hasNext()) {
+            CustomerAssetRow row = rows.next();
+            if (current != null && !current.customerId().equals(row.customerId())) {
+                sink.accept(CustomerAssetMapper.toDto(current, assets));
+                assets = new ArrayList<>();
+            }
+            current = row;
+            if (row.assetName() != null) {
+                assets.add(AssetMapper.toDto(row));
+            }
+        }
+
+        if (current != null) {
+            sink.accept(CustomerAssetMapper.toDto(current, assets));
+        }
     }
 
 
@@ -7,6 +7,10 @@ import org.springframework.security.authorization.AuthorizationDeniedException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import task.ing.cache.AssetListCache;
+import task.ing.cache.AssetListEntry;
+import task.ing.cache.CustomerIdentity;
+import task.ing.cache.CustomerIdentityCache;
 import task.ing.exceptions.AssetNotFoundException;
 import task.ing.exceptions.CustomerNotFoundException;
 import task.ing.exceptions.EmailAlreadyExistsException;
@@ -16,13 +20,14 @@ import task.ing.model.dto.request.CustomerRequestDto;
 import task.ing.model.dto.response.CustomerResponseDto;
 import task.ing.model.dto.response.LoginResponseDto;
 import task.ing.model.entity.Asset;
-import task.ing.model.entity.AssetList;
 import task.ing.model.entity.Customer;
 import task.ing.model.enums.Role;
+import task.ing.model.value.Amount;
 import task.ing.repository.AssetListRepository;
 import task.ing.repository.AssetRepository;
 import task.ing.repository.CustomerRepository;
 import task.ing.security.JwtUtil;
+import task.ing.security.TokenVersionRegistry;
 
 @Service
 @RequiredArgsConstructor
@@ -33,6 +38,9 @@ public class CustomerService {
     private final AssetListRepository assetListRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final CustomerIdentityCache customerIdentityCache;
+    private final AssetListCache assetListCache;
 
     @Transactional
     public CustomerResponseDto createCustomer(CustomerRequestDto dto) {
@@ -51,15 +59,15 @@ public class CustomerService {
 
         Customer savedCustomer = customerRepository.save(customer);
 
-        AssetList tryAssetList = assetListRepository.findByAssetName("TRY")
+        AssetListEntry tryAssetList = assetListCache.find("TRY")
                 .orElseThrow(() -> new AssetNotFoundException("TRY asset not found in AssetList"));
 
         Asset tryAsset = new Asset();
         tryAsset.setAssetName("TRY");
-        tryAsset.setSize(0.0);
-        tryAsset.setUsableSize(0.0);
+        tryAsset.setSize(Amount.ZERO);
+        tryAsset.setUsableSize(Amount.ZERO);
         tryAsset.setCustomer(savedCustomer);
-        tryAsset.setAssetList(tryAssetList);
+        tryAsset.setAssetList(assetListRepository.getReferenceById(tryAssetList.id()));
 
         assetRepository.save(tryAsset);
 
@@ -70,7 +78,7 @@ public class CustomerService {
         Customer customer = customerRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        String token = jwtUtil.generateToken(customer.getUsername(), customer.getRole().name());
+        String token = jwtUtil.generateToken(customer);
 
         return new LoginResponseDto(token, customer.getId(), customer.getUsername(), customer.getRole().name());
     }
@@ -78,21 +86,23 @@ public class CustomerService {
 
     @Transactional
     public CustomerResponseDto adminUpdateCustomer(Long id, CustomerRequestDto dto, String currentUsername) {
-        Customer currentUser = customerRepository.findByUsername(currentUsername)
+        CustomerIdentity currentUser = customerIdentityCache.resolve(currentUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("Current user not found"));
 
         Customer targetCustomer = customerRepository.findByIdAndIsDeletedFalse(id)
                 .orElseThrow(() -> new CustomerNotFoundException("Target customer not found or deleted"));
 
-        if (!currentUser.getRole().equals(Role.ROLE_ADMIN) && !currentUser.getId().equals(targetCustomer.getId())) {
+        if (!currentUser.isAdmin() && !currentUser.id().equals(targetCustomer.getId())) {
             throw new AuthorizationDeniedException("You are not authorized to update this user");
         }
 
+        customerIdentityCache.invalidate(targetCustomer.getUsername());
         targetCustomer.setName(dto.name());
         targetCustomer.setSurname(dto.surname());
         targetCustomer.setEmail(dto.email());
         targetCustomer.setUsername(dto.username());
         targetCustomer.setPassword(passwordEncoder.encode(dto.password()));
+        tokenVersionRegistry.revoke(targetCustomer);
 
         Customer updated = customerRepository.save(targetCustomer);
         return CustomerMapper.toDto(updated);
@@ -103,11 +113,13 @@ public class CustomerService {
         Customer currentUser = customerRepository.findByUsername(currentUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("Current user not found"));
 
+        customerIdentityCache.invalidate(currentUsername);
         currentUser.setName(dto.name());
         currentUser.setSurname(dto.surname());
         currentUser.setEmail(dto.email());
         currentUser.setUsername(dto.username());
         currentUser.setPassword(passwordEncoder.encode(dto.password()));
+        tokenVersionRegistry.revoke(currentUser);
 
         Customer updated = customerRepository.save(currentUser);
         return CustomerMapper.toDto(updated);
@@ -115,13 +127,13 @@ public class CustomerService {
     }
 
     public CustomerResponseDto getCustomerById(Long id, String currentUsername) {
-        Customer currentUser = customerRepository.findByUsername(currentUsername)
+        CustomerIdentity currentUser = customerIdentityCache.resolve(currentUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("Current user not found"));
 
         Customer targetCustomer = customerRepository.findByIdAndIsDeletedFalse(id)
                 .orElseThrow(() -> new CustomerNotFoundException("Customer not found or deleted"));
 
-        if (!currentUser.getRole().equals(Role.ROLE_ADMIN) && !currentUser.getId().equals(targetCustomer.getId())) {
+        if (!currentUser.isAdmin() && !currentUser.id().equals(targetCustomer.getId())) {
             throw new AuthorizationDeniedException("You are not authorized to view this user");
         }
 
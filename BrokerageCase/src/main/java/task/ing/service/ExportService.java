@@ -0,0 +1,122 @@
+package task.ing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import task.ing.model.enums.ExportFormat;
+import task.ing.model.value.Amount;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Bulk exports for back-office reconciliation. Rows are read over a forward-only JDBC cursor and
+ * written to the output as they arrive, so no entity or persistence context is involved and memory
+ * use does not grow with the number of rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final String ORDERS_SQL = """
+            select id, customer_id, asset_name, order_side, order_status, price, size, created_date
+            from orders
+            where created_date between ? and ?
+            order by created_date, id
+            """;
+
+    private static final String[] ORDER_COLUMNS =
+            {"id", "customerId", "assetName", "orderSide", "orderStatus", "price", "size", "createdDate"};
+
+    private static final String POSITIONS_SQL = """
+            select customer_id, asset_name, size, usable_size
+            from asset
+            where is_deleted = false
+            order by customer_id, asset_name
+            """;
+
+    private static final String[] POSITION_COLUMNS = {"customerId", "assetName", "size", "usableSize"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${brokerage.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Runs in a transaction so drivers that only use a server-side cursor with auto-commit off
+     * (PostgreSQL among them) fetch the rows in batches instead of all at once.
+     */
+    @Transactional
+    public void exportOrders(LocalDate start, LocalDate end, ExportFormat format, OutputStream out) throws IOException {
+        export(ORDERS_SQL, ORDER_COLUMNS, format, out, rs -> new Object[]{
+                rs.getLong(1),
+                nullableLong(rs, 2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getString(5),
+                amount(rs, 6),
+                amount(rs, 7),
+                rs.getObject(8, LocalDate.class)
+        }, start, end);
+    }
+
+    @Transactional
+    public void exportPositions(ExportFormat format, OutputStream out) throws IOException {
+        export(POSITIONS_SQL, POSITION_COLUMNS, format, out, rs -> new Object[]{
+                nullableLong(rs, 1),
+                rs.getString(2),
+                amount(rs, 3),
+                amount(rs, 4)
+        });
+    }
+
+    private void export(String sql, String[] columns, ExportFormat format, OutputStream out, RowReader reader,
+                        Object... parameters) throws IOException {
+        try (ExportWriter writer = ExportWriter.create(format, objectMapper, out, columns)) {
+            RowCallbackHandler handler = rs -> {
+                try {
+                    writer.writeRow(reader.read(rs));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                return statement;
+            }, handler);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Long nullableLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Amount amount(ResultSet rs, int column) throws SQLException {
+        long units = rs.getLong(column);
+        return rs.wasNull() ? null : Amount.ofUnits(units);
+    }
+
+    @FunctionalInterface
+    private interface RowReader {
+        Object[] read(ResultSet rs) throws SQLException;
+    }
+}
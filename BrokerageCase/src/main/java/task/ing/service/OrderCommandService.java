@@ -0,0 +1,261 @@
+package task.ing.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import task.ing.engine.CommandType;
+import task.ing.engine.MatchingEngine;
+import task.ing.engine.OrderSequencer;
+import task.ing.exceptions.AssetNotFoundException;
+import task.ing.exceptions.CustomerNotFoundException;
+import task.ing.exceptions.InsufficientBalanceException;
+import task.ing.exceptions.ServiceBusyException;
+import task.ing.journal.CommandJournal;
+import task.ing.journal.JournalApplier;
+import task.ing.journal.JournalCommand;
+import task.ing.journal.JournalCommand.CancelOrder;
+import task.ing.journal.JournalCommand.Deposit;
+import task.ing.journal.JournalCommand.MatchOrders;
+import task.ing.journal.JournalCommand.PlaceOrders;
+import task.ing.journal.JournalCommand.Withdraw;
+import task.ing.journal.JournalEntry;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.dto.response.BatchOrderResponseDto;
+import task.ing.model.dto.response.BatchOrderResultDto;
+import task.ing.model.dto.response.OrderResponseDto;
+import task.ing.model.value.Amount;
+import task.ing.repository.OrderRepository;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static task.ing.service.OrderService.TRY;
+
+/**
+ * Entry point for every command that mutates balances or order books. Commands are routed through
+ * the {@link OrderSequencer} shard of the asset they touch and executed there by {@link OrderService}.
+ * When the {@link CommandJournal} is enabled, every command is journaled before it is routed and
+ * marked done once it ran, and {@link #replay} runs the commands a crash left undecided.
+ * <p>
+ * These commands answer with what their transaction produced, such as order ids and fill statuses,
+ * so they still wait for it: here the journal sits in front of the transaction, adding an append and
+ * a {@code journal_applied} row, rather than replacing it. Only {@link OrderIntakeService} answers
+ * as soon as a submission is journaled and applies it later.
+ */
+@Slf4j
+@Service
+public class OrderCommandService {
+
+    // failures whose message is meant for the client, as in GlobalExceptionHandler
+    private static final List<Class<? extends RuntimeException>> EXPECTED_FAILURES = List.of(
+            IllegalArgumentException.class, UsernameNotFoundException.class, AssetNotFoundException.class,
+            CustomerNotFoundException.class, InsufficientBalanceException.class, ServiceBusyException.class);
+
+    private final OrderSequencer orderSequencer;
+    private final OrderService orderService;
+    private final MatchingEngine matchingEngine;
+    private final OrderRepository orderRepository;
+    private final Validator validator;
+    private final CommandJournal commandJournal;
+    private final JournalApplier journalApplier;
+
+    @Value("${brokerage.orders.batch.max-size:500}")
+    private int maxBatchSize;
+
+    public OrderCommandService(OrderSequencer orderSequencer,
+                               OrderService orderService,
+                               MatchingEngine matchingEngine,
+                               OrderRepository orderRepository,
+                               Validator validator,
+                               ObjectProvider<CommandJournal> commandJournal,
+                               JournalApplier journalApplier) {
+        this.orderSequencer = orderSequencer;
+        this.orderService = orderService;
+        this.matchingEngine = matchingEngine;
+        this.orderRepository = orderRepository;
+        this.validator = validator;
+        this.commandJournal = commandJournal.getIfAvailable();
+        this.journalApplier = journalApplier;
+    }
+
+    public OrderResponseDto createOrder(OrderRequestDto dto, String currentUsername) {
+        return execute(new PlaceOrders(currentUsername, dto.assetName(), List.of(dto)), dto.assetName(),
+                () -> orderService.createOrder(dto, currentUsername));
+    }
+
+    /**
+     * Splits the batch by asset and submits every group to its shard at once, so groups on different
+     * shards run in parallel. Each item is answered on its own: invalid items and items the balance
+     * cannot cover are rejected without affecting the rest. A group is placed in one transaction, so
+     * a group that fails as a whole, e.g. on a lock conflict that outlasted its retries, rejects all of
+     * its own items and none of the other groups'. Its items carry the message the exception handlers
+     * would answer with for a known failure, and a generic error for anything else.
+     */
+    public BatchOrderResponseDto createOrders(List<OrderRequestDto> dtos, String currentUsername) {
+        if (dtos.isEmpty() || dtos.size() > maxBatchSize) {
+            throw new IllegalArgumentException("A batch must contain between 1 and " + maxBatchSize + " orders");
+        }
+
+        BatchOrderResultDto[] results = new BatchOrderResultDto[dtos.size()];
+        Map<String, Map<Integer, OrderRequestDto>> ordersByAsset = new LinkedHashMap<>();
+
+        for (int index = 0; index < dtos.size(); index++) {
+            OrderRequestDto dto = dtos.get(index);
+            if (dto == null) {
+                results[index] = BatchOrderResultDto.rejected(index, "Order cannot be null");
+                continue;
+            }
+
+            Set<ConstraintViolation<OrderRequestDto>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                results[index] = BatchOrderResultDto.rejected(index, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            } else {
+                ordersByAsset.computeIfAbsent(dto.assetName(), name -> new LinkedHashMap<>()).put(index, dto);
+            }
+        }
+
+        // one journal record per asset group, all appended in the same group commit
+        Iterator<Long> sequences = commandJournal == null ? null : commandJournal.appendAll(ordersByAsset.entrySet().stream()
+                .map(group -> new PlaceOrders(currentUsername, group.getKey(), List.copyOf(group.getValue().values())))
+                .toList()).iterator();
+
+        Map<String, CompletableFuture<List<BatchOrderResultDto>>> futures = new LinkedHashMap<>();
+        ordersByAsset.forEach((assetName, orders) -> {
+            Supplier<List<BatchOrderResultDto>> command = () -> orderService.createOrderBatch(assetName, orders, currentUsername);
+            if (sequences == null) {
+                futures.put(assetName, orderSequencer.submit(CommandType.ORDER, assetName, command));
+            } else {
+                long sequence = sequences.next();
+                futures.put(assetName, orderSequencer.submit(CommandType.ORDER, assetName,
+                        () -> journalApplier.apply(List.of(sequence), command))
+                        .whenComplete((placed, failure) -> commandJournal.done(sequence)));
+            }
+        });
+
+        futures.forEach((assetName, future) -> {
+            try {
+                future.join().forEach(result -> results[result.index()] = result);
+            } catch (CompletionException e) {
+                String error = rejection(assetName, e.getCause() != null ? e.getCause() : e);
+                ordersByAsset.get(assetName).keySet()
+                        .forEach(index -> results[index] = BatchOrderResultDto.rejected(index, error));
+            }
+        });
+
+        List<BatchOrderResultDto> resultList = List.of(results);
+        int acceptedCount = (int) resultList.stream().filter(BatchOrderResultDto::accepted).count();
+        return new BatchOrderResponseDto(acceptedCount, resultList.size() - acceptedCount, resultList);
+    }
+
+    public void cancelOrder(Long orderId, String currentUsername) {
+        execute(new CancelOrder(currentUsername, orderId), resolveAssetName(orderId), () -> {
+            orderService.cancelOrder(orderId, currentUsername);
+            return null;
+        });
+    }
+
+    public OrderResponseDto depositForCurrentUser(Amount amount, String currentUsername) {
+        return execute(new Deposit(currentUsername, amount), TRY,
+                () -> orderService.depositForCurrentUser(amount, currentUsername));
+    }
+
+    public OrderResponseDto withdrawForCurrentUser(Amount amount, String currentUsername) {
+        return execute(new Withdraw(currentUsername, amount), TRY,
+                () -> orderService.withdrawForCurrentUser(amount, currentUsername));
+    }
+
+    public void approveMatchedOrders(Long buyOrderId, Long sellOrderId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication == null ? "system" : authentication.getName();
+        execute(new MatchOrders(username, buyOrderId, sellOrderId), resolveAssetName(buyOrderId), () -> {
+            orderService.approveMatchedOrders(buyOrderId, sellOrderId);
+            return null;
+        });
+    }
+
+    /**
+     * Runs a command the journal recovered on its shard, unless its transaction already committed.
+     * Orders are placed as a batch, so an order the balance no longer covers is rejected rather than
+     * failing the rest. The caller provides the security context of the command's user.
+     */
+    public void replay(JournalEntry entry) {
+        if (journalApplier.isApplied(entry.sequence())) {
+            return;
+        }
+        switch (entry.command()) {
+            case PlaceOrders place -> {
+                Map<Integer, OrderRequestDto> orders = new LinkedHashMap<>();
+                place.orders().forEach(order -> orders.put(orders.size(), order));
+                run(entry.sequence(), CommandType.ORDER, place.assetName(),
+                        () -> orderService.createOrderBatch(place.assetName(), orders, place.username()));
+            }
+            case CancelOrder cancel -> run(entry.sequence(), CommandType.CANCEL, resolveAssetName(cancel.orderId()), () -> {
+                orderService.cancelOrder(cancel.orderId(), cancel.username());
+                return null;
+            });
+            case Deposit deposit -> run(entry.sequence(), CommandType.DEPOSIT, TRY,
+                    () -> orderService.depositForCurrentUser(deposit.amount(), deposit.username()));
+            case Withdraw withdraw -> run(entry.sequence(), CommandType.WITHDRAW, TRY,
+                    () -> orderService.withdrawForCurrentUser(withdraw.amount(), withdraw.username()));
+            case MatchOrders match -> run(entry.sequence(), CommandType.MATCH, resolveAssetName(match.buyOrderId()), () -> {
+                orderService.approveMatchedOrders(match.buyOrderId(), match.sellOrderId());
+                return null;
+            });
+        }
+    }
+
+    private static String rejection(String assetName, Throwable failure) {
+        return clientMessage(failure).orElseGet(() -> {
+            log.error("Placing the {} orders of a batch failed", assetName, failure);
+            return "Unexpected error, the " + assetName + " orders were not placed";
+        });
+    }
+
+    /**
+     * The message a failed command may show its client: the one the exception handlers would answer
+     * with for a known failure, and none for anything else, whose text may describe our internals.
+     */
+    static Optional<String> clientMessage(Throwable failure) {
+        if (failure instanceof OptimisticLockingFailureException) {
+            return Optional.of("The record was modified concurrently, please try again");
+        }
+        if (EXPECTED_FAILURES.stream().anyMatch(type -> type.isInstance(failure))) {
+            return Optional.ofNullable(failure.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private <T> T execute(JournalCommand command, String assetName, Supplier<T> action) {
+        if (commandJournal == null) {
+            return orderSequencer.execute(command.type(), assetName, action);
+        }
+        long sequence = commandJournal.append(command);
+        try {
+            return run(sequence, command.type(), assetName, action);
+        } finally {
+            commandJournal.done(sequence);
+        }
+    }
+
+    private <T> T run(long sequence, CommandType type, String assetName, Supplier<T> action) {
+        return orderSequencer.execute(type, assetName, () -> journalApplier.apply(List.of(sequence), action));
+    }
+
+    private String resolveAssetName(Long orderId) {
+        return matchingEngine.findAssetName(orderId)
+                .or(() -> orderRepository.findAssetNameById(orderId))
+                .orElse(TRY);
+    }
+}
@@ -0,0 +1,34 @@
+package task.ing.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in an order history listing: the (created date, id) key of the last row returned. It is
+ * handed to clients as an opaque token so the key format can change without breaking them.
+ */
+record OrderCursor(LocalDate createdDate, Long id) {
+
+    static OrderCursor before(LocalDate startDate) {
+        return new OrderCursor(startDate.minusDays(1), 0L);
+    }
+
+    static OrderCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("/");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new OrderCursor(LocalDate.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdDate + "/" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,98 @@
+package task.ing.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.exceptions.CustomerNotFoundException;
+import task.ing.mapper.OrderMapper;
+import task.ing.model.dto.projection.OrderHistoryRow;
+import task.ing.model.dto.response.OrderPageResponseDto;
+import task.ing.model.dto.response.OrderResponseDto;
+import task.ing.repository.CustomerRepository;
+import task.ing.repository.OrderRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Order history listings that stay cheap however long the requested date range is: keyset pages of a
+ * bounded size, or a stream written to the response row by row as it is read from the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderHistoryService {
+
+    private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
+    private final CustomerIdentityCache customerIdentityCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${brokerage.orders.history.max-page-size:1000}")
+    private int maxPageSize;
+
+    public Long currentCustomerId(String currentUsername) {
+        return customerIdentityCache.resolve(currentUsername)
+                .orElseThrow(() -> new CustomerNotFoundException("Current user not found"))
+                .id();
+    }
+
+    public Long activeCustomerId(Long customerId) {
+        if (!customerRepository.existsByIdAndIsDeletedFalse(customerId)) {
+            throw new CustomerNotFoundException("Customer not found or deleted");
+        }
+        return customerId;
+    }
+
+    public OrderPageResponseDto findPage(Long customerId, LocalDate start, LocalDate end, int limit, String cursor) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxPageSize);
+        }
+
+        OrderCursor after = cursor == null || cursor.isBlank() ? OrderCursor.before(start) : OrderCursor.decode(cursor);
+        List<OrderHistoryRow> rows = orderRepository.findHistoryPage(
+                customerId, start, end, after.createdDate(), after.id(), Limit.of(limit + 1));
+
+        boolean hasMore = rows.size() > limit;
+        List<OrderHistoryRow> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            OrderHistoryRow last = page.get(page.size() - 1);
+            nextCursor = new OrderCursor(last.createdDate(), last.id()).encode();
+        }
+
+        List<OrderResponseDto> orders = page.stream()
+                .map(OrderMapper::toDto)
+                .toList();
+        return new OrderPageResponseDto(orders, nextCursor);
+    }
+
+    /**
+     * Writes the whole range as a JSON array while the result set is still being read, so only the
+     * row at hand is held in memory. Runs in its own transaction because the stream needs an open
+     * connection until the last row.
+     */
+    @Transactional
+    public void streamOrders(Long customerId, LocalDate start, LocalDate end, OutputStream out) throws IOException {
+        try (Stream<OrderHistoryRow> rows = orderRepository.streamHistory(customerId, start, end);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+
+            Iterator<OrderHistoryRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(OrderMapper.toDto(iterator.next()));
+            }
+
+            generator.writeEndArray();
+        }
+    }
+}
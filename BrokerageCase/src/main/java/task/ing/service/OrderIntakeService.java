@@ -0,0 +1,363 @@
+package task.ing.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authorization.AuthorizationDeniedException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import task.ing.cache.AssetListCache;
+import task.ing.cache.CustomerIdentity;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.engine.CommandType;
+import task.ing.engine.OrderSequencer;
+import task.ing.exceptions.AssetNotFoundException;
+import task.ing.exceptions.OrderNotFoundException;
+import task.ing.exceptions.ServiceBusyException;
+import task.ing.journal.CommandJournal;
+import task.ing.journal.JournalApplier;
+import task.ing.journal.JournalCommand.PlaceOrders;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.dto.response.BatchOrderResultDto;
+import task.ing.model.dto.response.OrderResponseDto;
+import task.ing.model.dto.response.OrderSubmissionResponseDto;
+import task.ing.model.enums.SubmissionStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous order submission. A submission is checked, given a ticket and put on the bounded
+ * queue of the sequencer shard its asset belongs to; the caller gets the ticket right away. One
+ * worker per shard drains its queue in batches and turns the orders of each customer and asset in
+ * a batch into a single {@link OrderService#createOrderBatch} command, so the commit cost is shared
+ * by everything that queued up behind it. The outcome can be polled or pushed as a server-sent event.
+ * <p>
+ * With the {@link CommandJournal} enabled, a submission is journaled before its ticket is handed out,
+ * so an accepted ticket survives a crash of the process: the order is placed on replay if it was still
+ * queued.
+ */
+@Slf4j
+@Service
+public class OrderIntakeService implements MeterBinder {
+
+    public static final String QUEUED = "brokerage.orders.intake.queued";
+
+    private static final long POLL_MILLIS = 100;
+
+    private final OrderSequencer orderSequencer;
+    private final OrderService orderService;
+    private final AssetListCache assetListCache;
+    private final CustomerIdentityCache customerIdentityCache;
+    private final CommandJournal commandJournal;
+    private final JournalApplier journalApplier;
+    private final int batchSize;
+    private final long retentionMillis;
+    private final long subscribeTimeoutMillis;
+
+    private final List<BlockingQueue<Submission>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final Map<UUID, Submission> submissions = new ConcurrentHashMap<>();
+
+    private volatile boolean accepting = true;
+
+    public OrderIntakeService(OrderSequencer orderSequencer,
+                              OrderService orderService,
+                              AssetListCache assetListCache,
+                              CustomerIdentityCache customerIdentityCache,
+                              ObjectProvider<CommandJournal> commandJournal,
+                              JournalApplier journalApplier,
+                              @Value("${brokerage.orders.async.queue-capacity:10000}") int queueCapacity,
+                              @Value("${brokerage.orders.async.batch-size:200}") int batchSize,
+                              @Value("${brokerage.orders.async.status-retention-ms:600000}") long retentionMillis,
+                              @Value("${brokerage.orders.async.subscribe-timeout-ms:30000}") long subscribeTimeoutMillis) {
+        this.orderSequencer = orderSequencer;
+        this.orderService = orderService;
+        this.assetListCache = assetListCache;
+        this.customerIdentityCache = customerIdentityCache;
+        this.commandJournal = commandJournal.getIfAvailable();
+        this.journalApplier = journalApplier;
+        this.batchSize = batchSize;
+        this.retentionMillis = retentionMillis;
+        this.subscribeTimeoutMillis = subscribeTimeoutMillis;
+
+        for (int shard = 0; shard < orderSequencer.shardCount(); shard++) {
+            BlockingQueue<Submission> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+            Thread worker = new Thread(() -> drain(queue), "order-intake-" + shard);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * Stops taking submissions; the workers finish what is already queued before they exit.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        accepting = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    public OrderSubmissionResponseDto submit(OrderRequestDto dto, String currentUsername) {
+        if (!accepting) {
+            throw new ServiceBusyException("Order intake is shutting down");
+        }
+        if (assetListCache.find(dto.assetName()).isEmpty()) {
+            throw new AssetNotFoundException("Asset not found");
+        }
+
+        long sequence = commandJournal == null ? 0
+                : commandJournal.append(new PlaceOrders(currentUsername, dto.assetName(), List.of(dto)));
+        Submission submission = new Submission(UUID.randomUUID(), currentUsername, dto,
+                SecurityContextHolder.getContext(), sequence);
+        submissions.put(submission.ticket, submission);
+
+        if (!queues.get(orderSequencer.shardIndex(dto.assetName())).offer(submission)) {
+            submissions.remove(submission.ticket);
+            markDone(List.of(submission));
+            throw new ServiceBusyException("The order queue is full, please try again");
+        }
+        return submission.toDto();
+    }
+
+    public OrderSubmissionResponseDto getSubmission(UUID ticket, String currentUsername) {
+        return find(ticket, currentUsername).toDto();
+    }
+
+    /**
+     * Sends the outcome as a single {@code status} event and completes, right away if the
+     * submission is already decided.
+     */
+    public SseEmitter subscribe(UUID ticket, String currentUsername) {
+        Submission submission = find(ticket, currentUsername);
+        SseEmitter emitter = new SseEmitter(subscribeTimeoutMillis);
+        submission.subscribe(emitter);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${brokerage.orders.async.status-retention-ms:600000}")
+    public void evictDecided() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        submissions.values().removeIf(submission -> submission.decidedBefore(cutoff));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(QUEUED, queues, all -> all.stream().mapToInt(BlockingQueue::size).sum())
+                .description("Order submissions waiting to be placed")
+                .register(registry);
+    }
+
+    private Submission find(UUID ticket, String currentUsername) {
+        Submission submission = submissions.get(ticket);
+        if (submission == null) {
+            throw new OrderNotFoundException("Submission not found");
+        }
+
+        CustomerIdentity currentUser = customerIdentityCache.resolve(currentUsername)
+                .orElseThrow(() -> new UsernameNotFoundException("Current user not found"));
+        if (!currentUser.isAdmin() && !submission.username.equals(currentUsername)) {
+            throw new AuthorizationDeniedException("You are not authorized to view this submission");
+        }
+        return submission;
+    }
+
+    private void drain(BlockingQueue<Submission> queue) {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                place(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                String error = rejection("a batch of " + batch.size() + " submissions", e);
+                batch.forEach(submission -> submission.reject(error));
+            } finally {
+                markDone(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Every customer and asset in the batch becomes one command on the asset's shard. The commands
+     * are submitted together and awaited afterwards, and each runs with the security context of
+     * its submitter so the orders are audited as theirs.
+     */
+    private void place(List<Submission> batch) {
+        Map<String, List<Submission>> groups = new LinkedHashMap<>();
+        for (Submission submission : batch) {
+            groups.computeIfAbsent(submission.username + '\n' + submission.request.assetName(),
+                    key -> new ArrayList<>()).add(submission);
+        }
+
+        Map<List<Submission>, CompletableFuture<List<BatchOrderResultDto>>> commands = new LinkedHashMap<>();
+        for (List<Submission> group : groups.values()) {
+            Submission first = group.get(0);
+            Map<Integer, OrderRequestDto> orders = new LinkedHashMap<>();
+            for (int index = 0; index < group.size(); index++) {
+                orders.put(index, group.get(index).request);
+            }
+
+            Supplier<List<BatchOrderResultDto>> command =
+                    () -> orderService.createOrderBatch(first.request.assetName(), orders, first.username);
+            if (commandJournal != null) {
+                List<Long> sequences = group.stream().map(submission -> submission.sequence).toList();
+                Supplier<List<BatchOrderResultDto>> placeOrders = command;
+                command = () -> journalApplier.apply(sequences, placeOrders);
+            }
+
+            SecurityContextHolder.setContext(first.securityContext);
+            try {
+                commands.put(group, orderSequencer.submit(CommandType.ORDER, first.request.assetName(), command));
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }
+
+        commands.forEach((group, command) -> {
+            try {
+                command.join().forEach(result -> group.get(result.index()).decide(result));
+            } catch (CompletionException e) {
+                String error = rejection(group.size() + " " + group.get(0).request.assetName() + " submissions",
+                        e.getCause() != null ? e.getCause() : e);
+                group.forEach(submission -> submission.reject(error));
+            }
+        });
+    }
+
+    private static String rejection(String placing, Throwable failure) {
+        return OrderCommandService.clientMessage(failure).orElseGet(() -> {
+            log.error("Placing {} failed", placing, failure);
+            return "Unexpected error, the order was not placed";
+        });
+    }
+
+    private void markDone(List<Submission> placed) {
+        if (commandJournal != null) {
+            placed.forEach(submission -> commandJournal.done(submission.sequence));
+        }
+    }
+
+    private static final class Submission {
+
+        private final UUID ticket;
+        private final String username;
+        private final OrderRequestDto request;
+        private final SecurityContext securityContext;
+        private final long sequence;
+
+        // guarded by this
+        private SubmissionStatus status = SubmissionStatus.QUEUED;
+        private OrderResponseDto order;
+        private String error;
+        private long decidedAt;
+        private final List<SseEmitter> subscribers = new ArrayList<>();
+
+        private Submission(UUID ticket, String username, OrderRequestDto request, SecurityContext securityContext,
+                           long sequence) {
+            this.ticket = ticket;
+            this.username = username;
+            this.request = request;
+            this.securityContext = securityContext;
+            this.sequence = sequence;
+        }
+
+        void decide(BatchOrderResultDto result) {
+            if (result.accepted()) {
+                finish(SubmissionStatus.ACCEPTED, result.order(), null);
+            } else {
+                finish(SubmissionStatus.REJECTED, null, result.error());
+            }
+        }
+
+        void reject(String reason) {
+            finish(SubmissionStatus.REJECTED, null, reason);
+        }
+
+        synchronized OrderSubmissionResponseDto toDto() {
+            return new OrderSubmissionResponseDto(ticket, status, "/api/orders/submissions/" + ticket, order, error);
+        }
+
+        synchronized boolean decidedBefore(long cutoff) {
+            return status != SubmissionStatus.QUEUED && decidedAt < cutoff;
+        }
+
+        synchronized void subscribe(SseEmitter emitter) {
+            if (status != SubmissionStatus.QUEUED) {
+                send(emitter, toDto());
+                return;
+            }
+            subscribers.add(emitter);
+            Runnable unsubscribe = () -> {
+                synchronized (this) {
+                    subscribers.remove(emitter);
+                }
+            };
+            emitter.onCompletion(unsubscribe);
+            emitter.onTimeout(unsubscribe);
+        }
+
+        private void finish(SubmissionStatus outcome, OrderResponseDto placedOrder, String reason) {
+            List<SseEmitter> waiting;
+            OrderSubmissionResponseDto dto;
+            synchronized (this) {
+                if (status != SubmissionStatus.QUEUED) {
+                    return;
+                }
+                status = outcome;
+                order = placedOrder;
+                error = reason;
+                decidedAt = System.currentTimeMillis();
+                waiting = new ArrayList<>(subscribers);
+                subscribers.clear();
+                dto = toDto();
+            }
+            waiting.forEach(emitter -> send(emitter, dto));
+        }
+
+        private static void send(SseEmitter emitter, OrderSubmissionResponseDto dto) {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(dto));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
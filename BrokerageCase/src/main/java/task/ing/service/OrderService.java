@@ -2,13 +2,22 @@ package task.ing.service;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.aspectj.weaver.ast.Or;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.authorization.AuthorizationDeniedException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import task.ing.cache.AssetListCache;
+import task.ing.cache.AssetListEntry;
+import task.ing.cache.CustomerIdentity;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.engine.Fill;
+import task.ing.engine.MatchResult;
+import task.ing.engine.MatchingEngine;
 import task.ing.exceptions.*;
+import task.ing.ledger.BalanceBook;
 import task.ing.mapper.OrderMapper;
 import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.dto.response.BatchOrderResultDto;
 import task.ing.model.dto.response.OrderResponseDto;
 import task.ing.model.entity.Asset;
 import task.ing.model.entity.AssetList;
@@ -16,15 +25,17 @@ import task.ing.model.entity.Customer;
 import task.ing.model.entity.Order;
 import task.ing.model.enums.OrderSide;
 import task.ing.model.enums.OrderStatus;
-import task.ing.model.enums.Role;
+import task.ing.model.value.Amount;
 import task.ing.repository.AssetListRepository;
 import task.ing.repository.AssetRepository;
 import task.ing.repository.CustomerRepository;
 import task.ing.repository.OrderRepository;
+import task.ing.retry.RetryOnConflict;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -34,10 +45,15 @@ public class OrderService {
     private final AssetRepository assetRepository;
     private final AssetListRepository assetListRepository;
     private final CustomerRepository customerRepository;
+    private final CustomerIdentityCache customerIdentityCache;
+    private final AssetListCache assetListCache;
+    private final MatchingEngine matchingEngine;
+    private final BalanceBook balanceBook;
 
     public static final String TRY = "TRY";
 
 
+    @RetryOnConflict
     @Transactional
     public OrderResponseDto createOrder(OrderRequestDto dto, String currentUsername) {
         return switch (dto.orderSide()) {
@@ -49,113 +65,217 @@ public class OrderService {
 
     private OrderResponseDto createBuyOrder(OrderRequestDto dto, String currentUsername) {
         Customer customer = validateCustomer(currentUsername);
-        AssetList assetList = getAssetList(dto.assetName());
+        AssetListEntry assetList = getAssetList(dto.assetName());
 
-        BigDecimal totalCost = dto.price().multiply(BigDecimal.valueOf(dto.size()));
-        Asset tryAsset = getCustomerAsset(customer.getId(), TRY);
+        Amount totalCost = orderValue(dto);
+        reserve(customer.getId(), TRY, totalCost, "Insufficient TRY balance");
 
-        if (tryAsset.getUsableSize() < totalCost.doubleValue()) {
-            throw new InsufficientBalanceException("Insufficient TRY balance");
-        }
-
-        if (dto.price().compareTo(assetList.getCurrentPrice()) == 0) {
-            tryAsset.setSize(tryAsset.getSize() - totalCost.doubleValue());
-            tryAsset.setUsableSize(tryAsset.getUsableSize() - totalCost.doubleValue());
-            assetRepository.save(tryAsset);
-
-            Order order = saveMatchedOrder(dto, assetList, customer);
-            updateAssetAfterBuy(customer, dto, assetList);
+        return placeOrder(dto, assetList, customer);
+    }
 
-            return OrderMapper.toDto(order);
-        } else {
-            tryAsset.setUsableSize(tryAsset.getUsableSize() - totalCost.doubleValue());
-            assetRepository.save(tryAsset);
+    private OrderResponseDto createSellOrder(OrderRequestDto dto, String currentUsername) {
+        Customer customer = validateCustomer(currentUsername);
+        AssetListEntry assetList = getAssetList(dto.assetName());
 
-            Order order = savePendingOrder(dto, assetList, customer);
+        reserve(customer.getId(), dto.assetName(), dto.size(), "Insufficient asset balance");
 
-            return OrderMapper.toDto(order);
-        }
+        return placeOrder(dto, assetList, customer);
     }
 
-    private OrderResponseDto createSellOrder(OrderRequestDto dto, String currentUsername) {
+    /**
+     * Places several orders of one customer on one asset in a single transaction. Each order is checked
+     * against balances read once up front and rejected on its own if it does not fit; the accepted ones
+     * are reserved with one ledger entry per balance and then placed one after another.
+     */
+    @RetryOnConflict
+    @Transactional
+    public List<BatchOrderResultDto> createOrderBatch(String assetName, Map<Integer, OrderRequestDto> orders,
+                                                      String currentUsername) {
         Customer customer = validateCustomer(currentUsername);
-        AssetList assetList = getAssetList(dto.assetName());
-
-        Asset asset = getCustomerAsset(customer.getId(), dto.assetName());
-        if (asset.getUsableSize() < dto.size()) {
-            throw new InsufficientBalanceException("Insufficient asset balance");
+        Optional<AssetListEntry> assetList = assetListCache.find(assetName);
+        if (assetList.isEmpty()) {
+            return orders.keySet().stream()
+                    .map(index -> BatchOrderResultDto.rejected(index, "Asset not found"))
+                    .toList();
         }
 
-        BigDecimal totalCost = dto.price().multiply(BigDecimal.valueOf(dto.size()));
-
-        if (dto.price().compareTo(assetList.getCurrentPrice()) == 0) {
-            asset.setSize(asset.getSize() - dto.size());
-            asset.setUsableSize(asset.getUsableSize() - dto.size());
-            assetRepository.save(asset);
+        Map<String, Optional<Amount>> usable = new HashMap<>();
+        Map<String, Amount> reserved = new LinkedHashMap<>();
+        Map<Integer, OrderRequestDto> accepted = new LinkedHashMap<>();
+        List<BatchOrderResultDto> results = new ArrayList<>();
+
+        for (Map.Entry<Integer, OrderRequestDto> entry : orders.entrySet()) {
+            OrderRequestDto dto = entry.getValue();
+            boolean buy = dto.orderSide() == OrderSide.BUY;
+            String reservedAsset = buy ? TRY : assetName;
+            Amount amount;
+            try {
+                amount = buy ? orderValue(dto) : dto.size();
+            } catch (IllegalArgumentException e) {
+                results.add(BatchOrderResultDto.rejected(entry.getKey(), e.getMessage()));
+                continue;
+            }
+
+            Optional<Amount> balance = usable.computeIfAbsent(reservedAsset,
+                    name -> balanceBook.usableSize(customer.getId(), name));
+            Amount reservedSoFar = reserved.getOrDefault(reservedAsset, Amount.ZERO);
+
+            if (balance.isEmpty()) {
+                results.add(BatchOrderResultDto.rejected(entry.getKey(), "Asset not found for customer"));
+            } else if (amount.isGreaterThan(balance.get().minus(reservedSoFar))) {
+                results.add(BatchOrderResultDto.rejected(entry.getKey(),
+                        buy ? "Insufficient TRY balance" : "Insufficient asset balance"));
+            } else {
+                reserved.put(reservedAsset, reservedSoFar.plus(amount));
+                accepted.put(entry.getKey(), dto);
+            }
+        }
 
-            Order order = saveMatchedOrder(dto, assetList, customer);
-            updateAssetAfterSell(customer, totalCost);
+        balanceBook.reserveAll(customer.getId(), reserved).ifPresent(name -> {
+            throw new OptimisticLockingFailureException("Balance of " + name + " changed while reserving the batch");
+        });
 
-            return OrderMapper.toDto(order);
-        } else {
-            asset.setUsableSize(asset.getUsableSize() - dto.size());
-            assetRepository.save(asset);
+        accepted.forEach((index, dto) ->
+                results.add(BatchOrderResultDto.accepted(index, placeOrder(dto, assetList.get(), customer))));
 
-            Order order = savePendingOrder(dto, assetList, customer);
+        results.sort(Comparator.comparingInt(BatchOrderResultDto::index));
+        return results;
+    }
 
-            return OrderMapper.toDto(order);
+    // the TRY a buy order reserves; a product too large to hold is the client's mistake, not ours
+    private static Amount orderValue(OrderRequestDto dto) {
+        try {
+            return dto.price().times(dto.size());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Order value is out of range");
         }
     }
 
     private Customer validateCustomer(String currentUsername) {
-        return customerRepository.findByUsername(currentUsername)
+        CustomerIdentity identity = customerIdentityCache.resolve(currentUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("Current user not found"));
+        return customerRepository.getReferenceById(identity.id());
     }
 
-    private AssetList getAssetList(String assetName) {
-        return assetListRepository.findByAssetName(assetName)
+    private AssetListEntry getAssetList(String assetName) {
+        return assetListCache.find(assetName)
                 .orElseThrow(() -> new AssetNotFoundException("Asset not found"));
     }
 
-    private Order saveMatchedOrder(OrderRequestDto dto, AssetList assetList, Customer customer) {
-        Order order = OrderMapper.toEntity(dto, assetList, customer);
-        order.setOrderStatus(OrderStatus.MATCHED);
-        assetList.setCurrentPrice(dto.price());
-        assetListRepository.save(assetList);
-        return orderRepository.save(order);
+    private OrderResponseDto placeOrder(OrderRequestDto dto, AssetListEntry assetList, Customer customer) {
+        matchingEngine.invalidateOnRollback(dto.assetName());
+        MatchResult result = matchingEngine.match(dto.assetName(), dto.orderSide(), dto.price(), dto.size());
+        boolean fillsAtCurrentPrice = !result.isFullyFilled() && dto.price().equals(assetList.currentPrice());
+
+        Order order = OrderMapper.toEntity(dto, assetListRepository.getReferenceById(assetList.id()), customer);
+        if (result.isFullyFilled() || fillsAtCurrentPrice) {
+            order.setOrderStatus(OrderStatus.MATCHED);
+        } else {
+            order.setSize(result.remainingSize());
+            order.setOrderStatus(OrderStatus.PENDING);
+        }
+        Order savedOrder = orderRepository.save(order);
+
+        if (savedOrder.getOrderStatus() == OrderStatus.PENDING) {
+            matchingEngine.rest(savedOrder);
+        }
+
+        Amount remaining = dto.size();
+        for (Fill fill : result.fills()) {
+            settleFill(savedOrder, fill, remaining);
+            remaining = remaining.minus(fill.size());
+        }
+
+        if (fillsAtCurrentPrice) {
+            settleAtCurrentPrice(savedOrder, result.remainingSize());
+        }
+
+        return OrderMapper.toDto(savedOrder);
     }
 
-    private Order savePendingOrder(OrderRequestDto dto, AssetList assetList, Customer customer) {
-        Order order = OrderMapper.toEntity(dto, assetList, customer);
-        order.setOrderStatus(OrderStatus.PENDING);
-        return orderRepository.save(order);
+    /**
+     * Whatever the book could not fill at exactly the listed current price is still executed against
+     * the asset list at that price, which is how positions enter the market in the first place.
+     */
+    private void settleAtCurrentPrice(Order order, Amount size) {
+        Long customerId = order.getCustomer().getId();
+        Amount totalCost = order.getPrice().times(size);
+
+        if (order.getOrderSide() == OrderSide.BUY) {
+            balanceBook.settleReserved(customerId, TRY, totalCost, Amount.ZERO);
+            creditOrCreate(order.getCustomer(), order.getAssetName(), order.getAssetList(), size);
+        } else {
+            balanceBook.settleReserved(customerId, order.getAssetName(), size, Amount.ZERO);
+            balanceBook.credit(customerId, TRY, totalCost);
+        }
     }
 
-    private void updateAssetAfterBuy(Customer customer, OrderRequestDto dto, AssetList assetList) {
-        Asset buyerAsset = getOrCreateCustomerAsset(customer, dto.assetName(), assetList);
-        buyerAsset.setSize(buyerAsset.getSize() + dto.size());
-        buyerAsset.setUsableSize(buyerAsset.getUsableSize() + dto.size());
-        assetRepository.save(buyerAsset);
+    private void settleFill(Order incomingOrder, Fill fill, Amount incomingRemaining) {
+        Order restingOrder = orderRepository.findById(fill.restingOrderId())
+                .orElseThrow(() -> new OrderNotFoundException("Resting order not found"));
+
+        if (fill.restingRemainingSize().isPositive()) {
+            restingOrder.setSize(fill.restingRemainingSize());
+            restingOrder.setOrderStatus(OrderStatus.PENDING);
+        } else {
+            restingOrder.setOrderStatus(OrderStatus.MATCHED);
+        }
+        orderRepository.save(restingOrder);
+
+        if (incomingOrder.getOrderSide() == OrderSide.BUY) {
+            settle(incomingOrder, restingOrder, fill.price(), fill.size(), incomingRemaining);
+        } else {
+            settle(restingOrder, incomingOrder, fill.price(), fill.size(), fill.restingRemainingSize().plus(fill.size()));
+        }
     }
 
-    private void updateAssetAfterSell(Customer customer, BigDecimal totalCost) {
-        Asset tryAsset = getCustomerAsset(customer.getId(), TRY);
-        tryAsset.setSize(tryAsset.getSize() + totalCost.doubleValue());
-        tryAsset.setUsableSize(tryAsset.getUsableSize() + totalCost.doubleValue());
-        assetRepository.save(tryAsset);
+    /**
+     * Moves the matched size from seller to buyer at the execution price. The buyer reserved TRY at
+     * its own limit price, so any improvement over that limit is released back to its usable balance.
+     * What a fill takes from that reservation is the limit times the size left before the fill minus
+     * the limit times the size left after it, so the truncated amounts add up to exactly what was
+     * reserved, and a cancel releases the rest, instead of leaving fractions of a unit reserved forever.
+     * <p>
+     * Every leg only appends to the ledger: the amounts taken were reserved, and checked, when the
+     * orders were placed, and credits cannot fail. Settlements therefore lock no asset row, and the
+     * fixed locking order over both customers' rows that used to prevent deadlocks between them has
+     * nothing left to order. The only balance lock left is the one {@link BalanceBook#reserve} takes
+     * on the row of the one non-TRY asset a command is about, which only that asset's shard reserves
+     * from, after TRY, which is reserved without a lock; so no two transactions can wait for each
+     * other's rows.
+     */
+    private void settle(Order buyOrder, Order sellOrder, Amount price, Amount matchedSize, Amount buyRemaining) {
+        Amount totalPrice = price.times(matchedSize);
+        Amount reservedForFill = buyOrder.getPrice().times(buyRemaining)
+                .minus(buyOrder.getPrice().times(buyRemaining.minus(matchedSize)));
+        Amount priceImprovement = reservedForFill.minus(totalPrice);
+
+        Long buyerId = buyOrder.getCustomer().getId();
+        Long sellerId = sellOrder.getCustomer().getId();
+
+        AssetList assetList = buyOrder.getAssetList();
+        balanceBook.settleReserved(buyerId, TRY, totalPrice, priceImprovement);
+        creditOrCreate(buyOrder.getCustomer(), buyOrder.getAssetName(), assetList, matchedSize);
+        balanceBook.credit(sellerId, TRY, totalPrice);
+        balanceBook.settleReserved(sellerId, sellOrder.getAssetName(), matchedSize, Amount.ZERO);
+
+        assetList.setCurrentPrice(price);
+        assetListRepository.save(assetList);
+        assetListCache.updatePriceAfterCommit(buyOrder.getAssetName(), price);
     }
 
 
+    @RetryOnConflict
     @Transactional
     public void cancelOrder(Long orderId, String currentUsername) {
-        Customer currentUser = customerRepository.findByUsername(currentUsername)
+        CustomerIdentity currentUser = customerIdentityCache.resolve(currentUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("Current user not found"));
 
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found"));
 
-        if (!currentUser.getRole().equals(Role.ROLE_ADMIN) &&
-                !order.getCustomer().getId().equals(currentUser.getId())) {
+        if (!currentUser.isAdmin() &&
+                !order.getCustomer().getId().equals(currentUser.id())) {
             throw new AuthorizationDeniedException("You are not authorized to cancel this order");
         }
 
@@ -164,18 +284,17 @@ public class OrderService {
         }
 
         if (order.getOrderSide() == OrderSide.BUY) {
-            Asset tryAsset = getCustomerAsset(order.getCustomer().getId(), TRY);
-            double refund = order.getPrice().doubleValue() * order.getSize();
-            tryAsset.setUsableSize(tryAsset.getUsableSize() + refund);
-            assetRepository.save(tryAsset);
+            Amount refund = order.getPrice().times(order.getSize());
+            balanceBook.release(order.getCustomer().getId(), TRY, refund);
         } else if (order.getOrderSide() == OrderSide.SELL) {
-            Asset asset = getCustomerAsset(order.getCustomer().getId(), order.getAssetName());
-            asset.setUsableSize(asset.getUsableSize() + order.getSize());
-            assetRepository.save(asset);
+            balanceBook.release(order.getCustomer().getId(), order.getAssetName(), order.getSize());
         }
 
         order.setOrderStatus(OrderStatus.CANCELED);
         orderRepository.save(order);
+
+        matchingEngine.invalidateOnRollback(order.getAssetName());
+        matchingEngine.sync(order);
     }
 
 
@@ -193,52 +312,55 @@ public class OrderService {
 
     @Transactional
     public List<OrderResponseDto> listOrdersForCurrentUser(LocalDate start, LocalDate end, String currentUsername) {
-        Customer currentUser = customerRepository.findByUsername(currentUsername)
+        CustomerIdentity currentUser = customerIdentityCache.resolve(currentUsername)
                 .orElseThrow(() -> new CustomerNotFoundException("Current user not found"));
 
-        List<Order> orders = orderRepository.findByCustomerIdAndCreatedDateBetween(currentUser.getId(), start, end);
+        List<Order> orders = orderRepository.findByCustomerIdAndCreatedDateBetween(currentUser.id(), start, end);
         return orders.stream()
                 .map(OrderMapper::toDto)
                 .toList();
     }
 
+    @RetryOnConflict
     @Transactional
-    public OrderResponseDto depositForCurrentUser(double amount, String currentUsername) {
-        if (amount <= 0) {
+    public OrderResponseDto depositForCurrentUser(Amount amount, String currentUsername) {
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("Amount must be greater than zero");
         }
 
-        Customer customer = customerRepository.findByUsername(currentUsername)
+        CustomerIdentity identity = customerIdentityCache.resolve(currentUsername)
                 .orElseThrow(() -> new CustomerNotFoundException("Current user not found"));
+        Customer customer = customerRepository.getReferenceById(identity.id());
 
         return depositInternal(customer, amount);
     }
 
+    @RetryOnConflict
     @Transactional
-    public OrderResponseDto withdrawForCurrentUser(double amount, String currentUsername) {
-        if (amount <= 0) {
+    public OrderResponseDto withdrawForCurrentUser(Amount amount, String currentUsername) {
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("Amount must be greater than zero");
         }
 
-        Customer customer = customerRepository.findByUsername(currentUsername)
+        CustomerIdentity identity = customerIdentityCache.resolve(currentUsername)
                 .orElseThrow(() -> new CustomerNotFoundException("Current user not found"));
+        Customer customer = customerRepository.getReferenceById(identity.id());
 
         return withdrawInternal(customer, amount);
     }
-    private OrderResponseDto depositInternal(Customer customer, double amount) {
-        AssetList tryAssetList = assetListRepository.findByAssetName(TRY)
-                .orElseThrow(() -> new AssetNotFoundException("TRY asset not found"));
+    private OrderResponseDto depositInternal(Customer customer, Amount amount) {
+        AssetList tryAssetList = tryAssetList();
 
-        Asset tryAsset = getCustomerAsset(customer.getId(), TRY);
-        tryAsset.setSize(tryAsset.getSize() + amount);
-        tryAsset.setUsableSize(tryAsset.getUsableSize() + amount);
-        assetRepository.save(tryAsset);
+        if (!assetRepository.existsByCustomerIdAndAssetName(customer.getId(), TRY)) {
+            throw new AssetNotFoundException("Asset not found for customer");
+        }
+        balanceBook.credit(customer.getId(), TRY, amount);
 
         Order order = new Order();
         order.setCustomer(customer);
         order.setAssetName(TRY);
         order.setSize(amount);
-        order.setPrice(BigDecimal.ONE);
+        order.setPrice(Amount.of(1));
         order.setOrderSide(OrderSide.BUY);
         order.setOrderStatus(OrderStatus.MATCHED);
         order.setAssetList(tryAssetList);
@@ -246,25 +368,18 @@ public class OrderService {
         return OrderMapper.toDto(orderRepository.save(order));
     }
 
-    private OrderResponseDto withdrawInternal(Customer customer, double amount) {
-        AssetList tryAssetList = assetListRepository.findByAssetName(TRY)
-                .orElseThrow(() -> new AssetNotFoundException("TRY asset not found"));
-
-        Asset tryAsset = getCustomerAsset(customer.getId(), TRY);
+    private OrderResponseDto withdrawInternal(Customer customer, Amount amount) {
+        AssetList tryAssetList = tryAssetList();
 
-        if (tryAsset.getUsableSize() < amount) {
-            throw new InsufficientBalanceException("Insufficient balance");
+        if (!balanceBook.debit(customer.getId(), TRY, amount)) {
+            throw balanceFailure(customer.getId(), TRY, "Insufficient balance");
         }
 
-        tryAsset.setSize(tryAsset.getSize() - amount);
-        tryAsset.setUsableSize(tryAsset.getUsableSize() - amount);
-        assetRepository.save(tryAsset);
-
         Order order = new Order();
         order.setCustomer(customer);
         order.setAssetName(TRY);
         order.setSize(amount);
-        order.setPrice(BigDecimal.ONE);
+        order.setPrice(Amount.of(1));
         order.setOrderSide(OrderSide.SELL);
         order.setOrderStatus(OrderStatus.MATCHED);
         order.setAssetList(tryAssetList);
@@ -275,13 +390,21 @@ public class OrderService {
 
 
 
+    @RetryOnConflict
     @Transactional
     public void approveMatchedOrders(Long buyOrderId, Long sellOrderId) {
-        Order buyOrder = orderRepository.findById(buyOrderId)
-                .orElseThrow(() -> new OrderNotFoundException("Buy order not found"));
+        Map<Long, Order> lockedOrders = orderRepository.findAllByIdForUpdate(List.of(buyOrderId, sellOrderId)).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
 
-        Order sellOrder = orderRepository.findById(sellOrderId)
-                .orElseThrow(() -> new OrderNotFoundException("Sell order not found"));
+        Order buyOrder = lockedOrders.get(buyOrderId);
+        if (buyOrder == null) {
+            throw new OrderNotFoundException("Buy order not found");
+        }
+
+        Order sellOrder = lockedOrders.get(sellOrderId);
+        if (sellOrder == null) {
+            throw new OrderNotFoundException("Sell order not found");
+        }
 
         if (buyOrder.getOrderStatus() != OrderStatus.PENDING || sellOrder.getOrderStatus() != OrderStatus.PENDING) {
             throw new InvalidOrderStatusException("Only PENDING orders can be matched");
@@ -299,43 +422,21 @@ public class OrderService {
             throw new AssetMismatchException("Assets do not match");
         }
 
-        BigDecimal matchedSize = BigDecimal.valueOf(buyOrder.getSize()).min(BigDecimal.valueOf(sellOrder.getSize()));
-        BigDecimal totalPrice = sellOrder.getPrice().multiply(matchedSize);
-
-        AssetList assetList = buyOrder.getAssetList();
-        assetList.setCurrentPrice(buyOrder.getPrice());
-        assetListRepository.save(assetList);
-
-        Asset buyerTryAsset = getCustomerAsset(buyOrder.getCustomer().getId(), TRY);
-        buyerTryAsset.setSize(BigDecimal.valueOf(buyerTryAsset.getSize()).subtract(totalPrice).doubleValue());
-        assetRepository.save(buyerTryAsset);
-
-        Asset buyerAsset = getOrCreateCustomerAsset(buyOrder.getCustomer(), buyOrder.getAssetName(), assetList);
-        buyerAsset.setSize(BigDecimal.valueOf(buyerAsset.getSize()).add(matchedSize).doubleValue());
-        buyerAsset.setUsableSize(BigDecimal.valueOf(buyerAsset.getUsableSize()).add(matchedSize).doubleValue());
-        assetRepository.save(buyerAsset);
+        Amount matchedSize = buyOrder.getSize().min(sellOrder.getSize());
+        settle(buyOrder, sellOrder, sellOrder.getPrice(), matchedSize, buyOrder.getSize());
 
-        Asset sellerTryAsset = getCustomerAsset(sellOrder.getCustomer().getId(), TRY);
-        sellerTryAsset.setSize(BigDecimal.valueOf(sellerTryAsset.getSize()).add(totalPrice).doubleValue());
-        sellerTryAsset.setUsableSize(BigDecimal.valueOf(sellerTryAsset.getUsableSize()).add(totalPrice).doubleValue());
-        assetRepository.save(sellerTryAsset);
+        Amount buyRemaining = buyOrder.getSize().minus(matchedSize);
+        Amount sellRemaining = sellOrder.getSize().minus(matchedSize);
 
-        Asset sellerAsset = getCustomerAsset(sellOrder.getCustomer().getId(), sellOrder.getAssetName());
-        sellerAsset.setSize(BigDecimal.valueOf(sellerAsset.getSize()).subtract(matchedSize).doubleValue());
-        assetRepository.save(sellerAsset);
-
-        BigDecimal buyRemaining = BigDecimal.valueOf(buyOrder.getSize()).subtract(matchedSize);
-        BigDecimal sellRemaining = BigDecimal.valueOf(sellOrder.getSize()).subtract(matchedSize);
-
-        if (buyRemaining.compareTo(BigDecimal.ZERO) > 0) {
-            buyOrder.setSize(buyRemaining.doubleValue());
+        if (buyRemaining.isPositive()) {
+            buyOrder.setSize(buyRemaining);
             buyOrder.setOrderStatus(OrderStatus.PENDING);
         } else {
             buyOrder.setOrderStatus(OrderStatus.MATCHED);
         }
 
-        if (sellRemaining.compareTo(BigDecimal.ZERO) > 0) {
-            sellOrder.setSize(sellRemaining.doubleValue());
+        if (sellRemaining.isPositive()) {
+            sellOrder.setSize(sellRemaining);
             sellOrder.setOrderStatus(OrderStatus.PENDING);
         } else {
             sellOrder.setOrderStatus(OrderStatus.MATCHED);
@@ -343,33 +444,46 @@ public class OrderService {
 
         orderRepository.save(buyOrder);
         orderRepository.save(sellOrder);
-    }
 
-    private Asset getCustomerAsset(Long customerId, String assetName) {
-        return assetRepository.findByCustomerIdAndAssetName(customerId, assetName)
-                .orElseThrow(() -> new AssetNotFoundException("Asset not found for customer"));
+        matchingEngine.invalidateOnRollback(buyOrder.getAssetName());
+        matchingEngine.sync(buyOrder);
+        matchingEngine.sync(sellOrder);
     }
 
-    private Asset getOrCreateCustomerAsset(Customer customer, String assetName, AssetList assetList) {
-        return assetRepository.findByCustomerIdAndAssetName(customer.getId(), assetName)
-                .orElseGet(() -> {
-                    Asset asset = new Asset();
-                    asset.setCustomer(customer);
-                    asset.setAssetName(assetName);
-                    asset.setSize(0);
-                    asset.setUsableSize(0);
-                    asset.setAssetList(assetList);
-                    return asset;
-                });
+    private void reserve(Long customerId, String assetName, Amount amount, String insufficientMessage) {
+        if (!balanceBook.reserve(customerId, assetName, amount)) {
+            throw balanceFailure(customerId, assetName, insufficientMessage);
+        }
     }
 
-}
-
-
-
-
-
-
+    private AssetList tryAssetList() {
+        AssetListEntry entry = assetListCache.find(TRY)
+                .orElseThrow(() -> new AssetNotFoundException("TRY asset not found"));
+        return assetListRepository.getReferenceById(entry.id());
+    }
 
+    /**
+     * A refused reservation either found no asset or not enough balance; the extra lookup only happens
+     * on this failure path.
+     */
+    private RuntimeException balanceFailure(Long customerId, String assetName, String insufficientMessage) {
+        if (!assetRepository.existsByCustomerIdAndAssetName(customerId, assetName)) {
+            return new AssetNotFoundException("Asset not found for customer");
+        }
+        return new InsufficientBalanceException(insufficientMessage);
+    }
 
+    private void creditOrCreate(Customer customer, String assetName, AssetList assetList, Amount amount) {
+        if (!assetRepository.existsByCustomerIdAndAssetName(customer.getId(), assetName)) {
+            Asset asset = new Asset();
+            asset.setCustomer(customer);
+            asset.setAssetName(assetName);
+            asset.setSize(Amount.ZERO);
+            asset.setUsableSize(Amount.ZERO);
+            asset.setAssetList(assetList);
+            assetRepository.save(asset);
+        }
+        balanceBook.credit(customer.getId(), assetName, amount);
+    }
 
+}
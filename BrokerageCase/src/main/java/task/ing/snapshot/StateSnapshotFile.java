@@ -0,0 +1,242 @@
+package task.ing.snapshot;
+
+import task.ing.engine.OrderBook;
+import task.ing.model.dto.projection.BookOrderRow;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary layout of a state snapshot. A fixed header of magic, version, body length, CRC32C of the
+ * body, the highest order id in it and the journal sequence it was taken at is followed by the body:
+ * the time the snapshot was taken, the balance of every asset row, and the pending orders grouped
+ * into books, each order as its id, side, price and open size. Strings are length-prefixed UTF-8 and
+ * amounts their long units. The body is written as a stream and the header filled in afterwards, and
+ * it is read back through a memory mapping.
+ */
+final class StateSnapshotFile {
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int MAGIC = 0x424B534E;
+    private static final int VERSION = 2;
+    private static final int HEADER = 2 * Integer.BYTES + Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+    private static final int JOURNAL_SEQUENCE_OFFSET = HEADER - Long.BYTES;
+
+    private static final byte END = 0;
+    private static final byte BOOK = 1;
+    private static final byte ORDER = 2;
+    private static final byte POSITION = 3;
+
+    private static final OrderSide[] SIDES = OrderSide.values();
+
+    private StateSnapshotFile() {
+    }
+
+    record Contents(Instant takenAt, long journalSequence, long highestOrderId, List<Position> positions,
+                    Map<String, OrderBook> books, int orders) {
+    }
+
+    /**
+     * The balance of one asset row folded up to a ledger position; folded tells whether the row was
+     * behind it when the snapshot was taken.
+     */
+    record Position(long assetId, long customerId, String assetName, Amount size, Amount usableSize,
+                    long ledgerPosition, boolean folded) {
+    }
+
+    static Path pathOf(Path directory, Instant takenAt) {
+        return directory.resolve(PREFIX + String.format("%020d", takenAt.toEpochMilli()) + SUFFIX);
+    }
+
+    /**
+     * Snapshot files in the directory, newest first.
+     */
+    static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed())
+                    .toList();
+        }
+    }
+
+    /**
+     * Writes the snapshot and forces it to disk. The orders must arrive grouped by asset. Returns
+     * the number of orders written.
+     */
+    static int write(Path path, Instant takenAt, long journalSequence, Iterator<Position> positions,
+                     Iterator<BookOrderRow> orders) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER);
+            CRC32C crc = new CRC32C();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 64 * 1024));
+
+            out.writeLong(takenAt.toEpochMilli());
+            while (positions.hasNext()) {
+                Position position = positions.next();
+                out.writeByte(POSITION);
+                out.writeLong(position.assetId());
+                out.writeLong(position.customerId());
+                writeString(out, position.assetName());
+                out.writeLong(position.size().units());
+                out.writeLong(position.usableSize().units());
+                out.writeLong(position.ledgerPosition());
+                out.writeBoolean(position.folded());
+            }
+
+            int count = 0;
+            long highestOrderId = 0;
+            String assetName = null;
+            while (orders.hasNext()) {
+                BookOrderRow order = orders.next();
+                if (!order.assetName().equals(assetName)) {
+                    assetName = order.assetName();
+                    out.writeByte(BOOK);
+                    writeString(out, assetName);
+                }
+                out.writeByte(ORDER);
+                out.writeLong(order.id());
+                out.writeByte(order.orderSide().ordinal());
+                out.writeLong(order.price().units());
+                out.writeLong(order.size().units());
+                highestOrderId = Math.max(highestOrderId, order.id());
+                count++;
+            }
+            out.writeByte(END);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(channel.position() - HEADER)
+                    .putInt((int) crc.getValue())
+                    .putLong(highestOrderId)
+                    .putLong(journalSequence)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+            return count;
+        }
+    }
+
+    /**
+     * Reads only the journal sequence from the header, without checking the body.
+     */
+    static long readJournalSequence(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            if (channel.read(header, 0) < HEADER || header.getInt(0) != MAGIC || header.getInt(Integer.BYTES) != VERSION) {
+                throw new IOException("Not a state snapshot: " + path);
+            }
+            return header.getLong(JOURNAL_SEQUENCE_OFFSET);
+        }
+    }
+
+    /**
+     * Maps the file and rebuilds the balances and the order books from it, after checking the header
+     * and the checksum.
+     */
+    static Contents read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a state snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported state snapshot version " + version + ": " + path);
+            }
+            long length = buffer.getLong();
+            int checksum = buffer.getInt();
+            long highestOrderId = buffer.getLong();
+            long journalSequence = buffer.getLong();
+            if (length != buffer.remaining()) {
+                throw new IOException("Truncated state snapshot: " + path);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice());
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Corrupt state snapshot: " + path);
+            }
+
+            Instant takenAt = Instant.ofEpochMilli(buffer.getLong());
+            List<Position> positions = new ArrayList<>();
+            Map<String, OrderBook> books = new LinkedHashMap<>();
+            OrderBook book = null;
+            int orders = 0;
+            for (byte kind = buffer.get(); kind != END; kind = buffer.get()) {
+                if (kind == POSITION) {
+                    long assetId = buffer.getLong();
+                    long customerId = buffer.getLong();
+                    String assetName = readString(buffer);
+                    Amount size = Amount.ofUnits(buffer.getLong());
+                    Amount usableSize = Amount.ofUnits(buffer.getLong());
+                    positions.add(new Position(assetId, customerId, assetName, size, usableSize, buffer.getLong(),
+                            buffer.get() != 0));
+                } else if (kind == BOOK) {
+                    book = books.computeIfAbsent(readString(buffer), OrderBook::new);
+                } else if (kind == ORDER && book != null) {
+                    long id = buffer.getLong();
+                    OrderSide side = SIDES[buffer.get()];
+                    Amount price = Amount.ofUnits(buffer.getLong());
+                    Amount size = Amount.ofUnits(buffer.getLong());
+                    book.add(id, side, price, size);
+                    orders++;
+                } else {
+                    throw new IOException("Unexpected record " + kind + " in state snapshot " + path);
+                }
+            }
+            return new Contents(takenAt, journalSequence, highestOrderId, positions, books, orders);
+        }
+    }
+
+    // a length of -1 stands for null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[Short.toUnsignedInt(length)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,125 @@
+package task.ing.snapshot;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import task.ing.engine.MatchingEngine;
+import task.ing.engine.OrderBook;
+import task.ing.journal.CommandJournal;
+import task.ing.journal.JournalCommand.CancelOrder;
+import task.ing.journal.JournalCommand.Deposit;
+import task.ing.journal.JournalCommand.MatchOrders;
+import task.ing.journal.JournalCommand.PlaceOrders;
+import task.ing.journal.JournalCommand.Withdraw;
+import task.ing.journal.JournalEntry;
+import task.ing.repository.AssetRepository;
+import task.ing.repository.OrderRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Starts the order books and the balances from the newest readable state snapshot instead of loading
+ * every pending order. The snapshot was taken at a journal sequence, and the commands journaled after
+ * it are replayed on top: the books of every asset they touched are left to load from the database on
+ * first use, the rest are installed as the snapshot has them. Balances the database has not folded as
+ * far as the snapshot are taken over from it. Runs while the application context is being built,
+ * ahead of journal recovery and before any request is served.
+ * <p>
+ * Without a usable snapshot nothing happens and books are loaded per asset on first use, as always.
+ * A snapshot whose orders the database does not know, e.g. one left over from another database, or
+ * one the journal no longer reaches back to, is ignored.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = {"brokerage.snapshot.enabled", "brokerage.journal.enabled"}, havingValue = "true")
+public class StateSnapshotLoader {
+
+    private final Path directory;
+    private final OrderRepository orderRepository;
+    private final AssetRepository assetRepository;
+    private final MatchingEngine matchingEngine;
+    private final CommandJournal commandJournal;
+    private final TransactionTemplate transactionTemplate;
+
+    public StateSnapshotLoader(@Value("${brokerage.snapshot.directory:snapshots}") String directory,
+                               OrderRepository orderRepository,
+                               AssetRepository assetRepository,
+                               MatchingEngine matchingEngine,
+                               CommandJournal commandJournal,
+                               PlatformTransactionManager transactionManager) {
+        this.directory = Path.of(directory);
+        this.orderRepository = orderRepository;
+        this.assetRepository = assetRepository;
+        this.matchingEngine = matchingEngine;
+        this.commandJournal = commandJournal;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        for (Path path : StateSnapshotFile.list(directory)) {
+            StateSnapshotFile.Contents contents;
+            try {
+                contents = StateSnapshotFile.read(path);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Skipping unreadable state snapshot {}: {}", path.getFileName(), e.getMessage());
+                continue;
+            }
+            if (contents.highestOrderId() > 0 && !orderRepository.existsById(contents.highestOrderId())) {
+                log.warn("Ignoring state snapshot {}, its orders are not in this database", path.getFileName());
+                return;
+            }
+            Optional<List<JournalEntry>> later = commandJournal.commandsAfter(contents.journalSequence());
+            if (later.isEmpty()) {
+                log.warn("Ignoring state snapshot {}, the journal no longer holds the commands after its sequence {}",
+                        path.getFileName(), contents.journalSequence());
+                return;
+            }
+            commandJournal.retainAfter(contents.journalSequence());
+            apply(path, contents, later.get());
+            return;
+        }
+    }
+
+    private void apply(Path path, StateSnapshotFile.Contents contents, List<JournalEntry> later) {
+        long started = System.nanoTime();
+
+        Set<String> touched = new HashSet<>();
+        later.forEach(entry -> touchedAsset(entry).ifPresent(touched::add));
+        List<OrderBook> books = contents.books().values().stream()
+                .filter(book -> !touched.contains(book.getAssetName()))
+                .toList();
+        books.forEach(matchingEngine::install);
+
+        int restored = transactionTemplate.execute(status -> contents.positions().stream()
+                .filter(StateSnapshotFile.Position::folded)
+                .mapToInt(position -> assetRepository.restorePosition(position.assetId(), position.size().units(),
+                        position.usableSize().units(), position.ledgerPosition()))
+                .sum());
+
+        log.info("Started from state snapshot {} at journal sequence {}: installed {} books, replayed {} later "
+                        + "commands touching {} assets, restored {} of {} balances in {} ms", path.getFileName(),
+                contents.journalSequence(), books.size(), later.size(), touched.size(), restored,
+                contents.positions().size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // the asset whose book a command may have changed; deposits and withdrawals only move balances
+    private Optional<String> touchedAsset(JournalEntry entry) {
+        return switch (entry.command()) {
+            case PlaceOrders place -> Optional.of(place.assetName());
+            case CancelOrder cancel -> orderRepository.findAssetNameById(cancel.orderId());
+            case MatchOrders match -> orderRepository.findAssetNameById(match.buyOrderId());
+            case Deposit deposit -> Optional.empty();
+            case Withdraw withdraw -> Optional.empty();
+        };
+    }
+}
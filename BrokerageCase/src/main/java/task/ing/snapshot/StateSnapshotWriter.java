@@ -0,0 +1,132 @@
+package task.ing.snapshot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import task.ing.journal.CommandJournal;
+import task.ing.model.dto.projection.BookOrderRow;
+import task.ing.model.dto.projection.FoldedPosition;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetRepository;
+import task.ing.repository.LedgerEntryRepository;
+import task.ing.repository.OrderRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writes every balance and every pending order to a new state snapshot file on a fixed delay, for
+ * {@link StateSnapshotLoader} to start from. Balances and orders are streamed from the database
+ * straight into the file, so the writer holds one row at a time however many there are. Only the
+ * newest snapshots are kept, and the journal keeps the commands the oldest of them needs to catch up.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = {"brokerage.snapshot.enabled", "brokerage.journal.enabled"}, havingValue = "true")
+public class StateSnapshotWriter {
+
+    public static final String WRITE = "brokerage.snapshot.write";
+
+    private final Path directory;
+    private final int retained;
+    private final long ledgerLagMillis;
+    private final AssetRepository assetRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final OrderRepository orderRepository;
+    private final CommandJournal commandJournal;
+    private final Timer writeTimer;
+
+    public StateSnapshotWriter(@Value("${brokerage.snapshot.directory:snapshots}") String directory,
+                               @Value("${brokerage.snapshot.retained:2}") int retained,
+                               @Value("${brokerage.ledger.snapshot-lag-ms:60000}") long ledgerLagMillis,
+                               AssetRepository assetRepository,
+                               LedgerEntryRepository ledgerEntryRepository,
+                               OrderRepository orderRepository,
+                               CommandJournal commandJournal,
+                               MeterRegistry meterRegistry) {
+        if (retained < 1) {
+            throw new IllegalArgumentException("At least one state snapshot must be retained");
+        }
+        this.directory = Path.of(directory);
+        this.retained = retained;
+        this.ledgerLagMillis = ledgerLagMillis;
+        this.assetRepository = assetRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.orderRepository = orderRepository;
+        this.commandJournal = commandJournal;
+        this.writeTimer = Timer.builder(WRITE)
+                .description("Time spent writing a state snapshot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The snapshot is stamped with the journal checkpoint before anything is read: every command up to
+     * it has finished, so its effects are all in the snapshot, and every change the snapshot may have
+     * missed comes from a later command. Balances are folded up to the same ledger horizon as
+     * {@code BalanceBook} folds them. The file is written under a temporary name and renamed once
+     * complete.
+     */
+    @Scheduled(initialDelayString = "${brokerage.snapshot.interval-ms:300000}",
+            fixedDelayString = "${brokerage.snapshot.interval-ms:300000}")
+    @Transactional
+    public void write() throws IOException {
+        long started = System.nanoTime();
+        long journalSequence = commandJournal.checkpointSequence();
+        Instant takenAt = Instant.now();
+        long horizon = ledgerEntryRepository.findLastIdBefore(takenAt.minusMillis(ledgerLagMillis)).orElse(0L);
+        Files.createDirectories(directory);
+
+        Path target = StateSnapshotFile.pathOf(directory, takenAt);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        int orders;
+        try (Stream<FoldedPosition> positions = assetRepository.streamFoldedPositions(horizon);
+             Stream<BookOrderRow> rows = orderRepository.streamBookRows(OrderStatus.PENDING)) {
+            orders = StateSnapshotFile.write(temporary, takenAt, journalSequence,
+                    positions.map(StateSnapshotWriter::toPosition).iterator(), rows.iterator());
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> snapshots = StateSnapshotFile.list(directory);
+        for (Path old : snapshots.subList(Math.min(retained, snapshots.size()), snapshots.size())) {
+            Files.deleteIfExists(old);
+        }
+        commandJournal.retainAfter(oldestJournalSequence(snapshots.subList(0, Math.min(retained, snapshots.size()))));
+
+        long elapsed = System.nanoTime() - started;
+        writeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Wrote state snapshot {} at journal sequence {} with {} pending orders in {} ms",
+                target.getFileName(), journalSequence, orders, elapsed / 1_000_000);
+    }
+
+    // a snapshot whose header cannot be read will never be loaded, so it needs no commands
+    private static long oldestJournalSequence(List<Path> snapshots) {
+        long oldest = Long.MAX_VALUE;
+        for (Path snapshot : snapshots) {
+            try {
+                oldest = Math.min(oldest, StateSnapshotFile.readJournalSequence(snapshot));
+            } catch (IOException e) {
+                log.warn("Not retaining journal commands for unreadable state snapshot {}: {}",
+                        snapshot.getFileName(), e.getMessage());
+            }
+        }
+        return oldest;
+    }
+
+    private static StateSnapshotFile.Position toPosition(FoldedPosition position) {
+        return new StateSnapshotFile.Position(position.getId(), position.getCustomerId(), position.getAssetName(),
+                Amount.ofUnits(position.getSize()), Amount.ofUnits(position.getUsableSize()),
+                position.getLedgerPosition(), position.isFolded());
+    }
+}
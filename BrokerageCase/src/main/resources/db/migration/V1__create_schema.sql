@@ -0,0 +1,75 @@
+create sequence asset_list_seq start with 1000 increment by 50;
+create sequence asset_seq start with 1 increment by 50;
+create sequence customer_seq start with 1000 increment by 50;
+create sequence orders_seq start with 1 increment by 50;
+
+create table asset_list (
+    id bigint not null,
+    asset_name varchar(255),
+    asset_full_name varchar(255),
+    current_price bigint,
+    is_deleted boolean not null,
+    version bigint,
+    primary key (id),
+    constraint uk_asset_list_asset_name unique (asset_name)
+);
+
+create table customer (
+    id bigint not null,
+    name varchar(255),
+    surname varchar(255),
+    email varchar(255),
+    username varchar(255) not null,
+    password varchar(255),
+    role enum ('ROLE_ADMIN', 'ROLE_USER') not null,
+    is_deleted boolean not null,
+    token_version integer not null,
+    created_date date,
+    last_modified_date date,
+    last_modified_by varchar(255),
+    primary key (id),
+    constraint uk_customer_username unique (username)
+);
+
+create table asset (
+    id bigint not null,
+    customer_id bigint,
+    asset_list_id bigint,
+    asset_name varchar(255),
+    size bigint,
+    usable_size bigint,
+    is_deleted boolean not null,
+    version bigint,
+    created_date date,
+    last_modified_date date,
+    primary key (id),
+    constraint uk_asset_customer_asset unique (customer_id, asset_name)
+);
+
+create table orders (
+    id bigint not null,
+    customer_id bigint,
+    asset_list_id bigint,
+    asset_name varchar(255),
+    size bigint,
+    price bigint,
+    order_side enum ('BUY', 'SELL'),
+    order_status enum ('CANCELED', 'MATCHED', 'PENDING'),
+    version bigint,
+    created_date date,
+    created_by varchar(255),
+    last_modified_date date,
+    last_modified_by varchar(255),
+    primary key (id)
+);
+
+create index idx_customer_email on customer (email);
+create index idx_orders_customer_created on orders (customer_id, created_date, id);
+create index idx_orders_status_asset on orders (order_status, asset_name, id);
+
+-- foreign keys are added after the indexes so they reuse the composite indexes that lead with
+-- their column instead of getting a single-column index of their own
+alter table asset add constraint fk_asset_customer foreign key (customer_id) references customer;
+alter table asset add constraint fk_asset_asset_list foreign key (asset_list_id) references asset_list;
+alter table orders add constraint fk_orders_customer foreign key (customer_id) references customer;
+alter table orders add constraint fk_orders_asset_list foreign key (asset_list_id) references asset_list;
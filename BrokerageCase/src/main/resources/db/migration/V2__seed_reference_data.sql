@@ -0,0 +1,12 @@
+-- current_price is stored as an Amount, i.e. in millionths
+-- seed rows take fixed ids below the initial value of their id sequences
+INSERT INTO asset_list (id, asset_name, asset_full_name, current_price, is_deleted, version) VALUES
+(1, 'TRY', 'Turk Lirasi', 1000000, FALSE, 0),
+(2, 'ASELS', 'Aselsan Elektronik Sanayi ve Ticaret A.S.', 45750000, FALSE, 0),
+(3, 'THYAO', 'Turk Hava Yollari A.O.', 120500000, FALSE, 0),
+(4, 'SISE', 'Sisecam', 35200000, FALSE, 0),
+(5, 'KRDMD', 'Kardemir Karabuk Demir Celik', 22100000, FALSE, 0);
+
+
+INSERT INTO customer (id, name, surname, email, username, password, role, is_deleted, token_version)
+VALUES (1, 'Admin', 'User', 'admin@mail.com', 'admin', '$2a$10$NYLEoVXc1IKdVvi34tJfBeA8YAqzI3fSQEbVS9lyIYGCeaCrB8pRq', 'ROLE_ADMIN', FALSE, 0);
@@ -0,0 +1,2 @@
+-- backs the all-customer order export, which reads a date range in (created_date, id) order
+create index idx_orders_created on orders (created_date, id);
@@ -0,0 +1,18 @@
+-- every balance movement is appended here; asset.size and asset.usable_size become a snapshot of
+-- the entries up to asset.ledger_position and the balance is that snapshot plus the later entries
+create sequence ledger_entry_seq start with 1 increment by 50;
+
+create table ledger_entry (
+    id bigint not null,
+    customer_id bigint not null,
+    asset_name varchar(255) not null,
+    entry_type enum ('CREDIT', 'DEBIT', 'RELEASE', 'RESERVE') not null,
+    amount bigint not null,
+    created_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+-- the tail of one position is a range scan on this index
+create index idx_ledger_customer_asset on ledger_entry (customer_id, asset_name, id);
+
+alter table asset add column ledger_position bigint default 0 not null;
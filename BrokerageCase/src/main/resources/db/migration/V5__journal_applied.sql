@@ -0,0 +1,6 @@
+-- sequences of journaled commands whose transaction committed; written in that same transaction so
+-- replaying the journal after a crash skips them, and pruned up to the journal checkpoint
+create table journal_applied (
+    sequence bigint not null,
+    primary key (sequence)
+);
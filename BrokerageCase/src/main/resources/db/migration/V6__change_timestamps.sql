@@ -0,0 +1,5 @@
+-- rows changed after a state snapshot was taken are read back by these timestamps on startup
+alter table orders add column updated_at timestamp(6) with time zone default current_timestamp not null;
+create index idx_orders_updated on orders (updated_at);
+
+alter table asset_list add column updated_at timestamp(6) with time zone default current_timestamp not null;
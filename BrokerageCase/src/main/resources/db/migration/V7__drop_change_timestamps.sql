@@ -0,0 +1,5 @@
+-- a state snapshot now catches up from the command journal, so nothing reads these any more
+drop index idx_orders_updated;
+alter table orders drop column updated_at;
+
+alter table asset_list drop column updated_at;
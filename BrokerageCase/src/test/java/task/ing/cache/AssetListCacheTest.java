@@ -0,0 +1,74 @@
+package task.ing.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import task.ing.model.entity.AssetList;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetListRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AssetListCacheTest {
+
+    @Mock
+    private AssetListRepository assetListRepository;
+
+    @Test
+    void find_shouldLoadTableOnceAndServeFromSnapshot() {
+        when(assetListRepository.findAll()).thenReturn(List.of(
+                assetList(1L, "TRY", Amount.of(1), false),
+                assetList(2L, "ASELS", Amount.of(45), false),
+                assetList(3L, "SISE", Amount.of(35), true)));
+        AssetListCache cache = new AssetListCache(assetListRepository);
+
+        assertEquals(Amount.of(45), cache.find("ASELS").orElseThrow().currentPrice());
+        assertTrue(cache.find("SISE").orElseThrow().isDeleted());
+        assertTrue(cache.find("THYAO").isEmpty());
+        assertEquals(List.of("TRY", "ASELS"),
+                cache.activeAssets().stream().map(asset -> asset.assetName()).toList());
+
+        verify(assetListRepository, times(1)).findAll();
+    }
+
+    @Test
+    void updatePriceAfterCommit_shouldSwapPriceWithoutReload() {
+        when(assetListRepository.findAll()).thenReturn(List.of(assetList(2L, "ASELS", Amount.of(45), false)));
+        AssetListCache cache = new AssetListCache(assetListRepository);
+        AssetListEntry before = cache.find("ASELS").orElseThrow();
+
+        cache.updatePriceAfterCommit("ASELS", Amount.of(43));
+
+        assertEquals(Amount.of(45), before.currentPrice());
+        assertEquals(Amount.of(43), cache.find("ASELS").orElseThrow().currentPrice());
+        assertEquals(Amount.of(43), cache.activeAssets().get(0).currentPrice());
+        verify(assetListRepository, times(1)).findAll();
+    }
+
+    @Test
+    void reloadAfterCommit_shouldPickUpAdminChanges() {
+        when(assetListRepository.findAll())
+                .thenReturn(List.of(assetList(2L, "ASELS", Amount.of(45), false)))
+                .thenReturn(List.of(assetList(2L, "ASELS", Amount.of(45), true)));
+        AssetListCache cache = new AssetListCache(assetListRepository);
+        assertEquals(1, cache.activeAssets().size());
+
+        cache.reloadAfterCommit();
+
+        assertTrue(cache.activeAssets().isEmpty());
+    }
+
+    private static AssetList assetList(Long id, String name, Amount price, boolean deleted) {
+        AssetList assetList = new AssetList();
+        assetList.setId(id);
+        assetList.setAssetName(name);
+        assetList.setCurrentPrice(price);
+        assetList.setDeleted(deleted);
+        return assetList;
+    }
+}
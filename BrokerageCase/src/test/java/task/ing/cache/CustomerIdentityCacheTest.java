@@ -0,0 +1,88 @@
+package task.ing.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import task.ing.model.enums.Role;
+import task.ing.repository.CustomerRepository;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerIdentityCacheTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Test
+    void resolve_shouldLoadIdentityOnce() {
+        CustomerIdentityCache cache = new CustomerIdentityCache(customerRepository, 10);
+        CustomerIdentity alice = new CustomerIdentity(1L, Role.ROLE_USER, false);
+        when(customerRepository.findIdentityByUsername("alice")).thenReturn(Optional.of(alice));
+
+        assertEquals(alice, cache.resolve("alice").orElseThrow());
+        assertEquals(alice, cache.resolve("alice").orElseThrow());
+
+        verify(customerRepository, times(1)).findIdentityByUsername("alice");
+    }
+
+    @Test
+    void resolve_shouldNotCacheUnknownUsernames() {
+        CustomerIdentityCache cache = new CustomerIdentityCache(customerRepository, 10);
+        when(customerRepository.findIdentityByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertTrue(cache.resolve("ghost").isEmpty());
+        assertTrue(cache.resolve("ghost").isEmpty());
+
+        assertEquals(0, cache.size());
+        verify(customerRepository, times(2)).findIdentityByUsername("ghost");
+    }
+
+    @Test
+    void resolve_shouldEvictLeastRecentlyUsedEntry() {
+        CustomerIdentityCache cache = new CustomerIdentityCache(customerRepository, 2);
+        when(customerRepository.findIdentityByUsername(anyString()))
+                .thenAnswer(invocation -> Optional.of(new CustomerIdentity(1L, Role.ROLE_USER, false)));
+
+        cache.resolve("alice");
+        cache.resolve("bob");
+        cache.resolve("alice");
+        cache.resolve("carol");
+        cache.resolve("alice");
+        cache.resolve("bob");
+
+        assertEquals(2, cache.size());
+        verify(customerRepository, times(1)).findIdentityByUsername("alice");
+        verify(customerRepository, times(2)).findIdentityByUsername("bob");
+    }
+
+    @Test
+    void invalidate_shouldReloadOnNextResolve() {
+        CustomerIdentityCache cache = new CustomerIdentityCache(customerRepository, 10);
+        when(customerRepository.findIdentityByUsername("alice"))
+                .thenReturn(Optional.of(new CustomerIdentity(1L, Role.ROLE_USER, false)));
+
+        cache.resolve("alice");
+        cache.invalidate("alice");
+        cache.resolve("alice");
+
+        verify(customerRepository, times(2)).findIdentityByUsername("alice");
+    }
+
+    @Test
+    void resolve_shouldNotCacheARowLoadedWhileItWasInvalidated() {
+        CustomerIdentityCache cache = new CustomerIdentityCache(customerRepository, 10);
+        when(customerRepository.findIdentityByUsername("alice")).thenAnswer(invocation -> {
+            // the update commits and invalidates while this stale row is on its way back
+            cache.invalidate("alice");
+            return Optional.of(new CustomerIdentity(1L, Role.ROLE_USER, false));
+        });
+
+        assertTrue(cache.resolve("alice").isPresent());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,66 @@
+package task.ing.concurrency;
+
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkheadInterceptorTest {
+
+    private final Bulkhead bulkhead = new Bulkhead("test", 2, Duration.ofMillis(10));
+    private final BulkheadInterceptor interceptor = new BulkheadInterceptor(bulkhead);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void shouldHoldPermitUntilRequestCompletes() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        interceptor.preHandle(request, response, null);
+        assertEquals(1, bulkhead.availablePermits());
+
+        interceptor.afterCompletion(request, response, null, null);
+        interceptor.afterCompletion(request, response, null, null);
+        assertEquals(2, bulkhead.availablePermits());
+    }
+
+    @Test
+    void shouldHoldPermitUntilAsyncDispatchCompletesAndNotTakeAnother() {
+        MockHttpServletRequest request = startAsync();
+        assertEquals(1, bulkhead.availablePermits());
+
+        request.setDispatcherType(DispatcherType.ASYNC);
+        request.setAsyncStarted(false);
+        interceptor.preHandle(request, response, null);
+        assertEquals(1, bulkhead.availablePermits());
+
+        interceptor.afterCompletion(request, response, null, null);
+        assertEquals(2, bulkhead.availablePermits());
+
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(2, bulkhead.availablePermits());
+    }
+
+    @Test
+    void shouldReleasePermitWhenAsyncProcessingEndsWithoutADispatch() {
+        MockHttpServletRequest request = startAsync();
+        assertEquals(1, bulkhead.availablePermits());
+
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(2, bulkhead.availablePermits());
+    }
+
+    // a streamed response: the handler returned and the body is written asynchronously
+    private MockHttpServletRequest startAsync() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        interceptor.preHandle(request, response, null);
+        request.startAsync();
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        return request;
+    }
+}
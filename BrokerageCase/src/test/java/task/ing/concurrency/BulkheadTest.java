@@ -0,0 +1,40 @@
+package task.ing.concurrency;
+
+import org.junit.jupiter.api.Test;
+import task.ing.exceptions.ServiceBusyException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    @Test
+    void acquire_shouldTurnCallerAwayWhenNoPermitFreesUpInTime() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, Duration.ofMillis(10));
+        bulkhead.acquire();
+
+        assertThrows(ServiceBusyException.class, bulkhead::acquire);
+
+        bulkhead.release();
+        bulkhead.acquire();
+        assertEquals(0, bulkhead.availablePermits());
+    }
+
+    @Test
+    void call_shouldReleasePermitWhenActionThrows() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, Duration.ofMillis(10));
+
+        assertThrows(IllegalStateException.class, () -> bulkhead.call(() -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1, bulkhead.availablePermits());
+        assertEquals("done", bulkhead.call(() -> "done"));
+    }
+
+    @Test
+    void constructor_shouldRejectBulkheadWithoutPermits() {
+        assertThrows(IllegalArgumentException.class, () -> new Bulkhead("test", 0, Duration.ofMillis(10)));
+    }
+}
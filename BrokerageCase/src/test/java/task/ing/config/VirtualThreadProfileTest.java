@@ -0,0 +1,58 @@
+package task.ing.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import task.ing.concurrency.Bulkhead;
+import task.ing.security.BoundedPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:virtual-profile")
+@AutoConfigureMockMvc
+@ActiveProfiles("virtual")
+class VirtualThreadProfileTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    @Qualifier("requestBulkhead")
+    private Bulkhead requestBulkhead;
+
+    @Test
+    void taskExecutorShouldRunOnVirtualThreads() throws Exception {
+        assertTrue(applicationTaskExecutor.submit(() -> Thread.currentThread().isVirtual()).get());
+    }
+
+    @Test
+    void registerAndLoginShouldPassThroughTheBulkheads() throws Exception {
+        assertInstanceOf(BoundedPasswordEncoder.class, passwordEncoder);
+
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"name":"Virtual","surname":"User","email":"virtual@mail.com","username":"virtualuser","password":"secret1"}
+                        """))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"username":"virtualuser","password":"secret1"}
+                        """))
+                .andExpect(status().isOk());
+
+        assertEquals(64, requestBulkhead.availablePermits());
+    }
+}
@@ -0,0 +1,366 @@
+package task.ing.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.function.ThrowingConsumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import task.ing.cache.AssetListCache;
+import task.ing.jdbc.StatementBudget;
+import task.ing.ledger.BalanceBook;
+import task.ing.jdbc.StatementCounter;
+import task.ing.mapper.OrderMapper;
+import task.ing.metrics.PendingOrderMetrics;
+import task.ing.model.dto.request.AssetListRequestDto;
+import task.ing.model.dto.request.CustomerRequestDto;
+import task.ing.model.dto.request.LoginRequestDto;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.entity.Order;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.SubmissionStatus;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetListRepository;
+import task.ing.repository.CustomerRepository;
+import task.ing.repository.OrderRepository;
+import task.ing.security.JwtUtil;
+import task.ing.service.AssetListService;
+import task.ing.service.CustomerService;
+import task.ing.service.OrderIntakeService;
+import task.ing.service.OrderService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Statement budget of every controller endpoint. Each request is sent once to warm the caches and
+ * then counted; state a request consumes, such as the order it cancels, is prepared outside the
+ * count. A budget that no longer holds means a change added queries to that endpoint.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-budget",
+        "brokerage.ledger.snapshot-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ControllerStatementBudgetTest {
+
+    private static final String TRADER = "budgettrader";
+    private static final String COUNTERPARTY = "budgetcounter";
+    private static final String PASSWORD = "secret1";
+    private static final String ASSET = "THYAO";
+
+    // the pending order gauges would query on their own schedule
+    @MockitoBean
+    private PendingOrderMetrics pendingOrderMetrics;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AssetListService assetListService;
+
+    @Autowired
+    private AssetListCache assetListCache;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private BalanceBook balanceBook;
+
+    @Autowired
+    private AssetListRepository assetListRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private String adminToken;
+    private String traderToken;
+    private Long traderId;
+
+    @BeforeAll
+    void setUp() {
+        customerService.createCustomer(new CustomerRequestDto("Budget", "Trader", "trader@budget.com", TRADER, PASSWORD));
+        customerService.createCustomer(new CustomerRequestDto("Budget", "Counter", "counter@budget.com", COUNTERPARTY, PASSWORD));
+
+        for (String username : List.of(TRADER, COUNTERPARTY)) {
+            orderService.depositForCurrentUser(Amount.of(1_000_000), username);
+            orderService.createOrder(new OrderRequestDto(ASSET, listedPrice(), Amount.of(100), OrderSide.BUY), username);
+        }
+        orderService.createOrder(new OrderRequestDto(ASSET, Amount.of(100), Amount.of(1), OrderSide.BUY), TRADER);
+
+        adminToken = token(1L);
+        traderId = customerRepository.findByUsername(TRADER).orElseThrow().getId();
+        traderToken = token(traderId);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> everyEndpointStaysWithinItsBudget() {
+        return endpoints().entrySet().stream()
+                .map(endpoint -> DynamicTest.dynamicTest(endpoint.getKey(), () -> {
+                    Endpoint budget = endpoint.getValue();
+                    send(budget.request().get());
+
+                    MockHttpServletRequestBuilder request = budget.request().get();
+                    StatementBudget.assertAtMost(statementCounter, budget.statements(), endpoint.getKey(),
+                            () -> budget.settle().accept(send(request)));
+                }));
+    }
+
+    @Test
+    void everyHandlerMethodHasABudget() {
+        TreeSet<String> handlers = new TreeSet<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> mapping : handlerMapping.getHandlerMethods().entrySet()) {
+            RequestMappingInfo info = mapping.getKey();
+            if (!mapping.getValue().getBeanType().getPackageName().equals(getClass().getPackageName())) {
+                continue;
+            }
+            info.getMethodsCondition().getMethods().forEach(method ->
+                    info.getPathPatternsCondition().getPatternValues().forEach(pattern ->
+                            handlers.add(method + " " + pattern)));
+        }
+
+        assertEquals(handlers, new TreeSet<>(endpoints().keySet()));
+    }
+
+    private Map<String, Endpoint> endpoints() {
+        LocalDate today = LocalDate.now();
+        String range = "start=" + today.minusDays(1) + "&end=" + today.plusDays(1);
+        String customerRange = "customerId=" + traderId + "&" + range;
+
+        Map<String, Endpoint> endpoints = new TreeMap<>();
+
+        endpoints.put("GET /api/assets", new Endpoint(1, () -> get("/api/assets").with(as(traderToken))));
+        endpoints.put("GET /api/assets/admin/all", new Endpoint(1, () -> get("/api/assets/admin/all").with(as(adminToken))));
+        endpoints.put("GET /api/assets/admin/page", new Endpoint(2, () -> get("/api/assets/admin/page?limit=100").with(as(adminToken))));
+        endpoints.put("GET /api/assets/admin/positions/export", new Endpoint(1,
+                () -> get("/api/assets/admin/positions/export?format=csv").with(as(adminToken))));
+
+        endpoints.put("GET /api/assetlist/all", new Endpoint(0, () -> get("/api/assetlist/all").with(as(traderToken))));
+        endpoints.put("POST /api/assetlist/admin", new Endpoint(3,
+                () -> json(post("/api/assetlist/admin"), newAssetRequest()).with(as(adminToken))));
+        endpoints.put("PUT /api/assetlist/admin/{id}", new Endpoint(3, () -> {
+            Long id = assetListService.addAsset(newAssetRequest()).id();
+            return json(put("/api/assetlist/admin/" + id), newAssetRequest()).with(as(adminToken));
+        }));
+        endpoints.put("DELETE /api/assetlist/admin/{id}", new Endpoint(3, () -> {
+            Long id = assetListService.addAsset(newAssetRequest()).id();
+            return delete("/api/assetlist/admin/" + id).with(as(adminToken));
+        }));
+        endpoints.put("PATCH /api/assetlist/admin/{id}", new Endpoint(3, () -> {
+            Long id = assetListService.addAsset(newAssetRequest()).id();
+            assetListService.softDeleteAsset(id);
+            return patch("/api/assetlist/admin/" + id).with(as(adminToken));
+        }));
+
+        endpoints.put("POST /api/auth/register", new Endpoint(4, () -> json(post("/api/auth/register"), newCustomerRequest())));
+        endpoints.put("POST /api/auth/login", new Endpoint(2,
+                () -> json(post("/api/auth/login"), new LoginRequestDto(TRADER, PASSWORD))));
+
+        // updating a customer revokes its tokens, so each update gets a customer of its own
+        endpoints.put("PUT /api/customers/admin/{id}", new Endpoint(2, () -> {
+            Long id = customerService.createCustomer(newCustomerRequest()).id();
+            return json(put("/api/customers/admin/" + id), newCustomerRequest()).with(as(adminToken));
+        }));
+        endpoints.put("PUT /api/customers/info", new Endpoint(3, () -> {
+            Long id = customerService.createCustomer(newCustomerRequest()).id();
+            return json(put("/api/customers/info"), newCustomerRequest()).with(as(token(id)));
+        }));
+        endpoints.put("GET /api/customers/admin/{id}", new Endpoint(1,
+                () -> get("/api/customers/admin/" + traderId).with(as(adminToken))));
+        endpoints.put("GET /api/customers/info", new Endpoint(1, () -> get("/api/customers/info").with(as(traderToken))));
+
+        endpoints.put("POST /api/orders", new Endpoint(4, () -> json(post("/api/orders"), pendingBuy()).with(as(traderToken))));
+        // counted until the worker has placed the order, so the budget covers the queued write too
+        endpoints.put("POST /api/orders/async", new Endpoint(10,
+                () -> json(post("/api/orders/async"), pendingBuy()).with(as(traderToken)),
+                result -> awaitDecided(UUID.fromString(JsonPath.read(result.getResponse().getContentAsString(), "$.ticket")))));
+        endpoints.put("GET /api/orders/submissions/{ticket}", new Endpoint(0,
+                () -> get("/api/orders/submissions/" + decidedSubmission()).with(as(traderToken))));
+        endpoints.put("GET /api/orders/submissions/{ticket}/events", new Endpoint(0,
+                () -> get("/api/orders/submissions/" + decidedSubmission() + "/events").with(as(traderToken))));
+        endpoints.put("POST /api/orders/batch", new Endpoint(5,
+                () -> json(post("/api/orders/batch"), List.of(pendingBuy(), pendingBuy(), pendingBuy())).with(as(traderToken))));
+        endpoints.put("GET /api/orders/my-orders", new Endpoint(1,
+                () -> get("/api/orders/my-orders?" + range).with(as(traderToken))));
+        endpoints.put("GET /api/orders/my-orders/page", new Endpoint(1,
+                () -> get("/api/orders/my-orders/page?limit=100&" + range).with(as(traderToken))));
+        endpoints.put("GET /api/orders/my-orders/stream", new Endpoint(1,
+                () -> get("/api/orders/my-orders/stream?" + range).with(as(traderToken))));
+        endpoints.put("GET /api/orders/admin/orders", new Endpoint(2,
+                () -> get("/api/orders/admin/orders?" + customerRange).with(as(adminToken))));
+        endpoints.put("GET /api/orders/admin/orders/page", new Endpoint(2,
+                () -> get("/api/orders/admin/orders/page?limit=100&" + customerRange).with(as(adminToken))));
+        endpoints.put("GET /api/orders/admin/orders/stream", new Endpoint(2,
+                () -> get("/api/orders/admin/orders/stream?" + customerRange).with(as(adminToken))));
+        endpoints.put("GET /api/orders/admin/orders/export", new Endpoint(1,
+                () -> get("/api/orders/admin/orders/export?format=csv&" + range).with(as(adminToken))));
+        endpoints.put("DELETE /api/orders/{orderId}", new Endpoint(3, () -> {
+            Long id = orderService.createOrder(pendingBuy(), TRADER).id();
+            return delete("/api/orders/" + id).with(as(traderToken));
+        }));
+        endpoints.put("POST /api/orders/deposit", new Endpoint(3,
+                () -> post("/api/orders/deposit?amount=100").with(as(traderToken))));
+        endpoints.put("POST /api/orders/withdraw", new Endpoint(4,
+                () -> post("/api/orders/withdraw?amount=1").with(as(traderToken))));
+        endpoints.put("POST /api/orders/admin/match", new Endpoint(12, () -> {
+            Long buyId = placeDirectly(TRADER, OrderSide.BUY);
+            Long sellId = placeDirectly(COUNTERPARTY, OrderSide.SELL);
+            return post("/api/orders/admin/match?buyOrderId=" + buyId + "&sellOrderId=" + sellId).with(as(adminToken));
+        }));
+
+        return endpoints;
+    }
+
+    private MvcResult send(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        int status = result.getResponse().getStatus();
+        assertTrue(status >= 200 && status < 300, () -> "answered " + status);
+        return result;
+    }
+
+    private UUID decidedSubmission() {
+        UUID ticket = orderIntakeService.submit(pendingBuy(), TRADER).ticket();
+        awaitDecided(ticket);
+        return ticket;
+    }
+
+    private void awaitDecided(UUID ticket) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (orderIntakeService.getSubmission(ticket, TRADER).status() == SubmissionStatus.QUEUED) {
+            assertTrue(System.currentTimeMillis() < deadline, "submission " + ticket + " was not placed in time");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static RequestPostProcessor as(String token) {
+        return request -> {
+            request.addHeader("Authorization", "Bearer " + token);
+            return request;
+        };
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) {
+        try {
+            return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsBytes(body));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String token(Long customerId) {
+        return jwtUtil.generateToken(customerRepository.findById(customerId).orElseThrow());
+    }
+
+    private Amount listedPrice() {
+        return assetListCache.find(ASSET).orElseThrow().currentPrice();
+    }
+
+    // far below the listed price, so it rests in the book
+    private static OrderRequestDto pendingBuy() {
+        return new OrderRequestDto(ASSET, Amount.of(100), Amount.of(1), OrderSide.BUY);
+    }
+
+    private AssetListRequestDto newAssetRequest() {
+        StringBuilder name = new StringBuilder("BG");
+        for (int n = sequence.incrementAndGet(); n > 0; n /= 26) {
+            name.append((char) ('A' + n % 26));
+        }
+        return new AssetListRequestDto(name.toString(), "Budget asset", Amount.of(10));
+    }
+
+    private CustomerRequestDto newCustomerRequest() {
+        String username = "budget" + sequence.incrementAndGet();
+        return new CustomerRequestDto("Budget", "Customer", username + "@budget.com", username, PASSWORD);
+    }
+
+    /**
+     * A crossing buy and sell. Placing them through the service would let the matching engine fill
+     * them before the admin could.
+     */
+    private Long placeDirectly(String username, OrderSide side) {
+        Long customerId = customerRepository.findByUsername(username).orElseThrow().getId();
+        Long assetListId = assetListCache.find(ASSET).orElseThrow().id();
+        Amount price = Amount.of(110);
+        OrderRequestDto dto = new OrderRequestDto(ASSET, price, Amount.of(1), side);
+
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            if (side == OrderSide.BUY) {
+                balanceBook.reserve(customerId, OrderService.TRY, price);
+            } else {
+                balanceBook.reserve(customerId, ASSET, Amount.of(1));
+            }
+            Order order = OrderMapper.toEntity(dto, assetListRepository.getReferenceById(assetListId),
+                    customerRepository.getReferenceById(customerId));
+            return orderRepository.save(order).getId();
+        });
+    }
+
+    private record Endpoint(long statements, Supplier<MockHttpServletRequestBuilder> request,
+                            ThrowingConsumer<MvcResult> settle) {
+
+        Endpoint(long statements, Supplier<MockHttpServletRequestBuilder> request) {
+            this(statements, request, result -> {
+            });
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package task.ing.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportResponsesTest {
+
+    @Test
+    void acceptsGzip_shouldFollowTheListedCodingsAndTheirWeights() {
+        assertTrue(ExportResponses.acceptsGzip("gzip"));
+        assertTrue(ExportResponses.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(ExportResponses.acceptsGzip("br;q=1.0, x-gzip"));
+        assertTrue(ExportResponses.acceptsGzip("identity, *;q=0.1"));
+
+        assertFalse(ExportResponses.acceptsGzip(null));
+        assertFalse(ExportResponses.acceptsGzip(""));
+        assertFalse(ExportResponses.acceptsGzip("gzip;q=0"));
+        assertFalse(ExportResponses.acceptsGzip("gzip; q=0.000, deflate"));
+        assertFalse(ExportResponses.acceptsGzip("*, gzip;q=0"));
+        assertFalse(ExportResponses.acceptsGzip("identity, *;q=0"));
+        assertFalse(ExportResponses.acceptsGzip("gzip;q=high"));
+        assertFalse(ExportResponses.acceptsGzip("x-gzipped, notgzip"));
+    }
+}
@@ -0,0 +1,51 @@
+package task.ing.engine;
+
+import org.junit.jupiter.api.Test;
+import task.ing.model.enums.OrderStatus;
+import task.ing.repository.OrderRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MatchingEngineTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final MatchingEngine matchingEngine = new MatchingEngine(orderRepository);
+
+    @Test
+    void getBook_shouldLoadOutsideTheMapSoOtherCallersDoNotWaitForTheQuery() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        when(orderRepository.findByAssetNameAndOrderStatusOrderByIdAsc("ASELS", OrderStatus.PENDING)).thenAnswer(invocation -> {
+            loading.countDown();
+            finish.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<OrderBook> loaded = executor.submit(() -> matchingEngine.getBook("ASELS"));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            // removing the key would wait for a load running inside computeIfAbsent
+            CompletableFuture.runAsync(() -> matchingEngine.invalidate("ASELS")).get(1, TimeUnit.SECONDS);
+            OrderBook installed = new OrderBook("ASELS");
+            matchingEngine.install(installed);
+
+            finish.countDown();
+            assertSame(installed, loaded.get(5, TimeUnit.SECONDS));
+            assertSame(installed, matchingEngine.getBook("ASELS"));
+        } finally {
+            finish.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
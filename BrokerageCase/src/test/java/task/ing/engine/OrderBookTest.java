@@ -0,0 +1,104 @@
+package task.ing.engine;
+
+import org.junit.jupiter.api.Test;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private final OrderBook book = new OrderBook("ASELS");
+
+    @Test
+    void match_shouldReturnNoFills_whenBookIsEmpty() {
+        MatchResult result = book.match(OrderSide.BUY, Amount.of(45), Amount.of(10));
+
+        assertTrue(result.fills().isEmpty());
+        assertEquals(Amount.of(10), result.remainingSize());
+    }
+
+    @Test
+    void match_shouldNotCross_whenPricesDoNotOverlap() {
+        book.add(1L, OrderSide.SELL, Amount.of(46), Amount.of(5));
+
+        MatchResult result = book.match(OrderSide.BUY, Amount.of(45), Amount.of(5));
+
+        assertTrue(result.fills().isEmpty());
+        assertTrue(book.contains(1L));
+    }
+
+    @Test
+    void match_shouldFillBestPriceFirst_atRestingPrice() {
+        book.add(1L, OrderSide.SELL, Amount.of(47), Amount.of(5));
+        book.add(2L, OrderSide.SELL, Amount.of(45), Amount.of(5));
+        book.add(3L, OrderSide.SELL, Amount.of(46), Amount.of(5));
+
+        MatchResult result = book.match(OrderSide.BUY, Amount.of(46), Amount.of(8));
+
+        assertEquals(2, result.fills().size());
+        assertEquals(new Fill(2L, Amount.of(45), Amount.of(5), Amount.of(0)), result.fills().get(0));
+        assertEquals(new Fill(3L, Amount.of(46), Amount.of(3), Amount.of(2)), result.fills().get(1));
+        assertTrue(result.isFullyFilled());
+        assertFalse(book.contains(2L));
+        assertTrue(book.contains(3L));
+        assertEquals(Amount.of(46), book.bestAsk().orElseThrow());
+    }
+
+    @Test
+    void match_shouldFillSamePriceInArrivalOrder() {
+        book.add(1L, OrderSide.BUY, Amount.of(45), Amount.of(2));
+        book.add(2L, OrderSide.BUY, Amount.of(45), Amount.of(2));
+
+        MatchResult result = book.match(OrderSide.SELL, Amount.of(45), Amount.of(3));
+
+        assertEquals(1L, result.fills().get(0).restingOrderId());
+        assertEquals(2L, result.fills().get(1).restingOrderId());
+        assertEquals(Amount.of(1), result.fills().get(1).restingRemainingSize());
+    }
+
+    @Test
+    void match_shouldLeaveRemainder_whenLiquidityRunsOut() {
+        book.add(1L, OrderSide.BUY, Amount.of(50), Amount.of(2));
+
+        MatchResult result = book.match(OrderSide.SELL, Amount.of(45), Amount.of(5));
+
+        assertEquals(1, result.fills().size());
+        assertEquals(Amount.of(50), result.fills().get(0).price());
+        assertEquals(Amount.of(3), result.remainingSize());
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    void remove_shouldDropOrderAndEmptyLevel() {
+        book.add(1L, OrderSide.BUY, Amount.of(45), Amount.of(2));
+
+        assertTrue(book.remove(1L));
+        assertFalse(book.remove(1L));
+        assertTrue(book.bestBid().isEmpty());
+    }
+
+    @Test
+    void updateRemainingSize_shouldKeepQueuePosition() {
+        book.add(1L, OrderSide.SELL, Amount.of(45), Amount.of(5));
+        book.add(2L, OrderSide.SELL, Amount.of(45), Amount.of(5));
+        book.updateRemainingSize(1L, Amount.of(1));
+
+        MatchResult result = book.match(OrderSide.BUY, Amount.of(45), Amount.of(2));
+
+        assertEquals(new Fill(1L, Amount.of(45), Amount.of(1), Amount.of(0)), result.fills().get(0));
+        assertEquals(new Fill(2L, Amount.of(45), Amount.of(1), Amount.of(4)), result.fills().get(1));
+    }
+
+    @Test
+    void match_shouldFillFractionalSizesExactly() {
+        book.add(1L, OrderSide.SELL, Amount.valueOf("45.75"), Amount.valueOf("0.3"));
+        book.add(2L, OrderSide.SELL, Amount.valueOf("45.75"), Amount.valueOf("0.2"));
+
+        MatchResult result = book.match(OrderSide.BUY, Amount.valueOf("45.75"), Amount.valueOf("0.5"));
+
+        assertTrue(result.isFullyFilled());
+        assertEquals(Amount.ZERO, result.remainingSize());
+        assertEquals(0, book.size());
+    }
+}
@@ -0,0 +1,143 @@
+package task.ing.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import task.ing.exceptions.ServiceBusyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderSequencerTest {
+
+    private final OrderSequencer sequencer = new OrderSequencer(2, 8, 200);
+
+    @BeforeEach
+    void setUp() {
+        sequencer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        sequencer.stop();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void execute_shouldRunCommandsOfSameAssetOnOneThreadInOrder() throws Exception {
+        int producers = 8;
+        int commandsPerProducer = 500;
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<Integer> executed = new ArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < commandsPerProducer; i++) {
+                    int value = i;
+                    sequencer.execute(CommandType.ORDER, "ASELS", () -> {
+                        threads.add(Thread.currentThread().getName());
+                        executed.add(value);
+                        return value;
+                    });
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(producers * commandsPerProducer, executed.size());
+        assertEquals(1, threads.size());
+        assertTrue(threads.iterator().next().startsWith("order-sequencer-"));
+    }
+
+    @Test
+    void execute_shouldRethrowCommandException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> sequencer.execute(CommandType.CANCEL, "ASELS", () -> {
+                    throw new IllegalArgumentException("Only pending orders can be cancelled");
+                }));
+
+        assertEquals("Only pending orders can be cancelled", exception.getMessage());
+    }
+
+    @Test
+    void execute_shouldPropagateSecurityContextToShardThread() {
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken("testUser", null, List.of()));
+
+        String username = sequencer.execute(CommandType.DEPOSIT, "TRY",
+                () -> SecurityContextHolder.getContext().getAuthentication().getName());
+
+        assertEquals("testUser", username);
+    }
+
+    @Test
+    void execute_shouldDropACommandThatDidNotStartInTime() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocker = sequencer.submit(CommandType.ORDER, "ASELS",
+                () -> awaitQuietly(release));
+        AtomicBoolean ran = new AtomicBoolean();
+
+        assertThrows(ServiceBusyException.class,
+                () -> sequencer.execute(CommandType.ORDER, "ASELS", () -> ran.getAndSet(true)));
+
+        release.countDown();
+        assertTrue(blocker.get(5, TimeUnit.SECONDS));
+        assertEquals(1, sequencer.execute(CommandType.ORDER, "ASELS", () -> 1));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void execute_shouldWaitForACommandThatStartedBeforeTheTimeout() {
+        String result = sequencer.execute(CommandType.ORDER, "ASELS", () -> {
+            sleepQuietly(500);
+            return "committed";
+        });
+
+        assertEquals("committed", result);
+    }
+
+    @Test
+    void stop_shouldDrainPublishedCommands() throws Exception {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            int value = i;
+            futures.add(sequencer.submit(CommandType.ORDER, "THYAO", () -> value));
+        }
+
+        sequencer.stop();
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertThrows(IllegalStateException.class, () -> sequencer.submit(CommandType.ORDER, "THYAO", () -> 0));
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
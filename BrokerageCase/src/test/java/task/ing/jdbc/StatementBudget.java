@@ -0,0 +1,32 @@
+package task.ing.jdbc;
+
+import org.junit.jupiter.api.function.Executable;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Asserts that a call stays within a number of statements. Everything the call causes is counted,
+ * including statements the order sequencer or an async response body executes on other threads, so
+ * nothing else may use the database while it runs.
+ */
+public final class StatementBudget {
+
+    private StatementBudget() {
+    }
+
+    /**
+     * Runs the call and fails when it executed more than {@code budget} statements.
+     *
+     * @return the statements the call executed
+     */
+    public static long assertAtMost(StatementCounter counter, long budget, String description, Executable call)
+            throws Throwable {
+        long before = counter.total();
+        call.execute();
+        long statements = counter.total() - before;
+
+        assertTrue(statements <= budget,
+                () -> description + " executed " + statements + " statements, budget is " + budget);
+        return statements;
+    }
+}
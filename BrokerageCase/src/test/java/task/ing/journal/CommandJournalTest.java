@@ -0,0 +1,216 @@
+package task.ing.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.ing.journal.JournalCommand.CancelOrder;
+import task.ing.journal.JournalCommand.Deposit;
+import task.ing.journal.JournalCommand.MatchOrders;
+import task.ing.journal.JournalCommand.PlaceOrders;
+import task.ing.journal.JournalCommand.Withdraw;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandJournalTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    private Path directory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private CommandJournal journal;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void reopen_shouldRecoverEveryCommandTypeWithoutADoneRecord() throws Exception {
+        List<JournalCommand> commands = List.of(
+                new PlaceOrders("alice", "ASELS", List.of(
+                        new OrderRequestDto("ASELS", Amount.valueOf("41.25"), Amount.of(10), OrderSide.BUY),
+                        new OrderRequestDto("ASELS", Amount.of(45), Amount.valueOf("0.001"), OrderSide.SELL))),
+                new CancelOrder("alice", 42),
+                new Deposit("bob", Amount.valueOf("1500.5")),
+                new Withdraw("bob", Amount.of(200)),
+                new MatchOrders("admin", 7, 8));
+
+        journal = open(FsyncPolicy.ALWAYS);
+        List<Long> sequences = journal.appendAll(commands);
+        journal.done(sequences.get(1));
+        reopen(FsyncPolicy.ALWAYS);
+
+        List<JournalEntry> recovered = journal.recovered();
+        assertEquals(List.of(1L, 3L, 4L, 5L), recovered.stream().map(JournalEntry::sequence).toList());
+        assertEquals(List.of(commands.get(0), commands.get(2), commands.get(3), commands.get(4)),
+                recovered.stream().map(JournalEntry::command).toList());
+        assertEquals(6L, journal.append(new Deposit("bob", Amount.of(1))));
+    }
+
+    @Test
+    void checkpoint_shouldDeleteSegmentsItLeftBehindAndKeepTheSequence() throws Exception {
+        journal = open(FsyncPolicy.NEVER);
+        List<Long> sequences = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            sequences.add(journal.append(largeOrder()));
+        }
+        assertTrue(segments() > 2);
+
+        Long undecided = sequences.remove(60);
+        sequences.forEach(journal::done);
+        journal.checkpoint();
+        assertEquals(undecided - 1, journal.checkpointSequence());
+        long keptWithUndecided = segments();
+
+        journal.done(undecided);
+        journal.checkpoint();
+        assertEquals(100L, journal.checkpointSequence());
+        assertTrue(segments() < keptWithUndecided);
+
+        reopen(FsyncPolicy.NEVER);
+        assertTrue(journal.recovered().isEmpty());
+        assertEquals(101L, journal.append(new CancelOrder("alice", 1)));
+    }
+
+    @Test
+    void commandsAfter_shouldReadBackTheRetainedCommandsUntilTheyAreReleased() throws Exception {
+        journal = open(FsyncPolicy.NEVER);
+        for (int i = 0; i < 100; i++) {
+            journal.done(journal.append(largeOrder()));
+        }
+        journal.retainAfter(10);
+        journal.checkpoint();
+        assertEquals(100L, journal.checkpointSequence());
+
+        reopen(FsyncPolicy.NEVER);
+        List<JournalEntry> commands = journal.commandsAfter(10).orElseThrow();
+        assertEquals(LongStream.rangeClosed(11, 100).boxed().toList(),
+                commands.stream().map(JournalEntry::sequence).toList());
+        assertEquals(largeOrder(), commands.get(0).command());
+        assertEquals(Optional.of(List.of()), journal.commandsAfter(100));
+        assertEquals(Optional.empty(), journal.commandsAfter(101));
+
+        journal.retainAfter(90);
+        journal.checkpoint();
+        assertEquals(Optional.empty(), journal.commandsAfter(10));
+        assertEquals(10, journal.commandsAfter(90).orElseThrow().size());
+    }
+
+    @Test
+    void reopen_shouldStopAtARecordWithABadChecksum() throws Exception {
+        journal = open(FsyncPolicy.ALWAYS);
+        journal.append(new Deposit("alice", Amount.of(10)));
+        journal.append(new Deposit("alice", Amount.of(20)));
+        journal.close();
+        journal = null;
+
+        Path segment = JournalSegment.pathOf(directory, 1);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            int firstLength = file.readInt();
+            long secondBody = 2L * Integer.BYTES + firstLength + 2L * Integer.BYTES;
+            file.seek(secondBody + Long.BYTES + 3);
+            int original = file.read();
+            file.seek(secondBody + Long.BYTES + 3);
+            file.write(original ^ 0xFF);
+        }
+
+        journal = open(FsyncPolicy.ALWAYS);
+        assertEquals(List.of(new JournalEntry(1, new Deposit("alice", Amount.of(10)))), journal.recovered());
+    }
+
+    @Test
+    void append_shouldGiveConcurrentCallersDistinctConsecutiveSequences() throws Exception {
+        journal = open(FsyncPolicy.INTERVAL);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> futures = IntStream.range(0, 400)
+                    .mapToObj(i -> executor.submit(() -> journal.append(new CancelOrder("user" + i, i))))
+                    .toList();
+            List<Long> sequences = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                sequences.add(future.get());
+            }
+            Collections.sort(sequences);
+            assertEquals(LongStream.rangeClosed(1, 400).boxed().toList(), sequences);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void append_shouldRejectARecordLargerThanASegmentAndKeepWriting() throws Exception {
+        journal = open(FsyncPolicy.ALWAYS);
+        PlaceOrders tooLarge = new PlaceOrders("alice", "ASELS", Collections.nCopies(10_000,
+                new OrderRequestDto("ASELS", Amount.of(40), Amount.of(1), OrderSide.BUY)));
+
+        assertThrows(IllegalArgumentException.class, () -> journal.append(tooLarge));
+        assertEquals(1L, journal.append(new Deposit("alice", Amount.of(10))));
+        assertEquals(1, segments());
+    }
+
+    @Test
+    void appendAll_shouldLeaveNothingUndecidedWhenAGroupFailsPartway() throws Exception {
+        journal = open(FsyncPolicy.NEVER);
+        while (segments() < 2) {
+            journal.done(journal.append(largeOrder()));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+
+        assertThrows(UncheckedIOException.class, () -> journal.appendAll(Collections.nCopies(40, largeOrder())));
+        assertEquals(0, registry.get(CommandJournal.UNDECIDED).gauge().value());
+        Files.createDirectories(directory);
+    }
+
+    private CommandJournal open(FsyncPolicy fsyncPolicy) throws IOException {
+        CommandJournal opened = new CommandJournal(directory.toString(), SEGMENT_SIZE, fsyncPolicy, 5, registry);
+        opened.open();
+        return opened;
+    }
+
+    private void reopen(FsyncPolicy fsyncPolicy) throws Exception {
+        journal.close();
+        journal = open(fsyncPolicy);
+    }
+
+    private long segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> JournalSegment.indexOf(path).isPresent()).count();
+        }
+    }
+
+    // about 2.5 KiB, so a 64 KiB segment holds some two dozen of them
+    private static PlaceOrders largeOrder() {
+        return new PlaceOrders("alice", "ASELS", Collections.nCopies(100,
+                new OrderRequestDto("ASELS", Amount.of(40), Amount.of(1), OrderSide.BUY)));
+    }
+}
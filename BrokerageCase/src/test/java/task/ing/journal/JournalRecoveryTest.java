@@ -0,0 +1,68 @@
+package task.ing.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.context.SecurityContextHolder;
+import task.ing.exceptions.InsufficientBalanceException;
+import task.ing.journal.JournalCommand.CancelOrder;
+import task.ing.journal.JournalCommand.Withdraw;
+import task.ing.model.value.Amount;
+import task.ing.service.OrderCommandService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournalRecoveryTest {
+
+    @Mock
+    private CommandJournal commandJournal;
+
+    @Mock
+    private OrderCommandService orderCommandService;
+
+    @Mock
+    private JournalApplier journalApplier;
+
+    @InjectMocks
+    private JournalRecovery journalRecovery;
+
+    @Test
+    void afterSingletonsInstantiated_shouldReplayAsTheJournaledUserAndMarkEveryCommandDone() {
+        JournalEntry withdraw = new JournalEntry(4, new Withdraw("alice", Amount.of(50)));
+        JournalEntry cancel = new JournalEntry(7, new CancelOrder("bob", 12));
+        when(commandJournal.recovered()).thenReturn(List.of(withdraw, cancel));
+
+        List<String> replayedAs = new ArrayList<>();
+        doAnswer(invocation -> {
+            replayedAs.add(SecurityContextHolder.getContext().getAuthentication().getName());
+            if (invocation.getArgument(0) == withdraw) {
+                throw new InsufficientBalanceException("Insufficient TRY balance");
+            }
+            return null;
+        }).when(orderCommandService).replay(any());
+
+        journalRecovery.afterSingletonsInstantiated();
+
+        assertEquals(List.of("alice", "bob"), replayedAs);
+        verify(commandJournal).done(4);
+        verify(commandJournal).done(7);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void forgetApplied_shouldPruneUpToTheCheckpoint() {
+        when(commandJournal.checkpointSequence()).thenReturn(99L);
+
+        journalRecovery.forgetApplied();
+
+        verify(journalApplier).forgetUpTo(99);
+    }
+}
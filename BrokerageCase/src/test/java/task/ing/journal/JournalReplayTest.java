@@ -0,0 +1,94 @@
+package task.ing.journal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.journal.JournalCommand.Deposit;
+import task.ing.ledger.BalanceBook;
+import task.ing.model.dto.request.CustomerRequestDto;
+import task.ing.model.value.Amount;
+import task.ing.service.CustomerService;
+import task.ing.service.OrderCommandService;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journal-replay",
+        "brokerage.journal.enabled=true",
+        "brokerage.journal.fsync=NEVER",
+        "brokerage.journal.checkpoint-interval-ms=3600000",
+        "brokerage.ledger.snapshot-interval-ms=3600000"
+})
+class JournalReplayTest {
+
+    @TempDir
+    static Path directory;
+
+    @DynamicPropertySource
+    static void journalDirectory(DynamicPropertyRegistry registry) {
+        registry.add("brokerage.journal.directory", directory::toString);
+    }
+
+    @Autowired
+    private OrderCommandService orderCommandService;
+
+    @Autowired
+    private CommandJournal commandJournal;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerIdentityCache customerIdentityCache;
+
+    @Autowired
+    private BalanceBook balanceBook;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String username;
+    private Long customerId;
+
+    @BeforeEach
+    void setUp() {
+        username = "journal" + System.nanoTime();
+        customerService.createCustomer(new CustomerRequestDto("Jour", "Nal", username + "@mail.com", username, "secret1"));
+        customerId = customerIdentityCache.resolve(username).orElseThrow().id();
+    }
+
+    @Test
+    void command_shouldBeAppliedWithItsSequenceAndLeaveNothingUndecided() throws Exception {
+        orderCommandService.depositForCurrentUser(Amount.of(100), username);
+
+        long sequence = lastApplied();
+        commandJournal.checkpoint();
+        assertEquals(sequence, commandJournal.checkpointSequence());
+        assertEquals(Optional.of(Amount.of(100)), balanceBook.usableSize(customerId, "TRY"));
+    }
+
+    @Test
+    void replay_shouldSkipACommandThatAlreadyCommitted() {
+        orderCommandService.depositForCurrentUser(Amount.of(100), username);
+        long sequence = lastApplied();
+
+        orderCommandService.replay(new JournalEntry(sequence, new Deposit(username, Amount.of(100))));
+        assertEquals(Optional.of(Amount.of(100)), balanceBook.usableSize(customerId, "TRY"));
+
+        orderCommandService.replay(new JournalEntry(sequence + 1_000_000, new Deposit(username, Amount.of(100))));
+        assertEquals(Optional.of(Amount.of(200)), balanceBook.usableSize(customerId, "TRY"));
+    }
+
+    private long lastApplied() {
+        return jdbcTemplate.queryForObject("select max(sequence) from journal_applied", Long.class);
+    }
+}
@@ -0,0 +1,279 @@
+package task.ing.ledger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.engine.OrderSequencer;
+import task.ing.exceptions.InsufficientBalanceException;
+import task.ing.model.dto.request.CustomerRequestDto;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.entity.Asset;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetRepository;
+import task.ing.retry.OptimisticRetryAspect;
+import task.ing.service.CustomerService;
+import task.ing.service.OrderCommandService;
+import task.ing.service.OrderService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:balance-book",
+        "brokerage.ledger.snapshot-interval-ms=3600000",
+        "brokerage.ledger.snapshot-lag-ms=0"
+})
+class BalanceBookTest {
+
+    @Autowired
+    private BalanceBook balanceBook;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerIdentityCache customerIdentityCache;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private OrderCommandService orderCommandService;
+
+    @Autowired
+    private OrderSequencer orderSequencer;
+
+    @Autowired
+    private TryReservations tryReservations;
+
+    @Autowired
+    private OptimisticRetryAspect retryAspect;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String username;
+    private Long customerId;
+
+    @BeforeEach
+    void setUp() {
+        username = "ledger" + System.nanoTime();
+        customerService.createCustomer(new CustomerRequestDto("Led", "Ger", username + "@mail.com", username, "secret1"));
+        customerId = customerIdentityCache.resolve(username).orElseThrow().id();
+        orderService.depositForCurrentUser(Amount.of(1_000), username);
+    }
+
+    @Test
+    void movements_shouldAppendEntriesAndLeaveTheSnapshotAlone() {
+        orderService.withdrawForCurrentUser(Amount.of(300), username);
+        orderService.createOrder(new OrderRequestDto("ASELS", Amount.of(40), Amount.of(5), OrderSide.BUY), username);
+
+        assertEquals(Optional.of(Amount.of(500)), balanceBook.usableSize(customerId, "TRY"));
+        assertEquals(4, countEntries());
+
+        Asset snapshot = assetRepository.findByCustomerIdAndAssetName(customerId, "TRY").orElseThrow();
+        assertEquals(Amount.ZERO, snapshot.getSize());
+        assertEquals(0L, snapshot.getLedgerPosition());
+    }
+
+    @Test
+    void reserve_shouldSeeEntriesOfItsOwnTransaction() {
+        Boolean second = new TransactionTemplate(transactionManager).execute(status -> {
+            assertTrue(balanceBook.reserve(customerId, "TRY", Amount.of(600)));
+            return balanceBook.reserve(customerId, "TRY", Amount.of(600));
+        });
+
+        assertFalse(second);
+        assertEquals(Optional.of(Amount.of(400)), balanceBook.usableSize(customerId, "TRY"));
+    }
+
+    @Test
+    void reserve_shouldNotLetTwoTransactionsReserveTheSameBalance() throws Exception {
+        CountDownLatch firstReserved = new CountDownLatch(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // the first holds the row lock until it commits; the second asks for it meanwhile
+            Future<Boolean> first = executor.submit(() -> transaction.execute(status -> {
+                boolean reserved = balanceBook.reserve(customerId, "TRY", Amount.of(600));
+                firstReserved.countDown();
+                sleep(300);
+                return reserved;
+            }));
+            Future<Boolean> second = executor.submit(() -> {
+                firstReserved.await();
+                return transaction.execute(status -> balanceBook.reserve(customerId, "TRY", Amount.of(600)));
+            });
+
+            assertTrue(first.get(10, TimeUnit.SECONDS));
+            assertFalse(second.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(Optional.of(Amount.of(400)), balanceBook.usableSize(customerId, "TRY"));
+    }
+
+    @Test
+    void crossCustomerMatchesAndCancels_shouldNeitherDeadlockNorRetry() throws Exception {
+        String other = "ledger" + System.nanoTime();
+        customerService.createCustomer(new CustomerRequestDto("Oth", "Er", other + "@mail.com", other, "secret1"));
+        orderCommandService.depositForCurrentUser(Amount.of(1_000_000), username);
+        orderCommandService.depositForCurrentUser(Amount.of(1_000_000), other);
+
+        // each customer holds both assets and sells one of them to the other, on two shards at once,
+        // while both place and cancel orders that rest far from the market
+        List<String> assets = assetsOnDistinctShards();
+        for (String assetName : assets) {
+            for (String user : List.of(username, other)) {
+                orderCommandService.createOrder(new OrderRequestDto(assetName, currentPrice(assetName), Amount.of(100),
+                        OrderSide.BUY), user);
+            }
+        }
+        long retriesBefore = retryAspect.totalRetries();
+
+        List<Callable<Object>> commands = new ArrayList<>();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < assets.size(); i++) {
+                String assetName = assets.get(i);
+                String buyer = i == 0 ? username : other;
+                String seller = i == 0 ? other : username;
+                // a price of its own for every round, so a pair never finds it listed as the current
+                // price and fills against the other customer rather than the asset list
+                Amount price = currentPrice(assetName).plus(Amount.of(round + 1));
+                commands.add(() -> orderCommandService.createOrder(
+                        new OrderRequestDto(assetName, price, Amount.of(1), OrderSide.BUY), buyer));
+                commands.add(() -> orderCommandService.createOrder(
+                        new OrderRequestDto(assetName, price, Amount.of(1), OrderSide.SELL), seller));
+                for (String user : List.of(buyer, seller)) {
+                    commands.add(() -> {
+                        Long resting = orderCommandService.createOrder(
+                                new OrderRequestDto(assetName, Amount.of(1), Amount.of(1), OrderSide.BUY), user).id();
+                        orderCommandService.cancelOrder(resting, user);
+                        return null;
+                    });
+                    commands.add(() -> {
+                        Long resting = orderCommandService.createOrder(new OrderRequestDto(assetName,
+                                price.times(Amount.of(10)), Amount.of(1), OrderSide.SELL), user).id();
+                        orderCommandService.cancelOrder(resting, user);
+                        return null;
+                    });
+                }
+            }
+        }
+        Collections.shuffle(commands);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<Object> command : executor.invokeAll(commands, 60, TimeUnit.SECONDS)) {
+                command.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // a deadlock or a lock wait that timed out would have been retried
+        assertEquals(retriesBefore, retryAspect.totalRetries());
+        assertEquals(0, tryReservations.inFlightUnits(customerId));
+        // the pairs of different rounds may cross each other, but the buyer got what the other customer sold
+        assertTrue(balanceBook.usableSize(customerId, assets.get(0)).orElseThrow().isGreaterThan(Amount.of(100)));
+    }
+
+    @Test
+    void withdraw_shouldRecordNothing_whenBalanceIsInsufficient() {
+        assertThrows(InsufficientBalanceException.class,
+                () -> orderService.withdrawForCurrentUser(Amount.of(1_001), username));
+
+        assertEquals(1, countEntries());
+    }
+
+    @Test
+    void snapshot_shouldFoldTheTailWithoutChangingBalances() {
+        orderService.createOrderBatch("ASELS", Map.of(
+                0, new OrderRequestDto("ASELS", Amount.of(40), Amount.of(5), OrderSide.BUY),
+                1, new OrderRequestDto("ASELS", Amount.of(40), Amount.of(5), OrderSide.BUY)), username);
+
+        balanceBook.snapshot();
+
+        Asset snapshot = assetRepository.findByCustomerIdAndAssetName(customerId, "TRY").orElseThrow();
+        assertEquals(Amount.of(1_000), snapshot.getSize());
+        assertEquals(Amount.of(600), snapshot.getUsableSize());
+        assertTrue(snapshot.getLedgerPosition() > 0);
+        assertEquals(Optional.of(Amount.of(600)), balanceBook.usableSize(customerId, "TRY"));
+
+        orderService.depositForCurrentUser(Amount.of(50), username);
+        assertEquals(Optional.of(Amount.of(650)), balanceBook.usableSize(customerId, "TRY"));
+    }
+
+    @Test
+    void replayingTheWholeLedger_shouldReproduceEveryBalance() {
+        orderService.withdrawForCurrentUser(Amount.of(100), username);
+        orderService.createOrder(new OrderRequestDto("ASELS", Amount.of(40), Amount.of(5), OrderSide.BUY), username);
+        balanceBook.snapshot();
+        orderService.depositForCurrentUser(Amount.of(25), username);
+
+        Map<String, Object> replayed = jdbcTemplate.queryForMap("""
+                select sum(case entry_type when 'CREDIT' then amount when 'DEBIT' then -amount else 0 end) as size,
+                       sum(case entry_type when 'CREDIT' then amount when 'RELEASE' then amount
+                                           when 'RESERVE' then -amount else 0 end) as usable_size
+                from ledger_entry where customer_id = ? and asset_name = 'TRY'
+                """, customerId);
+
+        assertEquals(Amount.of(925).units(), ((Number) replayed.get("SIZE")).longValue());
+        assertEquals(Amount.of(725).units(), ((Number) replayed.get("USABLE_SIZE")).longValue());
+        assertEquals(Optional.of(Amount.of(725)), balanceBook.usableSize(customerId, "TRY"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // two tradable assets on different shards
+    private List<String> assetsOnDistinctShards() {
+        List<String> picked = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList(
+                "select asset_name from asset_list where asset_name <> 'TRY' order by id", String.class)) {
+            if (picked.size() < 2 && picked.stream()
+                    .noneMatch(other -> orderSequencer.shardIndex(other) == orderSequencer.shardIndex(name))) {
+                picked.add(name);
+            }
+        }
+        assertEquals(2, picked.size(), "no two assets on different shards");
+        return picked;
+    }
+
+    private Amount currentPrice(String assetName) {
+        return Amount.ofUnits(jdbcTemplate.queryForObject(
+                "select current_price from asset_list where asset_name = ?", Long.class, assetName));
+    }
+
+    private int countEntries() {
+        return jdbcTemplate.queryForObject("select count(*) from ledger_entry where customer_id = ?", Integer.class, customerId);
+    }
+}
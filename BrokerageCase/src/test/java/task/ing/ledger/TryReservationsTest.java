@@ -0,0 +1,179 @@
+package task.ing.ledger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.engine.OrderSequencer;
+import task.ing.exceptions.InsufficientBalanceException;
+import task.ing.model.dto.request.CustomerRequestDto;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
+import task.ing.retry.OptimisticRetryAspect;
+import task.ing.service.CustomerService;
+import task.ing.service.OrderCommandService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:try-reservations",
+        "brokerage.ledger.snapshot-interval-ms=3600000"
+})
+class TryReservationsTest {
+
+    @Autowired
+    private OrderCommandService orderCommandService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerIdentityCache customerIdentityCache;
+
+    @Autowired
+    private BalanceBook balanceBook;
+
+    @Autowired
+    private TryReservations tryReservations;
+
+    @Autowired
+    private OrderSequencer orderSequencer;
+
+    @Autowired
+    private OptimisticRetryAspect retryAspect;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String username;
+    private Long customerId;
+
+    @BeforeEach
+    void setUp() {
+        username = "buyer" + System.nanoTime();
+        customerService.createCustomer(new CustomerRequestDto("Bu", "Yer", username + "@mail.com", username, "secret1"));
+        customerId = customerIdentityCache.resolve(username).orElseThrow().id();
+        orderCommandService.depositForCurrentUser(Amount.of(100_000), username);
+    }
+
+    @Test
+    void buysOnTwoShards_shouldNeitherLockTheTryRowNorRetry() throws Exception {
+        List<String> assets = assetsOnDistinctShards();
+        long retriesBefore = retryAspect.totalRetries();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch placed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(9);
+        try {
+            // another transaction holds the TRY row for as long as the buys run; any buy that asked
+            // for that lock would time out
+            Future<?> holder = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.queryForList("select id from asset where customer_id = ? and asset_name = 'TRY' for update",
+                        customerId);
+                locked.countDown();
+                await(placed);
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            List<Future<OrderStatus>> buys = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String assetName = assets.get(i % 2);
+                Amount price = currentPrice(assetName);
+                buys.add(executor.submit(() -> orderCommandService.createOrder(
+                        new OrderRequestDto(assetName, price, Amount.of(1), OrderSide.BUY), username).orderStatus()));
+            }
+            for (Future<OrderStatus> buy : buys) {
+                assertEquals(OrderStatus.MATCHED, buy.get(10, TimeUnit.SECONDS));
+            }
+            placed.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        } finally {
+            placed.countDown();
+            executor.shutdownNow();
+        }
+
+        assertEquals(retriesBefore, retryAspect.totalRetries());
+        assertEquals(0, tryReservations.inFlightUnits(customerId));
+        Amount spent = currentPrice(assets.get(0)).plus(currentPrice(assets.get(1))).times(Amount.of(20));
+        assertEquals(Optional.of(Amount.of(100_000).minus(spent)), balanceBook.usableSize(customerId, "TRY"));
+    }
+
+    @Test
+    void reserve_shouldNotLetBuysOnTwoShardsSpendTheSameBalance() throws Exception {
+        List<String> assets = assetsOnDistinctShards();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // each buy costs about 60 000 of the 100 000 deposited, so only one of them can be placed
+            List<Future<Boolean>> buys = new ArrayList<>();
+            for (String assetName : assets) {
+                Amount price = currentPrice(assetName);
+                Amount size = Amount.of(60_000 / price.toBigDecimal().longValue());
+                buys.add(executor.submit(() -> {
+                    try {
+                        orderCommandService.createOrder(new OrderRequestDto(assetName, price, size, OrderSide.BUY), username);
+                        return true;
+                    } catch (InsufficientBalanceException e) {
+                        return false;
+                    }
+                }));
+            }
+            int accepted = 0;
+            for (Future<Boolean> buy : buys) {
+                accepted += buy.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(1, accepted);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(balanceBook.usableSize(customerId, "TRY").orElseThrow().isPositive());
+    }
+
+    // two tradable assets on different shards, neither of them on the TRY shard when there is room
+    private List<String> assetsOnDistinctShards() {
+        int tryShard = orderSequencer.shardIndex("TRY");
+        List<String> names = jdbcTemplate.queryForList(
+                "select asset_name from asset_list where asset_name <> 'TRY' order by id", String.class);
+        List<String> picked = new ArrayList<>();
+        for (boolean avoidTryShard : new boolean[]{true, false}) {
+            for (String name : names) {
+                int shard = orderSequencer.shardIndex(name);
+                if (picked.size() < 2 && !picked.contains(name) && (!avoidTryShard || shard != tryShard)
+                        && picked.stream().noneMatch(other -> orderSequencer.shardIndex(other) == shard)) {
+                    picked.add(name);
+                }
+            }
+        }
+        assertEquals(2, picked.size(), "no two assets on different shards");
+        return picked;
+    }
+
+    private Amount currentPrice(String assetName) {
+        return Amount.ofUnits(jdbcTemplate.queryForObject(
+                "select current_price from asset_list where asset_name = ?", Long.class, assetName));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package task.ing.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import task.ing.cache.AssetListCache;
+import task.ing.cache.CustomerIdentity;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.engine.MatchingEngine;
+import task.ing.ledger.BalanceBook;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.entity.Customer;
+import task.ing.model.entity.Order;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.enums.Role;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetListRepository;
+import task.ing.repository.AssetRepository;
+import task.ing.repository.CustomerRepository;
+import task.ing.repository.OrderRepository;
+import task.ing.service.OrderService;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderMetricsAspectTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private CustomerIdentityCache customerIdentityCache;
+
+    @Mock
+    private AssetListRepository assetListRepository;
+
+    @Mock
+    private AssetListCache assetListCache;
+
+    @Mock
+    private AssetRepository assetRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private MatchingEngine matchingEngine;
+
+    @Mock
+    private BalanceBook balanceBook;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private OrderService proxy;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(orderService);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new OrderMetricsAspect(registry));
+        proxy = factory.getProxy();
+    }
+
+    private Timer timer(String operation, String side, String outcome) {
+        return registry.find(OrderMetricsAspect.OPERATION_TIMER)
+                .tags("operation", operation, "side", side, "outcome", outcome)
+                .timer();
+    }
+
+    @Test
+    void createOrder_shouldRecordSideAndFailureOutcome() {
+        OrderRequestDto dto = new OrderRequestDto("ASELS", Amount.of(10), Amount.of(1), OrderSide.BUY);
+        when(customerIdentityCache.resolve("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> proxy.createOrder(dto, "ghost"));
+
+        Timer timer = timer("createOrder", "BUY", "UsernameNotFoundException");
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void cancelOrder_shouldRecordSuccess() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        Order order = new Order();
+        order.setId(7L);
+        order.setCustomer(customer);
+        order.setAssetName("ASELS");
+        order.setPrice(Amount.of(10));
+        order.setSize(Amount.of(1));
+        order.setOrderSide(OrderSide.SELL);
+        order.setOrderStatus(OrderStatus.PENDING);
+
+        when(customerIdentityCache.resolve("trader")).thenReturn(Optional.of(new CustomerIdentity(1L, Role.ROLE_USER, false)));
+        when(orderRepository.findById(7L)).thenReturn(Optional.of(order));
+
+        proxy.cancelOrder(7L, "trader");
+
+        Timer timer = timer("cancelOrder", "none", "success");
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void untimedQueries_shouldNotRecordAnything() {
+        when(customerIdentityCache.resolve("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(RuntimeException.class, () -> proxy.listOrdersForCurrentUser(null, null, "ghost"));
+
+        assertNull(registry.find(OrderMetricsAspect.OPERATION_TIMER).timer());
+    }
+}
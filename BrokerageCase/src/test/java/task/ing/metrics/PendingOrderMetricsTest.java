@@ -0,0 +1,56 @@
+package task.ing.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class PendingOrderMetricsTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private PendingOrderMetrics pendingOrderMetrics;
+
+    @BeforeEach
+    void setUp() {
+        pendingOrderMetrics = new PendingOrderMetrics(jdbcTemplate, registry);
+
+        jdbcTemplate.update("""
+                insert into orders (id, customer_id, asset_list_id, asset_name, size, price, order_side, order_status) values
+                (1, 1, 2, 'ASELS', 2000000, 45750000, 'BUY', 'PENDING'),
+                (2, 1, 2, 'ASELS', 1500000, 40000000, 'BUY', 'PENDING'),
+                (3, 1, 2, 'ASELS', 1000000, 50000000, 'SELL', 'PENDING'),
+                (4, 1, 3, 'THYAO', 1000000, 120000000, 'BUY', 'MATCHED')
+                """);
+    }
+
+    @Test
+    void refresh_shouldPublishPendingCountsAndReservedTryPerAsset() {
+        pendingOrderMetrics.refresh();
+
+        assertEquals(2, registry.get(PendingOrderMetrics.PENDING_ORDERS).tags("asset", "ASELS", "side", "BUY").gauge().value());
+        assertEquals(1, registry.get(PendingOrderMetrics.PENDING_ORDERS).tags("asset", "ASELS", "side", "SELL").gauge().value());
+        // 45.75 * 2 + 40 * 1.5
+        assertEquals(151.5, registry.get(PendingOrderMetrics.RESERVED_TRY).tags("asset", "ASELS").gauge().value(), 1e-9);
+        assertNull(registry.find(PendingOrderMetrics.PENDING_ORDERS).tags("asset", "THYAO").gauge());
+    }
+
+    @Test
+    void refresh_shouldDropAssetsWithoutPendingOrders() {
+        pendingOrderMetrics.refresh();
+        jdbcTemplate.update("update orders set order_status = 'CANCELED' where asset_name = 'ASELS'");
+
+        pendingOrderMetrics.refresh();
+
+        assertNull(registry.find(PendingOrderMetrics.PENDING_ORDERS).tags("asset", "ASELS").gauge());
+        assertNull(registry.find(PendingOrderMetrics.RESERVED_TRY).tags("asset", "ASELS").gauge());
+    }
+}
@@ -0,0 +1,52 @@
+package task.ing.model.value;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmountTest {
+
+    @Test
+    void times_shouldMultiplyExactly() {
+        assertEquals(Amount.valueOf("91.5"), Amount.valueOf("45.75").times(Amount.of(2)));
+        assertEquals(Amount.valueOf("0.000001"), Amount.valueOf("0.001").times(Amount.valueOf("0.001")));
+        assertEquals(Amount.valueOf("-13.725"), Amount.valueOf("-45.75").times(Amount.valueOf("0.3")));
+    }
+
+    @Test
+    void times_shouldFailInsteadOfOverflowing() {
+        Amount large = Amount.of(9_000_000_000L);
+
+        assertThrows(ArithmeticException.class, () -> large.times(large));
+        assertThrows(ArithmeticException.class, () -> Amount.ofUnits(Long.MAX_VALUE).plus(Amount.ofUnits(1)));
+    }
+
+    @Test
+    void times_shouldMultiplyLargeSizesWhoseProductFits() {
+        Amount size = Amount.of(10_000_000_000L);
+
+        assertEquals(Amount.of(5_000_000_000L), Amount.valueOf("0.5").times(size));
+        assertEquals(Amount.of(-1_234_560_000L), Amount.valueOf("-0.123456")
+                .times(Amount.of(10_000_000_000L)));
+        assertEquals(Amount.ofUnits(Long.MAX_VALUE / 2), Amount.ofUnits(Long.MAX_VALUE).times(Amount.valueOf("0.5")));
+    }
+
+    @Test
+    void of_shouldRejectMoreDecimalsThanScale() {
+        assertThrows(IllegalArgumentException.class, () -> Amount.valueOf("0.0000001"));
+        assertEquals(Amount.valueOf("1.5"), Amount.of(new BigDecimal("1.500000000")));
+    }
+
+    @Test
+    void json_shouldRoundTripAsPlainNumber() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertEquals("1000", mapper.writeValueAsString(Amount.of(1000)));
+        assertEquals("45.75", mapper.writeValueAsString(Amount.valueOf("45.75")));
+        assertEquals(Amount.valueOf("45.75"), mapper.readValue("45.75", Amount.class));
+        assertEquals(Amount.of(2), mapper.readValue("\"2.0\"", Amount.class));
+    }
+}
@@ -0,0 +1,79 @@
+package task.ing.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs EXPLAIN on the SQL shapes behind the hot repository lookups against the migrated schema and
+ * checks that H2 picks the intended index instead of scanning the table.
+ */
+@DataJpaTest
+class QueryPlanIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void assetByCustomerAndName_shouldUseUniqueCustomerAssetIndex() {
+        assertUsesIndex("select * from asset where customer_id = 1 and asset_name = 'TRY'",
+                "UK_ASSET_CUSTOMER_ASSET");
+    }
+
+    @Test
+    void assetsByCustomer_shouldUseCustomerForeignKeyIndex() {
+        assertUsesIndex("select * from asset where customer_id = 1 and is_deleted = false",
+                "FK_ASSET_CUSTOMER");
+    }
+
+    @Test
+    void ordersByCustomerAndDate_shouldUseCustomerCreatedIndex() {
+        assertUsesIndex("""
+                select * from orders where customer_id = 1
+                and created_date between date '2025-01-01' and date '2025-12-31'
+                order by created_date, id
+                """, "IDX_ORDERS_CUSTOMER_CREATED");
+    }
+
+    @Test
+    void ordersByDate_shouldUseCreatedIndex() {
+        assertUsesIndex("""
+                select * from orders
+                where created_date between date '2025-01-01' and date '2025-12-31'
+                order by created_date, id
+                """, "IDX_ORDERS_CREATED");
+    }
+
+    @Test
+    void ordersByStatus_shouldUseStatusAssetIndex() {
+        assertUsesIndex("select * from orders where order_status = 'PENDING'",
+                "IDX_ORDERS_STATUS_ASSET");
+        assertUsesIndex("select * from orders where asset_name = 'ASELS' and order_status = 'PENDING' order by id",
+                "IDX_ORDERS_STATUS_ASSET");
+    }
+
+    @Test
+    void customerLookups_shouldUseUsernameAndEmailIndexes() {
+        assertUsesIndex("select * from customer where username = 'admin'", "UK_CUSTOMER_USERNAME");
+        assertUsesIndex("select count(*) from customer where email = 'admin@mail.com'", "IDX_CUSTOMER_EMAIL");
+    }
+
+    @Test
+    void ledgerTail_shouldUseCustomerAssetIndex() {
+        assertUsesIndex("select sum(amount) from ledger_entry where customer_id = 1 and asset_name = 'TRY' and id > 100",
+                "IDX_LEDGER_CUSTOMER_ASSET");
+    }
+
+    @Test
+    void assetListByName_shouldUseUniqueNameIndex() {
+        assertUsesIndex("select * from asset_list where asset_name = 'ASELS'", "UK_ASSET_LIST_ASSET_NAME");
+    }
+
+    private void assertUsesIndex(String sql, String indexName) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assertTrue(plan != null && plan.toUpperCase().contains(indexName), "expected " + indexName + " in plan:\n" + plan);
+    }
+}
@@ -0,0 +1,119 @@
+package task.ing.retry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import task.ing.engine.CommandType;
+import task.ing.engine.OrderSequencer;
+import task.ing.model.entity.Order;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryAspectTest {
+
+    private final OptimisticRetryAspect aspect = new OptimisticRetryAspect(3, 0, 0);
+
+    private ConflictingService service;
+
+    private ConflictingService proxy;
+
+    @BeforeEach
+    void setUp() {
+        service = new ConflictingService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(service);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    void retry_shouldReExecuteUntilConflictClears() {
+        service.conflictsBeforeSuccess = 2;
+
+        assertEquals("done", proxy.update());
+
+        assertEquals(3, service.calls.get());
+        assertEquals(2, aspect.totalRetries());
+        assertEquals(2, aspect.retryCount("ConflictingService.update()"));
+        assertEquals(0, aspect.exhaustedCount());
+    }
+
+    @Test
+    void retry_shouldRethrowConflictAfterMaxAttempts() {
+        service.conflictsBeforeSuccess = 5;
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> proxy.update());
+
+        assertEquals(3, service.calls.get());
+        assertEquals(2, aspect.totalRetries());
+        assertEquals(1, aspect.exhaustedCount());
+    }
+
+    @Test
+    void retry_shouldReExecuteAfterLosingRowLock() {
+        service.failure = new CannotAcquireLockException("Deadlock detected");
+        service.failuresBeforeSuccess = 1;
+
+        assertEquals("done", proxy.update());
+
+        assertEquals(2, service.calls.get());
+        assertEquals(1, aspect.totalRetries());
+    }
+
+    @Test
+    void retry_shouldNotRetryOtherExceptions() {
+        service.failure = new IllegalArgumentException("Only pending orders can be cancelled");
+
+        assertThrows(IllegalArgumentException.class, () -> proxy.update());
+
+        assertEquals(1, service.calls.get());
+        assertEquals(0, aspect.totalRetries());
+    }
+
+    @Test
+    void retry_shouldNotBackOffOnASequencerShard() throws Exception {
+        AspectJProxyFactory factory = new AspectJProxyFactory(service);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new OptimisticRetryAspect(3, 60_000, 60_000));
+        ConflictingService slowProxy = factory.getProxy();
+        service.conflictsBeforeSuccess = 2;
+
+        OrderSequencer sequencer = new OrderSequencer(1, 8, 5_000);
+        sequencer.start();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> assertEquals("done", sequencer.execute(CommandType.ORDER, "ASELS", slowProxy::update)));
+        } finally {
+            sequencer.stop();
+        }
+        assertEquals(3, service.calls.get());
+    }
+
+    static class ConflictingService {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        int conflictsBeforeSuccess;
+
+        RuntimeException failure;
+
+        int failuresBeforeSuccess = Integer.MAX_VALUE;
+
+        @RetryOnConflict
+        public String update() {
+            int call = calls.incrementAndGet();
+            if (failure != null && call <= failuresBeforeSuccess) {
+                throw failure;
+            }
+            if (call <= conflictsBeforeSuccess) {
+                throw new ObjectOptimisticLockingFailureException(Order.class, 1L);
+            }
+            return "done";
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package task.ing.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import task.ing.model.entity.Customer;
+import task.ing.model.enums.Role;
+import task.ing.repository.CustomerRepository;
+
+import java.time.Clock;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthFilterTest {
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private JwtUtil jwtUtil;
+    private TokenVersionRegistry tokenVersionRegistry;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(new VerifiedTokenCache(10, Clock.systemUTC()), new SimpleMeterRegistry());
+        tokenVersionRegistry = new TokenVersionRegistry(customerRepository, 10);
+
+        customer = new Customer();
+        customer.setId(7L);
+        customer.setUsername("alice");
+        customer.setRole(Role.ROLE_USER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessAuth_shouldAuthenticateFromClaimsWithoutLoadingCustomer() throws Exception {
+        when(customerRepository.findTokenVersionById(7L)).thenReturn(Optional.of(0));
+        String token = jwtUtil.generateToken(customer);
+        JwtAuthFilter filter = new JwtAuthFilter(jwtUtil, userDetailsService, tokenVersionRegistry, true);
+
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals(new AuthenticatedCustomer(7L, "alice", "ROLE_USER"), authentication.getPrincipal());
+        assertEquals("alice", authentication.getName());
+        assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+        verify(customerRepository, times(1)).findTokenVersionById(7L);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void statelessAuth_shouldRejectTokenAfterRevoke() throws Exception {
+        when(customerRepository.findTokenVersionById(7L)).thenReturn(Optional.of(0), Optional.of(1));
+        String token = jwtUtil.generateToken(customer);
+        JwtAuthFilter filter = new JwtAuthFilter(jwtUtil, userDetailsService, tokenVersionRegistry, true);
+
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+
+        tokenVersionRegistry.revoke(customer);
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, customer.getTokenVersion());
+    }
+
+    @Test
+    void statefulAuth_shouldLoadCustomerOnEveryRequest() throws Exception {
+        when(userDetailsService.loadUserByUsername("alice"))
+                .thenReturn(User.withUsername("alice").password("x").authorities("ROLE_USER").build());
+        String token = jwtUtil.generateToken(customer);
+        JwtAuthFilter filter = new JwtAuthFilter(jwtUtil, userDetailsService, tokenVersionRegistry, false);
+
+        filter.doFilter(request(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals("alice", SecurityContextHolder.getContext().getAuthentication().getName());
+        verify(userDetailsService).loadUserByUsername("alice");
+        verify(customerRepository, never()).findTokenVersionById(any());
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/customers/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
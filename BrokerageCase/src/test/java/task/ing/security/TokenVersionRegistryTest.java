@@ -0,0 +1,53 @@
+package task.ing.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import task.ing.model.entity.Customer;
+import task.ing.repository.CustomerRepository;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenVersionRegistryTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Test
+    void isCurrent_shouldKeepAtMostMaxEntriesAndDropLeastRecentlyUsed() {
+        TokenVersionRegistry registry = new TokenVersionRegistry(customerRepository, 2);
+        when(customerRepository.findTokenVersionById(anyLong())).thenReturn(Optional.of(0));
+
+        registry.isCurrent(1L, 0);
+        registry.isCurrent(2L, 0);
+        registry.isCurrent(1L, 0);
+        registry.isCurrent(3L, 0);
+        registry.isCurrent(1L, 0);
+        registry.isCurrent(2L, 0);
+
+        assertEquals(2, registry.size());
+        verify(customerRepository, times(1)).findTokenVersionById(1L);
+        verify(customerRepository, times(2)).findTokenVersionById(2L);
+    }
+
+    @Test
+    void isCurrent_shouldNotCacheAVersionReadWhileItWasRevoked() {
+        TokenVersionRegistry registry = new TokenVersionRegistry(customerRepository, 10);
+        Customer customer = new Customer();
+        customer.setId(7L);
+        when(customerRepository.findTokenVersionById(7L)).thenAnswer(invocation -> {
+            // the revocation commits while the old version is on its way back
+            registry.revoke(customer);
+            return Optional.of(0);
+        });
+
+        assertTrue(registry.isCurrent(7L, 0));
+        assertEquals(0, registry.size());
+    }
+}
@@ -0,0 +1,100 @@
+package task.ing.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import task.ing.model.entity.Customer;
+import task.ing.model.enums.Role;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void get_shouldReturnClaimsUntilTokenExpires() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        Claims claims = claims("alice", 1_000);
+
+        cache.put("token-a", claims);
+        assertSame(claims, cache.get("token-a"));
+
+        clock.now = 1_000;
+        assertNull(cache.get("token-a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_shouldStayWithinBound_evictingExpiredEntriesFirst() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, clock);
+        cache.put("short", claims("alice", 100));
+        cache.put("long", claims("bob", 10_000));
+
+        clock.now = 200;
+        cache.put("new", claims("carol", 10_000));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("long"));
+        assertNotNull(cache.get("new"));
+    }
+
+    @Test
+    void put_shouldIgnoreTokensWithoutExpiry() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+
+        cache.put("token", new DefaultClaims().setSubject("alice"));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void verify_shouldCacheValidTokensAndRejectTamperedOnes() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, Clock.systemUTC());
+        JwtUtil jwtUtil = new JwtUtil(cache, new SimpleMeterRegistry());
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setUsername("alice");
+        customer.setRole(Role.ROLE_USER);
+        String token = jwtUtil.generateToken(customer);
+
+        Optional<Claims> claims = jwtUtil.verify(token);
+
+        assertEquals("alice", claims.orElseThrow().getSubject());
+        assertEquals(1, cache.size());
+        assertSame(claims.get(), jwtUtil.verify(token).orElseThrow());
+        assertTrue(jwtUtil.verify(token.substring(0, token.length() - 2) + "xx").isEmpty());
+        assertTrue(jwtUtil.verify("not-a-token").isEmpty());
+    }
+
+    private static Claims claims(String subject, long expiresAtMillis) {
+        return new DefaultClaims().setSubject(subject).setExpiration(new Date(expiresAtMillis));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        long now;
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now);
+        }
+    }
+}
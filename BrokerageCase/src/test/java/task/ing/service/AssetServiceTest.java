@@ -0,0 +1,116 @@
+package task.ing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import task.ing.cache.CustomerIdentity;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.model.dto.projection.CustomerAssetRow;
+import task.ing.model.dto.response.AssetResponseDto;
+import task.ing.model.dto.response.CustomerAssetsPageResponseDto;
+import task.ing.model.enums.Role;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetListRepository;
+import task.ing.repository.CustomerRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AssetServiceTest {
+
+    @Mock
+    private AssetListRepository assetListRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private CustomerIdentityCache customerIdentityCache;
+
+    private AssetService assetService;
+
+    @BeforeEach
+    void setUp() {
+        assetService = new AssetService(assetListRepository, customerRepository,
+                customerIdentityCache, new ObjectMapper());
+        ReflectionTestUtils.setField(assetService, "maxPageSize", 100);
+    }
+
+    private static CustomerAssetRow row(long customerId, String name, String assetName) {
+        if (assetName == null) {
+            return new CustomerAssetRow(customerId, name, null, null, null, null);
+        }
+        return new CustomerAssetRow(customerId, name, assetName, Amount.of(10), Amount.of(8), Amount.of(1));
+    }
+
+    @Test
+    void getAssetsForCurrentUser_shouldReadLedgerBalancesOfTheCurrentCustomer() {
+        when(customerIdentityCache.resolve("alice")).thenReturn(Optional.of(new CustomerIdentity(2L, Role.ROLE_USER, false)));
+        when(customerRepository.findAssetRowsByCustomerIds(List.of(2L))).thenReturn(List.of(
+                row(2, "Alice", "ASELS"), row(2, "Alice", "TRY")));
+
+        List<AssetResponseDto> assets = assetService.getAssetsForCurrentUser("alice");
+
+        assertEquals(List.of("ASELS", "TRY"), assets.stream().map(AssetResponseDto::assetName).toList());
+        assertEquals(Amount.of(8), assets.get(0).usableSize());
+    }
+
+    @Test
+    void getAssetsForCurrentUser_shouldBeEmpty_whenCustomerHasNoAssets() {
+        when(customerIdentityCache.resolve("bob")).thenReturn(Optional.of(new CustomerIdentity(5L, Role.ROLE_USER, false)));
+        when(customerRepository.findAssetRowsByCustomerIds(List.of(5L))).thenReturn(List.of(row(5, "Bob", null)));
+
+        assertTrue(assetService.getAssetsForCurrentUser("bob").isEmpty());
+    }
+
+    @Test
+    void adminGetAssetsPage_shouldGroupRowsOfOneQueryByCustomer() {
+        when(customerRepository.findActiveIdsAfter(0L, Limit.of(3))).thenReturn(List.of(2L, 5L, 7L));
+        when(customerRepository.findAssetRowsByCustomerIds(List.of(2L, 5L, 7L))).thenReturn(List.of(
+                row(2, "Alice", "ASELS"), row(2, "Alice", "TRY"), row(5, "Bob", null), row(7, "Carol", "TRY")));
+
+        CustomerAssetsPageResponseDto page = assetService.adminGetAssetsPage(null, 3);
+
+        assertEquals(3, page.customers().size());
+        assertEquals(2, page.customers().get(0).assets().size());
+        assertTrue(page.customers().get(1).assets().isEmpty());
+        assertEquals("Carol", page.customers().get(2).customerName());
+        assertEquals(7L, page.nextAfter());
+    }
+
+    @Test
+    void adminGetAssetsPage_shouldEndWithoutCursor_whenPageIsNotFull() {
+        when(customerRepository.findActiveIdsAfter(7L, Limit.of(3))).thenReturn(List.of(9L));
+        when(customerRepository.findAssetRowsByCustomerIds(List.of(9L))).thenReturn(List.of(row(9, "Dave", "TRY")));
+
+        CustomerAssetsPageResponseDto page = assetService.adminGetAssetsPage(7L, 3);
+
+        assertEquals(1, page.customers().size());
+        assertNull(page.nextAfter());
+    }
+
+    @Test
+    void adminStreamAssetsGroupedByCustomer_shouldWriteOneElementPerCustomer() throws Exception {
+        when(customerRepository.streamActiveAssetRows()).thenReturn(Stream.of(
+                row(2, "Alice", "ASELS"), row(2, "Alice", "TRY"), row(5, "Bob", null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assetService.adminStreamAssetsGroupedByCustomer(out);
+
+        assertEquals("[{\"customerId\":2,\"customerName\":\"Alice\",\"assets\":["
+                + "{\"assetName\":\"ASELS\",\"size\":10,\"usableSize\":8,\"currentPrice\":1},"
+                + "{\"assetName\":\"TRY\",\"size\":10,\"usableSize\":8,\"currentPrice\":1}]},"
+                + "{\"customerId\":5,\"customerName\":\"Bob\",\"assets\":[]}]", out.toString());
+    }
+}
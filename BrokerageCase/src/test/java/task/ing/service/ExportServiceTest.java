@@ -0,0 +1,81 @@
+package task.ing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import task.ing.model.enums.ExportFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class ExportServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ExportService(jdbcTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(exportService, "fetchSize", 2);
+
+        jdbcTemplate.update("""
+                insert into customer (id, name, surname, email, username, password, role, is_deleted, token_version)
+                values (2000, 'Export', 'User', 'export@mail.com', 'exporter', 'x', 'ROLE_USER', false, 0)
+                """);
+        jdbcTemplate.update("""
+                insert into asset (id, customer_id, asset_list_id, asset_name, size, usable_size, is_deleted) values
+                (1, 2000, 1, 'TRY', 1500250000, 1000000000, false),
+                (2, 2000, 2, 'ASELS', 3000000, 3000000, false),
+                (3, 2000, 3, 'THYAO', 1000000, 1000000, true)
+                """);
+        jdbcTemplate.update("""
+                insert into orders (id, customer_id, asset_list_id, asset_name, size, price, order_side, order_status, created_date) values
+                (1, 2000, 2, 'ASELS', 2000000, 45750000, 'BUY', 'PENDING', date '2025-03-02'),
+                (2, 2000, 2, 'ASELS', 1000000, 46000000, 'SELL', 'MATCHED', date '2025-03-01'),
+                (3, 2000, 2, 'ASELS', 1000000, 44000000, 'BUY', 'CANCELED', date '2025-04-01')
+                """);
+    }
+
+    @Test
+    void exportOrders_shouldWriteOneJsonLinePerOrderInDateOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportOrders(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31), ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":2,\"customerId\":2000,\"assetName\":\"ASELS\",\"orderSide\":\"SELL\",\"orderStatus\":\"MATCHED\","
+                + "\"price\":46,\"size\":1,\"createdDate\":\"2025-03-01\"}", lines[0]);
+        assertTrue(lines[1].startsWith("{\"id\":1,") && lines[1].contains("\"price\":45.75"), lines[1]);
+    }
+
+    @Test
+    void exportPositions_shouldWriteCsvOfNonDeletedAssets() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.exportPositions(ExportFormat.CSV, out);
+
+        assertEquals("""
+                customerId,assetName,size,usableSize\r
+                2000,ASELS,3,3\r
+                2000,TRY,1500.25,1000\r
+                """, out.toString());
+    }
+
+    @Test
+    void exportFormat_shouldParseIgnoringCaseAndRejectUnknown() {
+        assertEquals(ExportFormat.CSV, ExportFormat.from("csv"));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> ExportFormat.from("xml"));
+
+        assertEquals("Unsupported export format: xml", exception.getMessage());
+    }
+}
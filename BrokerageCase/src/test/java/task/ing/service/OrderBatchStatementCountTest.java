@@ -0,0 +1,80 @@
+package task.ing.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.model.dto.request.CustomerRequestDto;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.dto.response.BatchOrderResultDto;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.value.Amount;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-count",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderBatchStatementCountTest {
+
+    private static final int ORDERS = 20;
+    private static final String USERNAME = "batchuser";
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerIdentityCache customerIdentityCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        customerService.createCustomer(new CustomerRequestDto("Batch", "User", "batch@mail.com", USERNAME, "secret1"));
+        orderService.depositForCurrentUser(Amount.of(10_000), USERNAME);
+
+        // warm the caches so only the batch itself is counted
+        customerIdentityCache.resolve(USERNAME);
+        orderService.createOrderBatch("THYAO", Map.of(0, order()), USERNAME);
+    }
+
+    @Test
+    void createOrderBatch_shouldInsertOrdersInJdbcBatches() {
+        Map<Integer, OrderRequestDto> orders = new LinkedHashMap<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.put(i, order());
+        }
+        statistics.clear();
+
+        List<BatchOrderResultDto> results = orderService.createOrderBatch("THYAO", orders, USERNAME);
+
+        assertTrue(results.stream().allMatch(BatchOrderResultDto::accepted));
+        // the orders and the one ledger entry reserving their TRY
+        assertEquals(ORDERS + 1, statistics.getEntityInsertCount());
+        // balance read, one locked reserve and a batched insert each for orders and ledger entries;
+        // each id pool may need one refill
+        assertTrue(statistics.getPrepareStatementCount() <= 6,
+                "prepared statements: " + statistics.getPrepareStatementCount());
+    }
+
+    private static OrderRequestDto order() {
+        return new OrderRequestDto("THYAO", Amount.of(100), Amount.of(1), OrderSide.BUY);
+    }
+}
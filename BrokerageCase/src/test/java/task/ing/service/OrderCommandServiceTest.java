@@ -0,0 +1,86 @@
+package task.ing.service;
+
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import task.ing.engine.CommandType;
+import task.ing.engine.MatchingEngine;
+import task.ing.engine.OrderSequencer;
+import task.ing.exceptions.CustomerNotFoundException;
+import task.ing.journal.JournalApplier;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.dto.response.BatchOrderResponseDto;
+import task.ing.model.dto.response.BatchOrderResultDto;
+import task.ing.model.dto.response.OrderResponseDto;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
+import task.ing.repository.OrderRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCommandServiceTest {
+
+    @Mock
+    private OrderSequencer orderSequencer;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private Validator validator;
+
+    private OrderCommandService orderCommandService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        orderCommandService = new OrderCommandService(orderSequencer, orderService, mock(MatchingEngine.class),
+                mock(OrderRepository.class), validator, mock(ObjectProvider.class), mock(JournalApplier.class));
+        ReflectionTestUtils.setField(orderCommandService, "maxBatchSize", 10);
+    }
+
+    @Test
+    void createOrders_whenAGroupFails_shouldRejectOnlyItsItemsWithoutLeakingUnexpectedErrors() {
+        List<OrderRequestDto> dtos = List.of(order("ASELS"), order("THYAO"), order("GARAN"), order("ASELS"),
+                order("AKBNK"));
+        OrderResponseDto placed = new OrderResponseDto(7L, "ASELS", Amount.of(10), Amount.of(1),
+                LocalDate.now(), OrderSide.BUY, OrderStatus.PENDING);
+        when(orderSequencer.submit(eq(CommandType.ORDER), anyString(), any())).thenAnswer(invocation ->
+                switch ((String) invocation.getArgument(1)) {
+                    case "ASELS" -> CompletableFuture.completedFuture(List.of(
+                            BatchOrderResultDto.accepted(0, placed), BatchOrderResultDto.accepted(3, placed)));
+                    case "THYAO" -> CompletableFuture.failedFuture(new OptimisticLockingFailureException("asset 12 version 4"));
+                    case "GARAN" -> CompletableFuture.failedFuture(new CustomerNotFoundException("Customer not found"));
+                    default -> CompletableFuture.failedFuture(new IllegalStateException("Connection to db-2:5432 refused"));
+                });
+
+        BatchOrderResponseDto response = orderCommandService.createOrders(dtos, "alice");
+
+        assertEquals(2, response.acceptedCount());
+        assertEquals(3, response.rejectedCount());
+        List<BatchOrderResultDto> results = response.results();
+        assertTrue(results.get(0).accepted());
+        assertTrue(results.get(3).accepted());
+        assertEquals("The record was modified concurrently, please try again", results.get(1).error());
+        assertEquals("Customer not found", results.get(2).error());
+        assertEquals("Unexpected error, the AKBNK orders were not placed", results.get(4).error());
+    }
+
+    private static OrderRequestDto order(String assetName) {
+        return new OrderRequestDto(assetName, Amount.of(10), Amount.of(1), OrderSide.BUY);
+    }
+}
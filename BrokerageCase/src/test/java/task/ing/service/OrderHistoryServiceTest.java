@@ -0,0 +1,101 @@
+package task.ing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.model.dto.projection.OrderHistoryRow;
+import task.ing.model.dto.response.OrderPageResponseDto;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
+import task.ing.repository.CustomerRepository;
+import task.ing.repository.OrderRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderHistoryServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private CustomerIdentityCache customerIdentityCache;
+
+    private OrderHistoryService orderHistoryService;
+
+    private final Long customerId = 1L;
+    private final LocalDate start = LocalDate.of(2025, 1, 1);
+    private final LocalDate end = LocalDate.of(2025, 12, 31);
+
+    @BeforeEach
+    void setUp() {
+        orderHistoryService = new OrderHistoryService(orderRepository, customerRepository, customerIdentityCache,
+                new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(orderHistoryService, "maxPageSize", 100);
+    }
+
+    private OrderHistoryRow row(long id, LocalDate createdDate) {
+        return new OrderHistoryRow(id, "ASELS", Amount.valueOf("45.75"), Amount.of(2), createdDate,
+                OrderSide.BUY, OrderStatus.PENDING);
+    }
+
+    @Test
+    void findPage_shouldReturnCursorOfLastRow_whenMoreRowsExist() {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        when(orderRepository.findHistoryPage(customerId, start, end, start.minusDays(1), 0L, Limit.of(3)))
+                .thenReturn(List.of(row(5, day), row(9, day), row(12, day)));
+        when(orderRepository.findHistoryPage(customerId, start, end, day, 9L, Limit.of(3)))
+                .thenReturn(List.of(row(12, day)));
+
+        OrderPageResponseDto first = orderHistoryService.findPage(customerId, start, end, 2, null);
+        OrderPageResponseDto second = orderHistoryService.findPage(customerId, start, end, 2, first.nextCursor());
+
+        assertEquals(2, first.orders().size());
+        assertNotNull(first.nextCursor());
+        assertEquals(1, second.orders().size());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void findPage_shouldRejectInvalidLimitAndCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> orderHistoryService.findPage(customerId, start, end, 0, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderHistoryService.findPage(customerId, start, end, 101, null));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> orderHistoryService.findPage(customerId, start, end, 10, "not-a-cursor"));
+
+        assertEquals("Invalid cursor", exception.getMessage());
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void streamOrders_shouldWriteRowsAsJsonArray() throws Exception {
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        when(orderRepository.streamHistory(customerId, start, end)).thenReturn(Stream.of(row(5, day), row(9, day)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        orderHistoryService.streamOrders(customerId, start, end, out);
+
+        String json = out.toString();
+        assertTrue(json.startsWith("[{") && json.endsWith("}]"), json);
+        assertEquals(2, json.split("\"assetName\"").length - 1);
+        assertTrue(json.contains("\"price\":45.75"), json);
+    }
+}
@@ -0,0 +1,184 @@
+package task.ing.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authorization.AuthorizationDeniedException;
+import task.ing.cache.AssetListCache;
+import task.ing.cache.AssetListEntry;
+import task.ing.cache.CustomerIdentity;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.engine.CommandType;
+import task.ing.engine.OrderSequencer;
+import task.ing.exceptions.ServiceBusyException;
+import task.ing.journal.JournalApplier;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.dto.response.BatchOrderResultDto;
+import task.ing.model.dto.response.OrderResponseDto;
+import task.ing.model.dto.response.OrderSubmissionResponseDto;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.enums.Role;
+import task.ing.model.enums.SubmissionStatus;
+import task.ing.model.value.Amount;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OrderIntakeServiceTest {
+
+    @Mock
+    private OrderSequencer orderSequencer;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private AssetListCache assetListCache;
+
+    @Mock
+    private CustomerIdentityCache customerIdentityCache;
+
+    private OrderIntakeService orderIntakeService;
+
+    @BeforeEach
+    void setUp() {
+        when(orderSequencer.shardCount()).thenReturn(1);
+        when(orderSequencer.shardIndex(anyString())).thenReturn(0);
+        when(orderSequencer.submit(eq(CommandType.ORDER), anyString(), any())).thenAnswer(invocation -> {
+            Supplier<?> action = invocation.getArgument(2);
+            try {
+                return CompletableFuture.completedFuture(action.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+        when(assetListCache.find("THYAO")).thenReturn(Optional.of(new AssetListEntry(3L, "THYAO", "Turk Hava Yollari", Amount.valueOf("120.5"), false)));
+        when(customerIdentityCache.resolve("alice")).thenReturn(Optional.of(new CustomerIdentity(10L, Role.ROLE_USER, false)));
+        when(customerIdentityCache.resolve("bob")).thenReturn(Optional.of(new CustomerIdentity(11L, Role.ROLE_USER, false)));
+        when(customerIdentityCache.resolve("admin")).thenReturn(Optional.of(new CustomerIdentity(1L, Role.ROLE_ADMIN, false)));
+
+        orderIntakeService = new OrderIntakeService(orderSequencer, orderService, assetListCache, customerIdentityCache,
+                mock(ObjectProvider.class), mock(JournalApplier.class),
+                10, 100, 600_000, 1_000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        orderIntakeService.stop();
+    }
+
+    @Test
+    void submit_shouldPlaceQueuedOrdersOfOneCustomerAsOneBatch() throws InterruptedException {
+        when(orderService.createOrderBatch(eq("THYAO"), anyMap(), eq("alice"))).thenAnswer(invocation -> {
+            Map<Integer, OrderRequestDto> orders = invocation.getArgument(1);
+            return orders.keySet().stream()
+                    .map(index -> BatchOrderResultDto.accepted(index, placed(100L + index)))
+                    .toList();
+        });
+
+        List<OrderSubmissionResponseDto> tickets = List.of(
+                orderIntakeService.submit(order(), "alice"),
+                orderIntakeService.submit(order(), "alice"),
+                orderIntakeService.submit(order(), "alice"));
+        assertEquals(SubmissionStatus.QUEUED, tickets.get(0).status());
+        assertEquals("/api/orders/submissions/" + tickets.get(0).ticket(), tickets.get(0).statusUrl());
+
+        orderIntakeService.start();
+
+        for (int index = 0; index < tickets.size(); index++) {
+            OrderSubmissionResponseDto decided = awaitDecided(tickets.get(index).ticket(), "alice");
+            assertEquals(SubmissionStatus.ACCEPTED, decided.status());
+            assertEquals(100L + index, decided.order().id());
+        }
+        verify(orderService, times(1)).createOrderBatch(eq("THYAO"), argThat(orders -> orders.size() == 3), eq("alice"));
+    }
+
+    @Test
+    void submit_shouldRejectOnlyTheSubmissionsOfAFailedCommand() throws InterruptedException {
+        when(orderService.createOrderBatch(eq("THYAO"), anyMap(), eq("alice")))
+                .thenReturn(List.of(BatchOrderResultDto.rejected(0, "Insufficient TRY balance")));
+        when(orderService.createOrderBatch(eq("THYAO"), anyMap(), eq("bob")))
+                .thenThrow(new IllegalStateException("Balance changed"));
+
+        UUID alice = orderIntakeService.submit(order(), "alice").ticket();
+        UUID bob = orderIntakeService.submit(order(), "bob").ticket();
+        orderIntakeService.start();
+
+        OrderSubmissionResponseDto aliceDecided = awaitDecided(alice, "alice");
+        OrderSubmissionResponseDto bobDecided = awaitDecided(bob, "bob");
+        assertEquals(SubmissionStatus.REJECTED, aliceDecided.status());
+        assertEquals("Insufficient TRY balance", aliceDecided.error());
+        assertEquals(SubmissionStatus.REJECTED, bobDecided.status());
+        assertEquals("Unexpected error, the order was not placed", bobDecided.error());
+    }
+
+    @Test
+    void submit_shouldNotShowTheClientWhyTheDatabaseFailed() throws InterruptedException {
+        String internal = "could not execute statement [insert into orders (asset_name,customer_id) values (?,?)]";
+        when(orderService.createOrderBatch(eq("THYAO"), anyMap(), eq("alice")))
+                .thenThrow(new DataIntegrityViolationException(internal));
+
+        UUID ticket = orderIntakeService.submit(order(), "alice").ticket();
+        orderIntakeService.start();
+
+        OrderSubmissionResponseDto decided = awaitDecided(ticket, "alice");
+        assertEquals(SubmissionStatus.REJECTED, decided.status());
+        assertEquals("Unexpected error, the order was not placed", decided.error());
+        assertFalse(decided.error().contains("insert into"));
+    }
+
+    @Test
+    void submit_shouldRefuseWhenQueueIsFull() {
+        for (int i = 0; i < 10; i++) {
+            orderIntakeService.submit(order(), "alice");
+        }
+
+        assertThrows(ServiceBusyException.class, () -> orderIntakeService.submit(order(), "alice"));
+    }
+
+    @Test
+    void getSubmission_shouldOnlyShowSubmissionToItsOwnerAndAdmins() {
+        UUID ticket = orderIntakeService.submit(order(), "alice").ticket();
+
+        assertThrows(AuthorizationDeniedException.class, () -> orderIntakeService.getSubmission(ticket, "bob"));
+        assertEquals(ticket, orderIntakeService.getSubmission(ticket, "admin").ticket());
+    }
+
+    private OrderSubmissionResponseDto awaitDecided(UUID ticket, String username) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        OrderSubmissionResponseDto submission = orderIntakeService.getSubmission(ticket, username);
+        while (submission.status() == SubmissionStatus.QUEUED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            submission = orderIntakeService.getSubmission(ticket, username);
+        }
+        return submission;
+    }
+
+    private static OrderRequestDto order() {
+        return new OrderRequestDto("THYAO", Amount.of(100), Amount.of(1), OrderSide.BUY);
+    }
+
+    private static OrderResponseDto placed(Long id) {
+        return new OrderResponseDto(id, "THYAO", Amount.of(100), Amount.of(1), LocalDate.now(),
+                OrderSide.BUY, OrderStatus.PENDING);
+    }
+}
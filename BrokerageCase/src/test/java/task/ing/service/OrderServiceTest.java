@@ -6,9 +6,19 @@ import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.authorization.AuthorizationDeniedException;
+import task.ing.cache.AssetListCache;
+import task.ing.cache.AssetListEntry;
+import task.ing.cache.CustomerIdentity;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.engine.Fill;
+import task.ing.engine.MatchResult;
+import task.ing.engine.MatchingEngine;
 import task.ing.exceptions.*;
+import task.ing.ledger.BalanceBook;
 import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.dto.response.BatchOrderResultDto;
 import task.ing.model.dto.response.OrderResponseDto;
 import task.ing.model.entity.Asset;
 import task.ing.model.entity.AssetList;
@@ -17,14 +27,16 @@ import task.ing.model.entity.Order;
 import task.ing.model.enums.OrderSide;
 import task.ing.model.enums.OrderStatus;
 import task.ing.model.enums.Role;
+import task.ing.model.value.Amount;
 import task.ing.repository.AssetListRepository;
 import task.ing.repository.AssetRepository;
 import task.ing.repository.CustomerRepository;
 import task.ing.repository.OrderRepository;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hibernate.validator.internal.util.Contracts.assertNotNull;
@@ -38,23 +50,35 @@ class OrderServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private CustomerIdentityCache customerIdentityCache;
+
     @Mock
     private AssetListRepository assetListRepository;
 
+    @Mock
+    private AssetListCache assetListCache;
+
     @Mock
     private AssetRepository assetRepository;
 
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private MatchingEngine matchingEngine;
+
+    @Mock
+    private BalanceBook balanceBook;
+
     @InjectMocks
     private OrderService orderService;
 
     private final Long customerId = 1L;
     private final String username = "testUser";
     private final String assetName = "ASELS";
-    private final BigDecimal price = BigDecimal.valueOf(45.75);
-    private final double size = 2.0;
+    private final Amount price = Amount.valueOf("45.75");
+    private final Amount size = Amount.of(2);
     private final Long orderId = 1L;
 
     private Customer mockCustomer() {
@@ -64,16 +88,28 @@ class OrderServiceTest {
         return customer;
     }
 
-    private AssetList mockAssetList(BigDecimal currentPrice) {
+    private void mockCurrentCustomer(Customer customer) {
+        when(customerIdentityCache.resolve(username))
+                .thenReturn(Optional.of(new CustomerIdentity(customer.getId(), customer.getRole(), customer.isDeleted())));
+        lenient().when(customerRepository.getReferenceById(customer.getId())).thenReturn(customer);
+    }
+
+    private void mockCachedAssetList(String name, AssetList assetList) {
+        when(assetListCache.find(name)).thenReturn(Optional.of(new AssetListEntry(assetList.getId(), name,
+                assetList.getAssetFullName(), assetList.getCurrentPrice(), assetList.isDeleted())));
+        lenient().when(assetListRepository.getReferenceById(assetList.getId())).thenReturn(assetList);
+    }
+
+    private AssetList mockAssetList(Amount currentPrice) {
         AssetList assetList = new AssetList();
         assetList.setAssetName(assetName);
         assetList.setCurrentPrice(currentPrice);
         return assetList;
     }
 
-    public static Asset mockAsset(String name, double size, double usableSize) {
+    public static Asset mockAsset(String name, Amount size, Amount usableSize) {
         Asset asset = new Asset();
-        asset.getAssetList().setAssetName(name);
+        asset.setAssetName(name);
         asset.setSize(size);
         asset.setUsableSize(usableSize);
         return asset;
@@ -91,7 +127,7 @@ class OrderServiceTest {
         return order;
     }
 
-    private OrderRequestDto buildRequest(OrderSide side, BigDecimal price) {
+    private OrderRequestDto buildRequest(OrderSide side, Amount price) {
         return new OrderRequestDto(assetName, price, size, side);
     }
 
@@ -99,23 +135,28 @@ class OrderServiceTest {
     void testCreateBuyOrder_withMatchingPrice_shouldReturnMatchedOrder() {
         // Arrange
         OrderRequestDto dto = buildRequest(OrderSide.BUY, price);
+        Amount totalCost = price.times(size);
 
         Customer customer = mockCustomer();
         AssetList assetList = mockAssetList(price);
-        Asset tryAsset = mockAsset("TRY", 1000.0, 1000.0);
-        Asset buyerAsset = mockAsset(assetName, 0.0, 0.0);
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
-        when(assetListRepository.findByAssetName(assetName)).thenReturn(Optional.of(assetList));
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY")).thenReturn(Optional.of(tryAsset));
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, assetName)).thenReturn(Optional.of(buyerAsset));
-        when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, "TRY", totalCost)).thenReturn(true);
+        when(assetRepository.existsByCustomerIdAndAssetName(customerId, assetName)).thenReturn(true);
+        when(matchingEngine.match(assetName, OrderSide.BUY, price, size)).thenReturn(new MatchResult(List.of(), size));
+        when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> {
+            Order saved = invocation.getArgument(0);
+            saved.setId(42L);
+            return saved;
+        });
 
         // Act
         OrderResponseDto response = orderService.createOrder(dto, username);
 
         // Assert
         assertNotNull(response);
+        assertEquals(42L, response.id());
         assertEquals(OrderStatus.MATCHED, response.orderStatus());
         assertEquals(assetName, response.assetName());
         assertEquals(price, response.price());
@@ -132,25 +173,74 @@ class OrderServiceTest {
         assertEquals(size, savedOrder.getSize());
         assertEquals(OrderSide.BUY, savedOrder.getOrderSide());
 
-        // Ek olarak TRY ve ASELS varlıklarının güncellenip kaydedildiğini doğrula
-        verify(assetRepository).save(tryAsset);
-        verify(assetRepository).save(buyerAsset);
+        // Reserved TRY is spent and the bought asset is credited in place
+        verify(balanceBook).settleReserved(customerId, "TRY", totalCost, Amount.ZERO);
+        verify(balanceBook).credit(customerId, assetName, size);
+        verify(assetRepository, never()).save(Mockito.any(Asset.class));
     }
 
 
+    @Test
+    void createOrderBatch_shouldReserveOncePerBalanceAndRejectItemsThatDoNotFit() {
+        // Arrange
+        Amount limit = Amount.of(40);
+        OrderRequestDto buy = buildRequest(OrderSide.BUY, limit);
+        OrderRequestDto sell = buildRequest(OrderSide.SELL, limit);
+        Map<Integer, OrderRequestDto> orders = new LinkedHashMap<>();
+        orders.put(0, buy);
+        orders.put(1, sell);
+        orders.put(3, buy);
+        orders.put(4, buy);
+
+        Customer customer = mockCustomer();
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, mockAssetList(price));
+        when(balanceBook.usableSize(customerId, "TRY")).thenReturn(Optional.of(Amount.of(170)));
+        when(balanceBook.usableSize(customerId, assetName)).thenReturn(Optional.empty());
+        when(balanceBook.reserveAll(customerId, Map.of("TRY", Amount.of(160)))).thenReturn(Optional.empty());
+        when(matchingEngine.match(assetName, OrderSide.BUY, limit, size)).thenReturn(new MatchResult(List.of(), size));
+        when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<BatchOrderResultDto> results = orderService.createOrderBatch(assetName, orders, username);
+
+        // Assert
+        assertEquals(List.of(0, 1, 3, 4), results.stream().map(BatchOrderResultDto::index).toList());
+        assertEquals(OrderStatus.PENDING, results.get(0).order().orderStatus());
+        assertEquals("Asset not found for customer", results.get(1).error());
+        assertEquals(OrderStatus.PENDING, results.get(2).order().orderStatus());
+        assertEquals("Insufficient TRY balance", results.get(3).error());
+
+        verify(balanceBook, times(1)).reserveAll(Mockito.any(), Mockito.any());
+        verify(balanceBook, times(1)).usableSize(customerId, "TRY");
+        verify(orderRepository, times(2)).save(Mockito.any());
+    }
+
+    @Test
+    void createOrderBatch_whenBalanceChangesConcurrently_shouldThrowForRetry() {
+        Map<Integer, OrderRequestDto> orders = Map.of(0, buildRequest(OrderSide.SELL, price));
+
+        mockCurrentCustomer(mockCustomer());
+        mockCachedAssetList(assetName, mockAssetList(price));
+        when(balanceBook.usableSize(customerId, assetName)).thenReturn(Optional.of(size));
+        when(balanceBook.reserveAll(customerId, Map.of(assetName, size))).thenReturn(Optional.of(assetName));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> orderService.createOrderBatch(assetName, orders, username));
+        verify(orderRepository, never()).save(Mockito.any());
+    }
+
     @Test
     void testCreateSellOrder_withMatchingPrice_shouldReturnMatchedOrder() {
         // Arrange
         OrderRequestDto dto = buildRequest(OrderSide.SELL, price);
         Customer customer = mockCustomer();
         AssetList assetList = mockAssetList(price);
-        Asset asset = mockAsset(assetName, 10.0, 10.0); // yeterli varlık
-        Asset tryAsset = mockAsset("TRY", 100.0, 100.0); // TRY bakiyesi
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
-        when(assetListRepository.findByAssetName(assetName)).thenReturn(Optional.of(assetList));
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, assetName)).thenReturn(Optional.of(asset));
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY")).thenReturn(Optional.of(tryAsset));
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, assetName, size)).thenReturn(true);
+        when(matchingEngine.match(assetName, OrderSide.SELL, price, size)).thenReturn(new MatchResult(List.of(), size));
         when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -171,23 +261,207 @@ class OrderServiceTest {
         assertEquals(OrderStatus.MATCHED, savedOrder.getOrderStatus());
         assertEquals(OrderSide.SELL, savedOrder.getOrderSide());
 
-        verify(assetRepository).save(asset);
-        verify(assetRepository).save(tryAsset);
+        Amount totalCost = price.times(size);
+        verify(balanceBook).settleReserved(customerId, assetName, size, Amount.ZERO);
+        verify(balanceBook).credit(customerId, "TRY", totalCost);
+    }
+
+
+    @Test
+    void testCreateBuyOrder_crossingRestingSellOrder_shouldReturnMatchedOrder() {
+        // Arrange
+        OrderRequestDto dto = buildRequest(OrderSide.BUY, price);
+        Amount totalCost = price.times(size);
+
+        Customer customer = mockCustomer();
+        AssetList assetList = mockAssetList(price);
+
+        Customer seller = new Customer();
+        seller.setId(2L);
+        Order restingSellOrder = mockOrder(OrderSide.SELL, OrderStatus.PENDING, seller);
+        restingSellOrder.setId(2L);
+
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, "TRY", totalCost)).thenReturn(true);
+        when(assetRepository.existsByCustomerIdAndAssetName(customerId, assetName)).thenReturn(true);
+        when(matchingEngine.match(assetName, OrderSide.BUY, price, size))
+                .thenReturn(new MatchResult(List.of(new Fill(2L, price, size, Amount.ZERO)), Amount.ZERO));
+        when(orderRepository.findById(2L)).thenReturn(Optional.of(restingSellOrder));
+        when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        OrderResponseDto response = orderService.createOrder(dto, username);
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(OrderStatus.MATCHED, response.orderStatus());
+        assertEquals(assetName, response.assetName());
+        assertEquals(price, response.price());
+        assertEquals(size, response.size());
+        assertEquals(OrderStatus.MATCHED, restingSellOrder.getOrderStatus());
+
+        verify(balanceBook).settleReserved(customerId, "TRY", totalCost, Amount.ZERO);
+        verify(balanceBook).credit(customerId, assetName, size);
+        verify(balanceBook).credit(seller.getId(), "TRY", totalCost);
+        verify(balanceBook).settleReserved(seller.getId(), assetName, size, Amount.ZERO);
+
+        verify(matchingEngine, never()).rest(Mockito.any());
+        verify(assetListRepository).save(assetList);
+    }
+
+
+    @Test
+    void testCreateBuyOrder_crossingCheaperSellOrder_shouldReleasePriceImprovement() {
+        // Arrange
+        Amount restingPrice = price.minus(Amount.of(5));
+        OrderRequestDto dto = buildRequest(OrderSide.BUY, price);
+
+        Customer customer = mockCustomer();
+        AssetList assetList = mockAssetList(price);
+
+        Customer seller = new Customer();
+        seller.setId(2L);
+        Order restingSellOrder = mockOrder(OrderSide.SELL, OrderStatus.PENDING, seller);
+        restingSellOrder.setId(2L);
+        restingSellOrder.setPrice(restingPrice);
+        restingSellOrder.setSize(Amount.of(5));
+
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, "TRY", price.times(size))).thenReturn(true);
+        when(matchingEngine.match(assetName, OrderSide.BUY, price, size))
+                .thenReturn(new MatchResult(List.of(new Fill(2L, restingPrice, size, Amount.of(3))), Amount.ZERO));
+        when(orderRepository.findById(2L)).thenReturn(Optional.of(restingSellOrder));
+        when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        OrderResponseDto response = orderService.createOrder(dto, username);
+
+        // Assert
+        assertEquals(OrderStatus.MATCHED, response.orderStatus());
+        assertEquals(OrderStatus.PENDING, restingSellOrder.getOrderStatus());
+        assertEquals(Amount.of(3), restingSellOrder.getSize());
+
+        Amount executedCost = restingPrice.times(size);
+        Amount priceImprovement = price.times(size).minus(executedCost);
+        verify(balanceBook).settleReserved(customerId, "TRY", executedCost, priceImprovement);
+        assertEquals(restingPrice, assetList.getCurrentPrice());
+
+        // The buyer held no ASELS yet, so a new asset row is created and credited through the ledger
+        ArgumentCaptor<Asset> assetCaptor = ArgumentCaptor.forClass(Asset.class);
+        verify(assetRepository).save(assetCaptor.capture());
+        assertEquals(assetName, assetCaptor.getValue().getAssetName());
+        assertEquals(Amount.ZERO, assetCaptor.getValue().getSize());
+        assertEquals(Amount.ZERO, assetCaptor.getValue().getUsableSize());
+        verify(balanceBook).credit(customerId, assetName, size);
+    }
+
+    @Test
+    void testCreateBuyOrder_filledInPieces_shouldTakeExactlyWhatWasReserved() {
+        // Arrange: 0.5 x 0.000002 reserves one unit, while each 0.000001 fill truncates to nothing
+        Amount limit = Amount.valueOf("0.5");
+        Amount piece = Amount.valueOf("0.000001");
+        Amount orderSize = piece.plus(piece);
+        OrderRequestDto dto = new OrderRequestDto(assetName, limit, orderSize, OrderSide.BUY);
+
+        Customer customer = mockCustomer();
+        AssetList assetList = mockAssetList(price);
+        Customer seller = new Customer();
+        seller.setId(2L);
+        Order firstSell = mockOrder(OrderSide.SELL, OrderStatus.PENDING, seller);
+        firstSell.setId(2L);
+        Order secondSell = mockOrder(OrderSide.SELL, OrderStatus.PENDING, seller);
+        secondSell.setId(3L);
+
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, "TRY", Amount.ofUnits(1))).thenReturn(true);
+        when(assetRepository.existsByCustomerIdAndAssetName(customerId, assetName)).thenReturn(true);
+        when(matchingEngine.match(assetName, OrderSide.BUY, limit, orderSize)).thenReturn(new MatchResult(List.of(
+                new Fill(2L, limit, piece, Amount.ZERO), new Fill(3L, limit, piece, Amount.ZERO)), Amount.ZERO));
+        when(orderRepository.findById(2L)).thenReturn(Optional.of(firstSell));
+        when(orderRepository.findById(3L)).thenReturn(Optional.of(secondSell));
+        when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        orderService.createOrder(dto, username);
+
+        // Assert: the first fill takes the reserved unit back as improvement, the second takes nothing
+        verify(balanceBook).settleReserved(customerId, "TRY", Amount.ZERO, Amount.ofUnits(1));
+        verify(balanceBook).settleReserved(customerId, "TRY", Amount.ZERO, Amount.ZERO);
+    }
+
+    @Test
+    void testCreateBuyOrder_whenOrderValueOverflows_shouldRejectAsBadRequest() {
+        // Arrange
+        Amount large = Amount.of(9_000_000_000L);
+        OrderRequestDto dto = new OrderRequestDto(assetName, large, large, OrderSide.BUY);
+
+        mockCurrentCustomer(mockCustomer());
+        mockCachedAssetList(assetName, mockAssetList(price));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> orderService.createOrder(dto, username));
+        assertEquals("Order value is out of range", exception.getMessage());
+        verify(balanceBook, never()).reserve(anyLong(), anyString(), any());
+    }
+
+
+    @Test
+    void testCreateSellOrder_crossingRestingBuyOrder_shouldReturnMatchedOrder() {
+        // Arrange
+        OrderRequestDto dto = buildRequest(OrderSide.SELL, price);
+        Customer customer = mockCustomer();
+        AssetList assetList = mockAssetList(price);
+
+        Customer buyer = new Customer();
+        buyer.setId(2L);
+        Order restingBuyOrder = mockOrder(OrderSide.BUY, OrderStatus.PENDING, buyer);
+        restingBuyOrder.setId(2L);
+        restingBuyOrder.setAssetList(assetList);
+
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, assetName, size)).thenReturn(true);
+        when(assetRepository.existsByCustomerIdAndAssetName(buyer.getId(), assetName)).thenReturn(true);
+        when(matchingEngine.match(assetName, OrderSide.SELL, price, size))
+                .thenReturn(new MatchResult(List.of(new Fill(2L, price, size, Amount.ZERO)), Amount.ZERO));
+        when(orderRepository.findById(2L)).thenReturn(Optional.of(restingBuyOrder));
+        when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        OrderResponseDto response = orderService.createOrder(dto, username);
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(OrderStatus.MATCHED, response.orderStatus());
+        assertEquals(assetName, response.assetName());
+        assertEquals(price, response.price());
+        assertEquals(size, response.size());
+        assertEquals(OrderStatus.MATCHED, restingBuyOrder.getOrderStatus());
+
+        Amount totalCost = price.times(size);
+        verify(balanceBook).settleReserved(customerId, assetName, size, Amount.ZERO);
+        verify(balanceBook).credit(customerId, "TRY", totalCost);
+        verify(balanceBook).settleReserved(buyer.getId(), "TRY", totalCost, Amount.ZERO);
+        verify(balanceBook).credit(buyer.getId(), assetName, size);
     }
 
 
     @Test
     void testCreateBuyOrder_withNonMatchingPrice_shouldReturnPendingOrder() {
         // Arrange
-        BigDecimal requestPrice = price.subtract(BigDecimal.valueOf(5)); // eşleşmeyen fiyat
+        Amount requestPrice = price.minus(Amount.of(5)); // eşleşmeyen fiyat
         OrderRequestDto dto = buildRequest(OrderSide.BUY, requestPrice);
         Customer customer = mockCustomer();
         AssetList assetList = mockAssetList(price);
-        Asset tryAsset = mockAsset("TRY", 1000, 1000);
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
-        when(assetListRepository.findByAssetName(assetName)).thenReturn(Optional.of(assetList));
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY")).thenReturn(Optional.of(tryAsset));
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, "TRY", requestPrice.times(size))).thenReturn(true);
+        when(matchingEngine.match(assetName, OrderSide.BUY, requestPrice, size)).thenReturn(new MatchResult(List.of(), size));
         when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -208,22 +482,24 @@ class OrderServiceTest {
         assertEquals(OrderStatus.PENDING, savedOrder.getOrderStatus());
         assertEquals(OrderSide.BUY, savedOrder.getOrderSide());
 
-        verify(assetRepository).save(tryAsset);
+        verify(balanceBook).reserve(customerId, "TRY", requestPrice.times(size));
+        verify(balanceBook, never()).settleReserved(anyLong(), anyString(), any(), any());
+        verify(matchingEngine).rest(savedOrder);
     }
 
 
     @Test
     void testCreateSellOrder_withNonMatchingPrice_shouldReturnPendingOrder() {
         // Arrange
-        BigDecimal requestPrice = price.add(BigDecimal.valueOf(10)); // eşleşmeyen fiyat
+        Amount requestPrice = price.plus(Amount.of(10)); // eşleşmeyen fiyat
         OrderRequestDto dto = buildRequest(OrderSide.SELL, requestPrice);
         Customer customer = mockCustomer();
         AssetList assetList = mockAssetList(price);
-        Asset asset = mockAsset(assetName, 10.0, 10.0); // yeterli varlık
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
-        when(assetListRepository.findByAssetName(assetName)).thenReturn(Optional.of(assetList));
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, assetName)).thenReturn(Optional.of(asset));
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, assetName, size)).thenReturn(true);
+        when(matchingEngine.match(assetName, OrderSide.SELL, requestPrice, size)).thenReturn(new MatchResult(List.of(), size));
         when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -244,7 +520,9 @@ class OrderServiceTest {
         assertEquals(OrderStatus.PENDING, savedOrder.getOrderStatus());
         assertEquals(OrderSide.SELL, savedOrder.getOrderSide());
 
-        verify(assetRepository).save(asset);
+        verify(balanceBook).reserve(customerId, assetName, size);
+        verify(balanceBook, never()).settleReserved(anyLong(), anyString(), any(), any());
+        verify(matchingEngine).rest(savedOrder);
     }
 
 
@@ -254,11 +532,12 @@ class OrderServiceTest {
         OrderRequestDto dto = buildRequest(OrderSide.BUY, price);
         Customer customer = mockCustomer();
         AssetList assetList = mockAssetList(price);
-        Asset tryAsset = mockAsset("TRY", 50.0, 50.0); // Yetersiz usableSize (totalCost = 91.5)
+        Amount totalCost = price.times(size); // usableSize yetersiz, reserve hiçbir satırı güncellemez
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
-        when(assetListRepository.findByAssetName(assetName)).thenReturn(Optional.of(assetList));
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY")).thenReturn(Optional.of(tryAsset));
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, "TRY", totalCost)).thenReturn(false);
+        when(assetRepository.existsByCustomerIdAndAssetName(customerId, "TRY")).thenReturn(true);
 
         // Act & Assert
         InsufficientBalanceException exception = assertThrows(
@@ -269,9 +548,10 @@ class OrderServiceTest {
         assertEquals("Insufficient TRY balance", exception.getMessage());
 
         // Verify
-        verify(customerRepository).findByUsername(username);
-        verify(assetListRepository).findByAssetName(assetName);
-        verify(assetRepository).findByCustomerIdAndAssetName(customerId, "TRY");
+        verify(customerIdentityCache).resolve(username);
+        verify(assetListCache).find(assetName);
+        verify(balanceBook).reserve(customerId, "TRY", totalCost);
+        verifyNoInteractions(matchingEngine);
     }
 
 
@@ -281,11 +561,11 @@ class OrderServiceTest {
         OrderRequestDto dto = buildRequest(OrderSide.SELL, price);
         Customer customer = mockCustomer();
         AssetList assetList = mockAssetList(price);
-        Asset asset = mockAsset(assetName, 10.0, 1.0); // usableSize yetersiz (size = 2.0)
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
-        when(assetListRepository.findByAssetName(assetName)).thenReturn(Optional.of(assetList));
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, assetName)).thenReturn(Optional.of(asset));
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, assetName, size)).thenReturn(false); // usableSize yetersiz (size = 2.0)
+        when(assetRepository.existsByCustomerIdAndAssetName(customerId, assetName)).thenReturn(true);
 
         // Act & Assert
         InsufficientBalanceException exception = assertThrows(
@@ -296,9 +576,32 @@ class OrderServiceTest {
         assertEquals("Insufficient asset balance", exception.getMessage());
 
         // Verify
-        verify(customerRepository).findByUsername(username);
-        verify(assetListRepository).findByAssetName(assetName);
-        verify(assetRepository).findByCustomerIdAndAssetName(customerId, assetName);
+        verify(customerIdentityCache).resolve(username);
+        verify(assetListCache).find(assetName);
+        verify(balanceBook).reserve(customerId, assetName, size);
+        verifyNoInteractions(matchingEngine);
+    }
+
+
+    @Test
+    void testCreateSellOrder_withoutAsset_shouldThrowAssetNotFound() {
+        // Arrange
+        OrderRequestDto dto = buildRequest(OrderSide.SELL, price);
+        Customer customer = mockCustomer();
+        AssetList assetList = mockAssetList(price);
+
+        mockCurrentCustomer(customer);
+        mockCachedAssetList(assetName, assetList);
+        when(balanceBook.reserve(customerId, assetName, size)).thenReturn(false);
+        when(assetRepository.existsByCustomerIdAndAssetName(customerId, assetName)).thenReturn(false);
+
+        // Act & Assert
+        AssetNotFoundException exception = assertThrows(
+                AssetNotFoundException.class,
+                () -> orderService.createOrder(dto, username)
+        );
+
+        assertEquals("Asset not found for customer", exception.getMessage());
     }
 
 
@@ -312,27 +615,24 @@ class OrderServiceTest {
 
         Order order = mockOrder(OrderSide.BUY, OrderStatus.PENDING, customer);
 
-        Asset tryAsset = mockAsset("TRY", 500.0, 400.0); // usableSize = 400
+        Amount expectedRefund = price.times(size);
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
+        mockCurrentCustomer(customer);
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY")).thenReturn(Optional.of(tryAsset));
         when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         orderService.cancelOrder(orderId, username);
 
         // Assert
-        double expectedRefund = price.doubleValue() * size;
         assertEquals(OrderStatus.CANCELED, order.getOrderStatus());
-        assertEquals(400.0 + expectedRefund, tryAsset.getUsableSize());
 
         // Verify
-        verify(customerRepository).findByUsername(username);
+        verify(customerIdentityCache).resolve(username);
         verify(orderRepository).findById(orderId);
-        verify(assetRepository).findByCustomerIdAndAssetName(customerId, "TRY");
-        verify(assetRepository).save(tryAsset);
+        verify(balanceBook).release(customerId, "TRY", expectedRefund);
         verify(orderRepository).save(order);
+        verify(matchingEngine).sync(order);
     }
 
     @Test
@@ -343,12 +643,8 @@ class OrderServiceTest {
 
         Order order = mockOrder(OrderSide.SELL, OrderStatus.PENDING, customer);
 
-
-        Asset asset = mockAsset(assetName, 10.0, 8.0);
-
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
+        mockCurrentCustomer(customer);
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, assetName)).thenReturn(Optional.of(asset));
         when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -356,13 +652,11 @@ class OrderServiceTest {
 
         // Assert
         assertEquals(OrderStatus.CANCELED, order.getOrderStatus());
-        assertEquals(8.0 + size, asset.getUsableSize());
 
         // Verify
-        verify(customerRepository).findByUsername(username);
+        verify(customerIdentityCache).resolve(username);
         verify(orderRepository).findById(orderId);
-        verify(assetRepository).findByCustomerIdAndAssetName(customerId, assetName);
-        verify(assetRepository).save(asset);
+        verify(balanceBook).release(customerId, assetName, size);
         verify(orderRepository).save(order);
     }
 
@@ -374,7 +668,7 @@ class OrderServiceTest {
         Order order = mockOrder(OrderSide.BUY, OrderStatus.MATCHED, customer);
 
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
+        mockCurrentCustomer(customer);
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
 
         IllegalArgumentException exception = assertThrows(
@@ -397,7 +691,7 @@ class OrderServiceTest {
         Order order = mockOrder(OrderSide.BUY, OrderStatus.PENDING, orderOwner);
 
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(currentUser));
+        mockCurrentCustomer(currentUser);
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
 
         AuthorizationDeniedException exception = assertThrows(
@@ -418,20 +712,15 @@ class OrderServiceTest {
 
         Order order = mockOrder(OrderSide.SELL, OrderStatus.PENDING, orderOwner);
 
-
-        Asset asset = mockAsset(assetName, 10.0, 5.0);
-
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(admin));
+        mockCurrentCustomer(admin);
         when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
-        when(assetRepository.findByCustomerIdAndAssetName(orderOwner.getId(), assetName)).thenReturn(Optional.of(asset));
         when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         orderService.cancelOrder(orderId, username);
 
         assertEquals(OrderStatus.CANCELED, order.getOrderStatus());
-        assertEquals(5.0 + size, asset.getUsableSize());
 
-        verify(assetRepository).save(asset);
+        verify(balanceBook).release(orderOwner.getId(), assetName, size);
         verify(orderRepository).save(order);
     }
 
@@ -459,17 +748,9 @@ class OrderServiceTest {
         sellOrder.setId(sellOrderId);
         sellOrder.setAssetList(assetList);
 
-        Asset buyerTry = mockAsset("TRY", 1000.0, 1000.0);
-        Asset buyerAsset = mockAsset(assetName, 0.0, 0.0);
-        Asset sellerTry = mockAsset("TRY", 100.0, 100.0);
-        Asset sellerAsset = mockAsset(assetName, 5.0, 5.0);
-
-        when(orderRepository.findById(buyOrderId)).thenReturn(Optional.of(buyOrder));
-        when(orderRepository.findById(sellOrderId)).thenReturn(Optional.of(sellOrder));
-        when(assetRepository.findByCustomerIdAndAssetName(buyer.getId(), "TRY")).thenReturn(Optional.of(buyerTry));
-        when(assetRepository.findByCustomerIdAndAssetName(buyer.getId(), assetName)).thenReturn(Optional.of(buyerAsset));
-        when(assetRepository.findByCustomerIdAndAssetName(seller.getId(), "TRY")).thenReturn(Optional.of(sellerTry));
-        when(assetRepository.findByCustomerIdAndAssetName(seller.getId(), assetName)).thenReturn(Optional.of(sellerAsset));
+
+        when(orderRepository.findAllByIdForUpdate(List.of(buyOrderId, sellOrderId))).thenReturn(List.of(buyOrder, sellOrder));
+        when(assetRepository.existsByCustomerIdAndAssetName(buyer.getId(), assetName)).thenReturn(true);
         when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -479,19 +760,51 @@ class OrderServiceTest {
         assertEquals(OrderStatus.MATCHED, buyOrder.getOrderStatus());
         assertEquals(OrderStatus.MATCHED, sellOrder.getOrderStatus());
 
-        BigDecimal totalPrice = price.multiply(BigDecimal.valueOf(size));
-        assertEquals(1000.0 - totalPrice.doubleValue(), buyerTry.getSize());
-        assertEquals(0.0 + size, buyerAsset.getSize());
-        assertEquals(100.0 + totalPrice.doubleValue(), sellerTry.getSize());
-        assertEquals(5.0 - size, sellerAsset.getSize());
-
-        verify(assetRepository).save(buyerTry);
-        verify(assetRepository).save(buyerAsset);
-        verify(assetRepository).save(sellerTry);
-        verify(assetRepository).save(sellerAsset);
+        Amount totalPrice = price.times(size);
+        verify(balanceBook).settleReserved(buyer.getId(), "TRY", totalPrice, Amount.ZERO);
+        verify(balanceBook).credit(buyer.getId(), assetName, size);
+        verify(balanceBook).credit(seller.getId(), "TRY", totalPrice);
+        verify(balanceBook).settleReserved(seller.getId(), assetName, size, Amount.ZERO);
         verify(orderRepository).save(buyOrder);
         verify(orderRepository).save(sellOrder);
         verify(assetListRepository).save(assetList);
+        verify(assetListCache).updatePriceAfterCommit(assetName, assetList.getCurrentPrice());
+    }
+
+
+    @Test
+    void approveMatchedOrders_shouldSettleThroughLedgerWithoutLockingBalances() {
+        // Arrange
+        Customer buyer = new Customer();
+        buyer.setId(7L);
+        Customer seller = new Customer();
+        seller.setId(3L);
+
+        AssetList assetList = mockAssetList(price);
+
+        Order buyOrder = mockOrder(OrderSide.BUY, OrderStatus.PENDING, buyer);
+        buyOrder.setId(20L);
+        buyOrder.setAssetList(assetList);
+
+        Order sellOrder = mockOrder(OrderSide.SELL, OrderStatus.PENDING, seller);
+        sellOrder.setId(10L);
+        sellOrder.setAssetList(assetList);
+
+        when(orderRepository.findAllByIdForUpdate(List.of(20L, 10L))).thenReturn(List.of(sellOrder, buyOrder));
+        when(assetRepository.existsByCustomerIdAndAssetName(buyer.getId(), assetName)).thenReturn(true);
+        when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        orderService.approveMatchedOrders(20L, 10L);
+
+        // Assert: orders are locked, the balance legs are only appended, then the price is written
+        InOrder inOrder = inOrder(orderRepository, balanceBook, assetListRepository);
+        inOrder.verify(orderRepository).findAllByIdForUpdate(List.of(20L, 10L));
+        inOrder.verify(balanceBook).settleReserved(eq(buyer.getId()), eq("TRY"), any(), any());
+        inOrder.verify(balanceBook).settleReserved(seller.getId(), assetName, size, Amount.ZERO);
+        inOrder.verify(assetListRepository).save(assetList);
+        verify(orderRepository, never()).findById(Mockito.any());
+        verify(balanceBook, never()).reserve(anyLong(), anyString(), any());
     }
 
 
@@ -504,14 +817,13 @@ class OrderServiceTest {
 
         Order buyOrder = mockOrder(OrderSide.BUY, OrderStatus.PENDING, buyer);
         buyOrder.setId(1L);
-        buyOrder.setPrice(BigDecimal.valueOf(50));
+        buyOrder.setPrice(Amount.of(50));
 
         Order sellOrder = mockOrder(OrderSide.SELL, OrderStatus.PENDING, seller);
         sellOrder.setId(2L);
-        sellOrder.setPrice(BigDecimal.valueOf(55)); // uyuşmayan fiyat
+        sellOrder.setPrice(Amount.of(55)); // uyuşmayan fiyat
 
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(buyOrder));
-        when(orderRepository.findById(2L)).thenReturn(Optional.of(sellOrder));
+        when(orderRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(List.of(buyOrder, sellOrder));
 
         // Act & Assert
         assertThrows(PriceMismatchException.class,
@@ -532,8 +844,7 @@ class OrderServiceTest {
         Order sellOrder = mockOrder(OrderSide.SELL, OrderStatus.PENDING, seller);
         sellOrder.setId(2L);
 
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(buyOrder));
-        when(orderRepository.findById(2L)).thenReturn(Optional.of(sellOrder));
+        when(orderRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(List.of(buyOrder, sellOrder));
 
         // Act & Assert
         assertThrows(InvalidOrderStatusException.class,
@@ -554,8 +865,7 @@ class OrderServiceTest {
         Order sellOrder = mockOrder(OrderSide.SELL, OrderStatus.PENDING, seller);
         sellOrder.setId(2L);
 
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(buyOrder));
-        when(orderRepository.findById(2L)).thenReturn(Optional.of(sellOrder));
+        when(orderRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(List.of(buyOrder, sellOrder));
 
         // Act & Assert
         assertThrows(InvalidOrderSideException.class,
@@ -578,8 +888,7 @@ class OrderServiceTest {
         sellOrder.setId(2L);
         sellOrder.setAssetName("THYAO"); // farklı varlık
 
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(buyOrder));
-        when(orderRepository.findById(2L)).thenReturn(Optional.of(sellOrder));
+        when(orderRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(List.of(buyOrder, sellOrder));
 
         // Act & Assert
         assertThrows(AssetMismatchException.class,
@@ -589,7 +898,7 @@ class OrderServiceTest {
 
     @Test
     void approveMatchedOrders_shouldThrowException_whenBuyOrderNotFound() {
-        when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+        when(orderRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(List.of());
 
         assertThrows(OrderNotFoundException.class,
                 () -> orderService.approveMatchedOrders(1L, 2L));
@@ -602,8 +911,7 @@ class OrderServiceTest {
         Order buyOrder = mockOrder(OrderSide.BUY, OrderStatus.PENDING, buyer);
         buyOrder.setId(1L);
 
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(buyOrder));
-        when(orderRepository.findById(2L)).thenReturn(Optional.empty());
+        when(orderRepository.findAllByIdForUpdate(List.of(1L, 2L))).thenReturn(List.of(buyOrder));
 
         // Act & Assert
         assertThrows(OrderNotFoundException.class,
@@ -626,25 +934,17 @@ class OrderServiceTest {
 
         Order buyOrder = mockOrder(OrderSide.BUY, OrderStatus.PENDING, buyer);
         buyOrder.setId(buyOrderId);
-        buyOrder.setSize(5.0);
+        buyOrder.setSize(Amount.of(5));
         buyOrder.setAssetList(assetList);
 
         Order sellOrder = mockOrder(OrderSide.SELL, OrderStatus.PENDING, seller);
         sellOrder.setId(sellOrderId);
-        sellOrder.setSize(2.0);
+        sellOrder.setSize(Amount.of(2));
         sellOrder.setAssetList(assetList);
 
-        Asset buyerTry = mockAsset("TRY", 1000.0, 1000.0);
-        Asset buyerAsset = mockAsset(assetName, 0.0, 0.0);
-        Asset sellerTry = mockAsset("TRY", 100.0, 100.0);
-        Asset sellerAsset = mockAsset(assetName, 5.0, 5.0);
-
-        when(orderRepository.findById(buyOrderId)).thenReturn(Optional.of(buyOrder));
-        when(orderRepository.findById(sellOrderId)).thenReturn(Optional.of(sellOrder));
-        when(assetRepository.findByCustomerIdAndAssetName(buyer.getId(), "TRY")).thenReturn(Optional.of(buyerTry));
-        when(assetRepository.findByCustomerIdAndAssetName(buyer.getId(), assetName)).thenReturn(Optional.of(buyerAsset));
-        when(assetRepository.findByCustomerIdAndAssetName(seller.getId(), "TRY")).thenReturn(Optional.of(sellerTry));
-        when(assetRepository.findByCustomerIdAndAssetName(seller.getId(), assetName)).thenReturn(Optional.of(sellerAsset));
+
+        when(orderRepository.findAllByIdForUpdate(List.of(buyOrderId, sellOrderId))).thenReturn(List.of(buyOrder, sellOrder));
+        when(assetRepository.existsByCustomerIdAndAssetName(buyer.getId(), assetName)).thenReturn(true);
         when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -652,10 +952,10 @@ class OrderServiceTest {
 
         // Assert
         assertEquals(OrderStatus.PENDING, buyOrder.getOrderStatus());
-        assertEquals(3.0, buyOrder.getSize()); // 5 - 2
+        assertEquals(Amount.of(3), buyOrder.getSize()); // 5 - 2
 
         assertEquals(OrderStatus.MATCHED, sellOrder.getOrderStatus());
-        assertEquals(2.0, sellOrder.getSize());
+        assertEquals(Amount.of(2), sellOrder.getSize());
     }
 
 
@@ -674,25 +974,17 @@ class OrderServiceTest {
 
         Order buyOrder = mockOrder(OrderSide.BUY, OrderStatus.PENDING, buyer);
         buyOrder.setId(buyOrderId);
-        buyOrder.setSize(2.0);
+        buyOrder.setSize(Amount.of(2));
         buyOrder.setAssetList(assetList);
 
         Order sellOrder = mockOrder(OrderSide.SELL, OrderStatus.PENDING, seller);
         sellOrder.setId(sellOrderId);
-        sellOrder.setSize(5.0);
+        sellOrder.setSize(Amount.of(5));
         sellOrder.setAssetList(assetList);
 
-        Asset buyerTry = mockAsset("TRY", 1000.0, 1000.0);
-        Asset buyerAsset = mockAsset(assetName, 0.0, 0.0);
-        Asset sellerTry = mockAsset("TRY", 100.0, 100.0);
-        Asset sellerAsset = mockAsset(assetName, 10.0, 10.0);
-
-        when(orderRepository.findById(buyOrderId)).thenReturn(Optional.of(buyOrder));
-        when(orderRepository.findById(sellOrderId)).thenReturn(Optional.of(sellOrder));
-        when(assetRepository.findByCustomerIdAndAssetName(buyer.getId(), "TRY")).thenReturn(Optional.of(buyerTry));
-        when(assetRepository.findByCustomerIdAndAssetName(buyer.getId(), assetName)).thenReturn(Optional.of(buyerAsset));
-        when(assetRepository.findByCustomerIdAndAssetName(seller.getId(), "TRY")).thenReturn(Optional.of(sellerTry));
-        when(assetRepository.findByCustomerIdAndAssetName(seller.getId(), assetName)).thenReturn(Optional.of(sellerAsset));
+
+        when(orderRepository.findAllByIdForUpdate(List.of(buyOrderId, sellOrderId))).thenReturn(List.of(buyOrder, sellOrder));
+        when(assetRepository.existsByCustomerIdAndAssetName(buyer.getId(), assetName)).thenReturn(true);
         when(orderRepository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -700,10 +992,10 @@ class OrderServiceTest {
 
         // Assert
         assertEquals(OrderStatus.MATCHED, buyOrder.getOrderStatus());
-        assertEquals(2.0, buyOrder.getSize());
+        assertEquals(Amount.of(2), buyOrder.getSize());
 
         assertEquals(OrderStatus.PENDING, sellOrder.getOrderStatus());
-        assertEquals(3.0, sellOrder.getSize()); // 5 - 2
+        assertEquals(Amount.of(3), sellOrder.getSize()); // 5 - 2
     }
 
 
@@ -765,13 +1057,13 @@ class OrderServiceTest {
         Order order2 = mockOrder(OrderSide.SELL, OrderStatus.PENDING, customer);
         List<Order> orders = List.of(order1, order2);
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
+        mockCurrentCustomer(customer);
         when(orderRepository.findByCustomerIdAndCreatedDateBetween(customer.getId(), start, end)).thenReturn(orders);
 
         List<OrderResponseDto> result = orderService.listOrdersForCurrentUser(start, end, username);
 
         assertEquals(2, result.size());
-        verify(customerRepository).findByUsername(username);
+        verify(customerIdentityCache).resolve(username);
         verify(orderRepository).findByCustomerIdAndCreatedDateBetween(customer.getId(), start, end);
     }
 
@@ -781,12 +1073,12 @@ class OrderServiceTest {
         LocalDate start = LocalDate.of(2024, 1, 1);
         LocalDate end = LocalDate.of(2024, 12, 31);
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(customerIdentityCache.resolve(username)).thenReturn(Optional.empty());
 
         assertThrows(CustomerNotFoundException.class,
                 () -> orderService.listOrdersForCurrentUser(start, end, username));
 
-        verify(customerRepository).findByUsername(username);
+        verify(customerIdentityCache).resolve(username);
         verify(orderRepository, never())
                 .findByCustomerIdAndCreatedDateBetween(
                         ArgumentMatchers.anyLong(),
@@ -801,17 +1093,15 @@ class OrderServiceTest {
     @Test
     void depositForCurrentUser_shouldDepositSuccessfully_whenAmountIsValid() {
         String username = "testUser";
-        double amount = 100.0;
+        Amount amount = Amount.of(100);
         Customer customer = mockCustomer();
         customer.setUsername(username);
 
-        Asset tryAsset = mockAsset("TRY", 500.0, 500.0);
-        AssetList tryAssetList = mockAssetList(BigDecimal.ONE);
+        AssetList tryAssetList = mockAssetList(Amount.of(1));
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
-        when(assetListRepository.findByAssetName("TRY")).thenReturn(Optional.of(tryAssetList));
-        when(assetRepository.findByCustomerIdAndAssetName(customer.getId(), "TRY"))
-                .thenReturn(Optional.of(tryAsset));
+        mockCurrentCustomer(customer);
+        mockCachedAssetList("TRY", tryAssetList);
+        when(assetRepository.existsByCustomerIdAndAssetName(customer.getId(), "TRY")).thenReturn(true);
         when(orderRepository.save(Mockito.any(Order.class)))
                 .thenAnswer(invocation -> invocation.<Order>getArgument(0));
 
@@ -821,7 +1111,7 @@ class OrderServiceTest {
         assertEquals("TRY", result.assetName());
         assertEquals(amount, result.size());
         assertEquals(OrderSide.BUY, result.orderSide());
-        verify(assetRepository).save(tryAsset);
+        verify(balanceBook).credit(customer.getId(), "TRY", amount);
     }
 
     @Test
@@ -829,35 +1119,34 @@ class OrderServiceTest {
         String username = "testUser";
 
         assertThrows(IllegalArgumentException.class,
-                () -> orderService.depositForCurrentUser(0, username));
+                () -> orderService.depositForCurrentUser(Amount.ZERO, username));
 
         assertThrows(IllegalArgumentException.class,
-                () -> orderService.depositForCurrentUser(-50, username));
+                () -> orderService.depositForCurrentUser(Amount.of(-50), username));
     }
 
     @Test
     void depositForCurrentUser_shouldThrowException_whenUserNotFound() {
         String username = "unknownUser";
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(customerIdentityCache.resolve(username)).thenReturn(Optional.empty());
 
         assertThrows(CustomerNotFoundException.class,
-                () -> orderService.depositForCurrentUser(100, username));
+                () -> orderService.depositForCurrentUser(Amount.of(100), username));
     }
 
     @Test
     void withdrawForCurrentUser_shouldWithdrawSuccessfully_whenBalanceIsSufficient() {
         String username = "testUser";
-        double amount = 100.0;
+        Amount amount = Amount.of(100);
         Customer customer = mockCustomer();
         customer.setUsername(username);
 
-        Asset tryAsset = mockAsset("TRY", 500.0, 500.0);
-        AssetList tryAssetList = mockAssetList(BigDecimal.ONE);
+        AssetList tryAssetList = mockAssetList(Amount.of(1));
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
-        when(assetListRepository.findByAssetName("TRY")).thenReturn(Optional.of(tryAssetList));
-        when(assetRepository.findByCustomerIdAndAssetName(customer.getId(), "TRY")).thenReturn(Optional.of(tryAsset));
+        mockCurrentCustomer(customer);
+        mockCachedAssetList("TRY", tryAssetList);
+        when(balanceBook.debit(customer.getId(), "TRY", amount)).thenReturn(true);
         when(orderRepository.save(Mockito.any(Order.class)))
                 .thenAnswer(invocation -> invocation.<Order>getArgument(0));
 
@@ -867,25 +1156,26 @@ class OrderServiceTest {
         assertEquals("TRY", result.assetName());
         assertEquals(amount, result.size());
         assertEquals(OrderSide.SELL, result.orderSide());
-        verify(assetRepository).save(tryAsset);
+        verify(balanceBook).debit(customer.getId(), "TRY", amount);
     }
 
     @Test
     void withdrawForCurrentUser_shouldThrowException_whenBalanceIsInsufficient() {
         String username = "testUser";
-        double amount = 1000.0;
+        Amount amount = Amount.of(1000);
         Customer customer = mockCustomer();
         customer.setUsername(username);
 
-        Asset tryAsset = mockAsset("TRY", 500.0, 500.0);
-        AssetList tryAssetList = mockAssetList(BigDecimal.ONE);
+        AssetList tryAssetList = mockAssetList(Amount.of(1));
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.of(customer));
-        when(assetListRepository.findByAssetName("TRY")).thenReturn(Optional.of(tryAssetList));
-        when(assetRepository.findByCustomerIdAndAssetName(customer.getId(), "TRY")).thenReturn(Optional.of(tryAsset));
+        mockCurrentCustomer(customer);
+        mockCachedAssetList("TRY", tryAssetList);
+        when(balanceBook.debit(customer.getId(), "TRY", amount)).thenReturn(false);
+        when(assetRepository.existsByCustomerIdAndAssetName(customer.getId(), "TRY")).thenReturn(true);
 
         assertThrows(InsufficientBalanceException.class,
                 () -> orderService.withdrawForCurrentUser(amount, username));
+        verify(orderRepository, never()).save(Mockito.any());
     }
 
     @Test
@@ -893,20 +1183,20 @@ class OrderServiceTest {
         String username = "testUser";
 
         assertThrows(IllegalArgumentException.class,
-                () -> orderService.withdrawForCurrentUser(0, username));
+                () -> orderService.withdrawForCurrentUser(Amount.ZERO, username));
 
         assertThrows(IllegalArgumentException.class,
-                () -> orderService.withdrawForCurrentUser(-100, username));
+                () -> orderService.withdrawForCurrentUser(Amount.of(-100), username));
     }
 
     @Test
     void withdrawForCurrentUser_shouldThrowException_whenUserNotFound() {
         String username = "unknownUser";
 
-        when(customerRepository.findByUsername(username)).thenReturn(Optional.empty());
+        when(customerIdentityCache.resolve(username)).thenReturn(Optional.empty());
 
         assertThrows(CustomerNotFoundException.class,
-                () -> orderService.withdrawForCurrentUser(100, username));
+                () -> orderService.withdrawForCurrentUser(Amount.of(100), username));
     }
 
 
@@ -0,0 +1,88 @@
+package task.ing.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import task.ing.engine.OrderBook;
+import task.ing.model.dto.projection.BookOrderRow;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateSnapshotFileTest {
+
+    private static final Instant TAKEN_AT = Instant.parse("2025-06-01T10:15:30.123Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void read_shouldRebuildBalancesAndBooksAsWritten() throws IOException {
+        List<StateSnapshotFile.Position> positions = List.of(
+                new StateSnapshotFile.Position(1L, 7L, "TRY", Amount.valueOf("1500.25"), Amount.of(900), 350L, true),
+                new StateSnapshotFile.Position(2L, 7L, "ASELS", Amount.of(10), Amount.of(8), 120L, false));
+        List<BookOrderRow> orders = List.of(
+                row(11L, "ASELS", OrderSide.BUY, "44", "10"),
+                row(12L, "ASELS", OrderSide.SELL, "46.5", "2.5"),
+                row(15L, "THYAO", OrderSide.BUY, "120", "1"));
+        Path path = StateSnapshotFile.pathOf(directory, TAKEN_AT);
+
+        assertEquals(3, StateSnapshotFile.write(path, TAKEN_AT, 42L, positions.iterator(), orders.iterator()));
+        StateSnapshotFile.Contents contents = StateSnapshotFile.read(path);
+
+        assertEquals(TAKEN_AT, contents.takenAt());
+        assertEquals(42L, contents.journalSequence());
+        assertEquals(42L, StateSnapshotFile.readJournalSequence(path));
+        assertEquals(15L, contents.highestOrderId());
+        assertEquals(positions, contents.positions());
+        assertEquals(3, contents.orders());
+
+        OrderBook asels = contents.books().get("ASELS");
+        assertEquals(2, asels.size());
+        assertEquals(Optional.of(Amount.of(44)), asels.bestBid());
+        assertEquals(Optional.of(Amount.valueOf("46.5")), asels.bestAsk());
+        assertTrue(contents.books().get("THYAO").contains(15L));
+    }
+
+    @Test
+    void read_shouldRejectAFileWithABadChecksum() throws IOException {
+        Path path = StateSnapshotFile.pathOf(directory, TAKEN_AT);
+        StateSnapshotFile.write(path, TAKEN_AT, 0, Collections.emptyIterator(),
+                List.of(row(11L, "ASELS", OrderSide.BUY, "44", "10")).iterator());
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(file.length() - 3);
+            int original = file.read();
+            file.seek(file.length() - 3);
+            file.write(original ^ 0xFF);
+        }
+
+        IOException e = assertThrows(IOException.class, () -> StateSnapshotFile.read(path));
+        assertTrue(e.getMessage().startsWith("Corrupt state snapshot"));
+    }
+
+    @Test
+    void list_shouldReturnNewestFirstAndIgnoreOtherFiles() throws IOException {
+        Path older = StateSnapshotFile.pathOf(directory, TAKEN_AT);
+        Path newer = StateSnapshotFile.pathOf(directory, TAKEN_AT.plusSeconds(300));
+        Files.createFile(older);
+        Files.createFile(newer);
+        Files.createFile(directory.resolve(newer.getFileName() + ".tmp"));
+
+        assertEquals(List.of(newer, older), StateSnapshotFile.list(directory));
+    }
+
+    private static BookOrderRow row(Long id, String assetName, OrderSide side, String price, String size) {
+        return new BookOrderRow(id, assetName, side, Amount.valueOf(price), Amount.valueOf(size), OrderStatus.PENDING);
+    }
+}
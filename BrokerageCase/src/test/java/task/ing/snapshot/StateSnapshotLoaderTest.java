@@ -0,0 +1,195 @@
+package task.ing.snapshot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import task.ing.cache.CustomerIdentityCache;
+import task.ing.engine.MatchingEngine;
+import task.ing.journal.CommandJournal;
+import task.ing.ledger.BalanceBook;
+import task.ing.model.dto.projection.BookOrderRow;
+import task.ing.model.dto.request.CustomerRequestDto;
+import task.ing.model.dto.request.OrderRequestDto;
+import task.ing.model.enums.OrderSide;
+import task.ing.model.enums.OrderStatus;
+import task.ing.model.value.Amount;
+import task.ing.repository.AssetRepository;
+import task.ing.repository.OrderRepository;
+import task.ing.service.CustomerService;
+import task.ing.service.OrderCommandService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes a snapshot, runs more commands afterwards and starts a fresh engine from it, the way a
+ * restarted application would.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:state-snapshot",
+        "brokerage.snapshot.enabled=true",
+        "brokerage.snapshot.interval-ms=3600000",
+        "brokerage.journal.enabled=true",
+        "brokerage.journal.fsync=NEVER",
+        "brokerage.journal.checkpoint-interval-ms=3600000",
+        "brokerage.ledger.snapshot-interval-ms=3600000",
+        "brokerage.ledger.snapshot-lag-ms=0"
+})
+class StateSnapshotLoaderTest {
+
+    @TempDir
+    static Path snapshots;
+
+    @TempDir
+    static Path journal;
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("brokerage.snapshot.directory", snapshots::toString);
+        registry.add("brokerage.journal.directory", journal::toString);
+    }
+
+    @Autowired
+    private StateSnapshotWriter stateSnapshotWriter;
+
+    @Autowired
+    private CommandJournal commandJournal;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerIdentityCache customerIdentityCache;
+
+    @Autowired
+    private OrderCommandService orderCommandService;
+
+    @Autowired
+    private BalanceBook balanceBook;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String username;
+    private Long customerId;
+
+    @BeforeEach
+    void setUp() {
+        username = "snapshot" + System.nanoTime();
+        customerService.createCustomer(new CustomerRequestDto("Snap", "Shot", username + "@mail.com", username, "secret1"));
+        customerId = customerIdentityCache.resolve(username).orElseThrow().id();
+        orderCommandService.depositForCurrentUser(Amount.of(10_000), username);
+    }
+
+    @Test
+    void load_shouldInstallTheBooksNoLaterCommandTouched() throws IOException {
+        Long kept = buy("ASELS");
+        Long canceled = buy("THYAO");
+        snapshot();
+
+        orderCommandService.cancelOrder(canceled, username);
+        Long added = buy("SISE");
+
+        MatchingEngine engine = new MatchingEngine(orderRepository);
+        load(engine);
+
+        // only the installed books are searched, nothing is loaded on demand
+        assertEquals(Optional.of("ASELS"), engine.findAssetName(kept));
+        assertEquals(Optional.empty(), engine.findAssetName(canceled));
+        assertEquals(Optional.empty(), engine.findAssetName(added));
+        assertEquals(orderRepository.findByAssetNameAndOrderStatusOrderByIdAsc("ASELS", OrderStatus.PENDING).size(),
+                engine.getBook("ASELS").size());
+
+        // the touched ones come from the database as it is now
+        assertFalse(engine.getBook("THYAO").contains(canceled));
+        assertTrue(engine.getBook("SISE").contains(added));
+    }
+
+    @Test
+    void load_shouldTakeOverBalancesTheDatabaseHasNotFoldedYet() throws IOException {
+        buy("KRDMD");
+        long positionBefore = tryLedgerPosition();
+        snapshot();
+        assertEquals(positionBefore, tryLedgerPosition());
+
+        load(new MatchingEngine(orderRepository));
+
+        assertTrue(tryLedgerPosition() > positionBefore);
+        Amount usable = balanceBook.usableSize(customerId, "TRY").orElseThrow();
+        assertEquals(Amount.ofUnits(jdbcTemplate.queryForObject(
+                "select usable_size from asset where customer_id = ? and asset_name = 'TRY'", Long.class, customerId)), usable);
+        assertEquals(Amount.of(10_000).minus(Amount.of(1)), usable);
+    }
+
+    @Test
+    void load_shouldIgnoreASnapshotTheJournalDoesNotReach(@TempDir Path ahead) throws IOException {
+        Long pending = buy("ASELS");
+        Instant takenAt = Instant.now();
+        StateSnapshotFile.write(StateSnapshotFile.pathOf(ahead, takenAt), takenAt,
+                commandJournal.checkpointSequence() + 1_000, Collections.emptyIterator(),
+                List.of(new BookOrderRow(pending, "ASELS", OrderSide.BUY, Amount.of(1), Amount.of(1),
+                        OrderStatus.PENDING)).iterator());
+
+        MatchingEngine engine = new MatchingEngine(orderRepository);
+        new StateSnapshotLoader(ahead.toString(), orderRepository, assetRepository, engine, commandJournal,
+                transactionManager).load();
+
+        assertEquals(Optional.empty(), engine.findAssetName(pending));
+    }
+
+    @Test
+    void load_shouldIgnoreASnapshotOfOrdersThisDatabaseDoesNotHave(@TempDir Path foreign) throws IOException {
+        Instant takenAt = Instant.now();
+        StateSnapshotFile.write(StateSnapshotFile.pathOf(foreign, takenAt), takenAt, 0, Collections.emptyIterator(),
+                List.of(new BookOrderRow(999_999_999L, "ASELS", OrderSide.BUY,
+                        Amount.of(1), Amount.of(1), OrderStatus.PENDING)).iterator());
+
+        MatchingEngine engine = new MatchingEngine(orderRepository);
+        new StateSnapshotLoader(foreign.toString(), orderRepository, assetRepository, engine, commandJournal,
+                transactionManager).load();
+
+        assertEquals(Optional.empty(), engine.findAssetName(999_999_999L));
+    }
+
+    // every command so far has finished, so the snapshot is taken after all of them
+    private void snapshot() throws IOException {
+        commandJournal.checkpoint();
+        stateSnapshotWriter.write();
+    }
+
+    private void load(MatchingEngine engine) throws IOException {
+        new StateSnapshotLoader(snapshots.toString(), orderRepository, assetRepository, engine, commandJournal,
+                transactionManager).load();
+    }
+
+    private long tryLedgerPosition() {
+        return jdbcTemplate.queryForObject(
+                "select ledger_position from asset where customer_id = ? and asset_name = 'TRY'", Long.class, customerId);
+    }
+
+    private Long buy(String assetName) {
+        return orderCommandService.createOrder(
+                new OrderRequestDto(assetName, Amount.of(1), Amount.of(1), OrderSide.BUY), username).id();
+    }
+}